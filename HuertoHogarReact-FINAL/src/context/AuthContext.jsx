@@ -215,6 +215,11 @@ const register = async (userData) => {
         confirmPassword: newPassword
       })
 
+      // El cambio revoca el token de esta sesión: se guarda el nuevo que devuelve el backend
+      if (response.data?.token) {
+        localStorage.setItem('huertohogar_token', response.data.token)
+      }
+
       return {
         success: true,
         message: 'Contraseña cambiada exitosamente'
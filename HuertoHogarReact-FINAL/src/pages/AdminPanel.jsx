@@ -17,9 +17,15 @@ const AdminPanel = () => {
 
   // Estados para Pedidos
   const [pedidos, setPedidos] = useState([])
+  const [pedidosCursor, setPedidosCursor] = useState(null)
+  const [loadingMasPedidos, setLoadingMasPedidos] = useState(false)
   const [showPedidoModal, setShowPedidoModal] = useState(false)
   const [selectedPedido, setSelectedPedido] = useState(null)
 
+  // Estados para Analítica (acumulados diarios calculados en el servidor)
+  const [analitica, setAnalitica] = useState(null)
+  const [rangoAnalitica, setRangoAnalitica] = useState({ desde: '', hasta: '' })
+
   // Estados para Productos
   const [productos, setProductos] = useState([])
   const [showProductoModal, setShowProductoModal] = useState(false)
@@ -57,13 +63,21 @@ const AdminPanel = () => {
       }
 
       if (activeTab === 'pedidos') {
+        // Primera página (pedidos más recientes); las siguientes con "Cargar más pedidos"
         const response = await axios.get(`${API_URL}/pedidos/admin/todos`, config)
-        setPedidos(response.data)
+        setPedidos(response.data.items)
+        setPedidosCursor(response.data.hasMore ? response.data.nextCursor : null)
+      } else if (activeTab === 'analitica') {
+        const params = {}
+        if (rangoAnalitica.desde) params.desde = rangoAnalitica.desde
+        if (rangoAnalitica.hasta) params.hasta = rangoAnalitica.hasta
+        const response = await axios.get(`${API_URL}/admin/analitica`, { ...config, params })
+        setAnalitica(response.data)
       } else if (activeTab === 'productos') {
-        const response = await axios.get(`${API_URL}/productos`)
+        const response = await axios.get(`${API_URL}/productos`, { params: { todos: true } })
         setProductos(response.data)
       } else if (activeTab === 'usuarios') {
-        const response = await axios.get(`${API_URL}/usuarios`, config)
+        const response = await axios.get(`${API_URL}/usuarios`, { ...config, params: { todos: true } })
         setUsuarios(response.data)
       }
     } catch (err) {
@@ -75,6 +89,24 @@ const AdminPanel = () => {
   }
 
   // ========== PEDIDOS ==========
+  const cargarMasPedidos = async () => {
+    setLoadingMasPedidos(true)
+    try {
+      const token = localStorage.getItem('huertohogar_token')
+      const response = await axios.get(`${API_URL}/pedidos/admin/todos`, {
+        headers: { Authorization: `Bearer ${token}` },
+        params: { cursor: pedidosCursor }
+      })
+      setPedidos(previos => [...previos, ...response.data.items])
+      setPedidosCursor(response.data.hasMore ? response.data.nextCursor : null)
+    } catch (err) {
+      console.error('Error loading data:', err)
+      setError('Error al cargar los datos')
+    } finally {
+      setLoadingMasPedidos(false)
+    }
+  }
+
   const handleViewPedido = (pedido) => {
     setSelectedPedido(pedido)
     setShowPedidoModal(true)
@@ -243,8 +275,137 @@ const AdminPanel = () => {
                     </tbody>
                   </Table>
                 )}
+                {!loading && pedidosCursor && (
+                  <div className="text-center">
+                    <Button variant="outline-success" onClick={cargarMasPedidos} disabled={loadingMasPedidos}>
+                      {loadingMasPedidos ? 'Cargando...' : 'Cargar más pedidos'}
+                    </Button>
+                  </div>
+                )}
+              </Card.Body>
+            </Card>
+          </Tab>
+
+          {/* TAB ANALÍTICA */}
+          <Tab eventKey="analitica" title={<><i className="fas fa-chart-line me-2"></i>Analítica</>}>
+            <Card className="mb-3">
+              <Card.Body>
+                <Form
+                  className="d-flex align-items-end gap-3"
+                  onSubmit={(e) => {
+                    e.preventDefault()
+                    loadData()
+                  }}
+                >
+                  <Form.Group>
+                    <Form.Label>Desde</Form.Label>
+                    <Form.Control
+                      type="date"
+                      value={rangoAnalitica.desde}
+                      onChange={(e) => setRangoAnalitica({ ...rangoAnalitica, desde: e.target.value })}
+                    />
+                  </Form.Group>
+                  <Form.Group>
+                    <Form.Label>Hasta</Form.Label>
+                    <Form.Control
+                      type="date"
+                      value={rangoAnalitica.hasta}
+                      onChange={(e) => setRangoAnalitica({ ...rangoAnalitica, hasta: e.target.value })}
+                    />
+                  </Form.Group>
+                  <Button type="submit" variant="success">Actualizar</Button>
+                </Form>
               </Card.Body>
             </Card>
+            {loading || !analitica ? (
+              <div className="text-center py-5">
+                <Spinner animation="border" variant="success" />
+              </div>
+            ) : (
+              <>
+                <Row className="mb-3">
+                  <Col md={4}>
+                    <Card body>
+                      <small className="text-muted">Ingresos</small>
+                      <h4>${analitica.ingresos.toLocaleString()}</h4>
+                    </Card>
+                  </Col>
+                  <Col md={4}>
+                    <Card body>
+                      <small className="text-muted">Pedidos vendidos</small>
+                      <h4>{analitica.pedidos}</h4>
+                    </Card>
+                  </Col>
+                  <Col md={4}>
+                    <Card body>
+                      <small className="text-muted">Unidades</small>
+                      <h4>{analitica.unidades}</h4>
+                    </Card>
+                  </Col>
+                </Row>
+                <Row>
+                  <Col md={6}>
+                    <Card className="mb-3">
+                      <Card.Header>Ingresos por día</Card.Header>
+                      <Table size="sm" className="mb-0">
+                        <tbody>
+                          {analitica.porDia.map(dia => (
+                            <tr key={dia.clave}>
+                              <td>{dia.clave}</td>
+                              <td className="text-end">{dia.pedidos} pedidos</td>
+                              <td className="text-end">${dia.ingresos.toLocaleString()}</td>
+                            </tr>
+                          ))}
+                        </tbody>
+                      </Table>
+                    </Card>
+                    <Card className="mb-3">
+                      <Card.Header>Pedidos por estado</Card.Header>
+                      <Table size="sm" className="mb-0">
+                        <tbody>
+                          {analitica.porEstado.map(estado => (
+                            <tr key={estado.clave}>
+                              <td><Badge bg={getEstadoBadge(estado.clave)}>{estado.clave}</Badge></td>
+                              <td className="text-end">{estado.pedidos}</td>
+                            </tr>
+                          ))}
+                        </tbody>
+                      </Table>
+                    </Card>
+                  </Col>
+                  <Col md={6}>
+                    <Card className="mb-3">
+                      <Card.Header>Ingresos por categoría</Card.Header>
+                      <Table size="sm" className="mb-0">
+                        <tbody>
+                          {analitica.porCategoria.map(categoria => (
+                            <tr key={categoria.clave}>
+                              <td>{categoria.clave}</td>
+                              <td className="text-end">{categoria.unidades} u.</td>
+                              <td className="text-end">${categoria.ingresos.toLocaleString()}</td>
+                            </tr>
+                          ))}
+                        </tbody>
+                      </Table>
+                    </Card>
+                    <Card className="mb-3">
+                      <Card.Header>Productos más vendidos</Card.Header>
+                      <Table size="sm" className="mb-0">
+                        <tbody>
+                          {analitica.productos.map(producto => (
+                            <tr key={producto.clave}>
+                              <td>{producto.nombre || producto.clave}</td>
+                              <td className="text-end">{producto.unidades} u.</td>
+                              <td className="text-end">${producto.ingresos.toLocaleString()}</td>
+                            </tr>
+                          ))}
+                        </tbody>
+                      </Table>
+                    </Card>
+                  </Col>
+                </Row>
+              </>
+            )}
           </Tab>
 
           {/* TAB PRODUCTOS */}
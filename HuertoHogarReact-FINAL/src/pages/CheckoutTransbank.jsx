@@ -67,7 +67,8 @@ const CheckoutTransbank = () => {
           cuotas: response.installmentsNumber || 1
         }
 
-        await ordersAPI.confirmPayment(pendingOrderId, paymentData)
+        // La orden de compra identifica el pago: si la confirmación se reintenta no se aplica dos veces
+        await ordersAPI.confirmPayment(pendingOrderId, paymentData, response.buyOrder)
 
         console.log('✅ Pedido confirmado en base de datos:', pendingOrderId)
 
@@ -125,7 +126,7 @@ const CheckoutTransbank = () => {
 
     try {
       // Paso 1: Crear el pedido en el backend (estado PENDIENTE)
-      const pedidoResponse = await ordersAPI.createFromCart()
+      const pedidoResponse = await ordersAPI.createFromCart(crypto.randomUUID())
       const pedido = pedidoResponse.data
       
       console.log('✅ Pedido creado en base de datos:', pedido)
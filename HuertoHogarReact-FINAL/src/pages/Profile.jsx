@@ -8,16 +8,25 @@ import './Profile.css';
 // Componente para mostrar historial de pedidos
 function OrdersHistory() {
   const [orders, setOrders] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState('');
+  // Detalle completo por pedido, cargado sólo al expandirlo
+  const [details, setDetails] = useState({});
+  const [expanded, setExpanded] = useState(null);
+
+  const loadPage = async (cursor) => {
+    const response = await ordersAPI.getAll(cursor);
+    // El backend ya los entrega del más reciente al más antiguo
+    setOrders((previous) => (cursor ? [...previous, ...response.data.items] : response.data.items));
+    setNextCursor(response.data.hasMore ? response.data.nextCursor : null);
+  };
 
   useEffect(() => {
     const loadOrders = async () => {
       try {
-        const response = await ordersAPI.getAll();
-        // Ordenar por fecha más reciente primero
-        const sortedOrders = response.data.sort((a, b) => new Date(b.fecha) - new Date(a.fecha));
-        setOrders(sortedOrders);
+        await loadPage(null);
       } catch (err) {
         console.error('Error al cargar pedidos:', err);
         setError('Error al cargar el historial de pedidos');
@@ -29,6 +38,36 @@ function OrdersHistory() {
     loadOrders();
   }, []);
 
+  const loadMore = async () => {
+    setLoadingMore(true);
+    try {
+      await loadPage(nextCursor);
+    } catch (err) {
+      console.error('Error al cargar pedidos:', err);
+      setError('Error al cargar el historial de pedidos');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
+  const toggleDetail = async (id) => {
+    if (expanded === id) {
+      setExpanded(null);
+      return;
+    }
+    setExpanded(id);
+    if (details[id]) {
+      return;
+    }
+    try {
+      const response = await ordersAPI.getById(id);
+      setDetails((previous) => ({ ...previous, [id]: response.data }));
+    } catch (err) {
+      console.error('Error al cargar el pedido:', err);
+      setDetails((previous) => ({ ...previous, [id]: { error: true } }));
+    }
+  };
+
   if (loading) {
     return (
       <div className="text-center py-5">
@@ -61,6 +100,84 @@ function OrdersHistory() {
     );
   }
 
+  const renderDetail = (order) => {
+    if (!order) {
+      return (
+        <Card.Body className="text-center">
+          <Spinner animation="border" size="sm" variant="success" />
+        </Card.Body>
+      );
+    }
+    if (order.error) {
+      return (
+        <Card.Body>
+          <Alert variant="danger" className="mb-0">No se pudo cargar el detalle del pedido</Alert>
+        </Card.Body>
+      );
+    }
+    return (
+      <Card.Body>
+        <Row>
+          <Col md={8}>
+            <h6 className="mb-3">Productos:</h6>
+            <Table size="sm" bordered>
+              <thead>
+                <tr>
+                  <th>Producto</th>
+                  <th className="text-center">Cantidad</th>
+                  <th className="text-end">Precio</th>
+                  <th className="text-end">Subtotal</th>
+                </tr>
+              </thead>
+              <tbody>
+                {order.items.map((item, idx) => (
+                  <tr key={idx}>
+                    <td>{item.producto?.nombre || item.nombre}</td>
+                    <td className="text-center">{item.cantidad}</td>
+                    <td className="text-end">${item.precioUnitario?.toLocaleString() || item.precio?.toLocaleString()}</td>
+                    <td className="text-end">${item.subtotal.toLocaleString()}</td>
+                  </tr>
+                ))}
+              </tbody>
+            </Table>
+          </Col>
+          <Col md={4}>
+            <h6 className="mb-3">Detalles del Pago:</h6>
+            {order.metodoPago && (
+              <div className="mb-2">
+                <small className="text-muted">Método de pago:</small>
+                <div>
+                  <img 
+                    src="https://www.webpay.cl/wp-content/uploads/2019/06/webpay-plus-logo.png"
+                    alt="Webpay Plus"
+                    style={{ maxWidth: '100px' }}
+                  />
+                </div>
+              </div>
+            )}
+            {order.codigoAutorizacion && (
+              <div className="mb-2">
+                <small className="text-muted">Código de autorización:</small>
+                <div className="fw-bold">{order.codigoAutorizacion}</div>
+              </div>
+            )}
+            {order.detallesTarjeta && (
+              <div className="mb-2">
+                <small className="text-muted">Tarjeta:</small>
+                <div>{order.detallesTarjeta}</div>
+              </div>
+            )}
+            <hr />
+            <div className="d-flex justify-content-between align-items-center">
+              <strong>Total pagado:</strong>
+              <strong className="text-success fs-5">${order.total.toLocaleString()}</strong>
+            </div>
+          </Col>
+        </Row>
+      </Card.Body>
+    );
+  };
+
   return (
     <div>
       <h5 className="mb-4">
@@ -85,67 +202,27 @@ function OrdersHistory() {
               })}
             </small>
           </Card.Header>
-          <Card.Body>
-            <Row>
-              <Col md={8}>
-                <h6 className="mb-3">Productos:</h6>
-                <Table size="sm" bordered>
-                  <thead>
-                    <tr>
-                      <th>Producto</th>
-                      <th className="text-center">Cantidad</th>
-                      <th className="text-end">Precio</th>
-                      <th className="text-end">Subtotal</th>
-                    </tr>
-                  </thead>
-                  <tbody>
-                    {order.items.map((item, idx) => (
-                      <tr key={idx}>
-                        <td>{item.producto?.nombre || item.nombre}</td>
-                        <td className="text-center">{item.cantidad}</td>
-                        <td className="text-end">${item.precioUnitario?.toLocaleString() || item.precio?.toLocaleString()}</td>
-                        <td className="text-end">${item.subtotal.toLocaleString()}</td>
-                      </tr>
-                    ))}
-                  </tbody>
-                </Table>
-              </Col>
-              <Col md={4}>
-                <h6 className="mb-3">Detalles del Pago:</h6>
-                {order.metodoPago && (
-                  <div className="mb-2">
-                    <small className="text-muted">Método de pago:</small>
-                    <div>
-                      <img 
-                        src="https://www.webpay.cl/wp-content/uploads/2019/06/webpay-plus-logo.png"
-                        alt="Webpay Plus"
-                        style={{ maxWidth: '100px' }}
-                      />
-                    </div>
-                  </div>
-                )}
-                {order.codigoAutorizacion && (
-                  <div className="mb-2">
-                    <small className="text-muted">Código de autorización:</small>
-                    <div className="fw-bold">{order.codigoAutorizacion}</div>
-                  </div>
-                )}
-                {order.detallesTarjeta && (
-                  <div className="mb-2">
-                    <small className="text-muted">Tarjeta:</small>
-                    <div>{order.detallesTarjeta}</div>
-                  </div>
-                )}
-                <hr />
-                <div className="d-flex justify-content-between align-items-center">
-                  <strong>Total pagado:</strong>
-                  <strong className="text-success fs-5">${order.total.toLocaleString()}</strong>
-                </div>
-              </Col>
-            </Row>
+          <Card.Body className="d-flex justify-content-between align-items-center">
+            <span className="text-muted">
+              {order.cantidadItems} {order.cantidadItems === 1 ? 'producto' : 'productos'}
+            </span>
+            <div className="d-flex align-items-center">
+              <strong className="text-success fs-5 me-3">${order.total.toLocaleString()}</strong>
+              <Button variant="outline-success" size="sm" onClick={() => toggleDetail(order.id)}>
+                {expanded === order.id ? 'Ocultar detalle' : 'Ver detalle'}
+              </Button>
+            </div>
           </Card.Body>
+          {expanded === order.id && renderDetail(details[order.id])}
         </Card>
       ))}
+      {nextCursor && (
+        <div className="text-center">
+          <Button variant="outline-success" onClick={loadMore} disabled={loadingMore}>
+            {loadingMore ? 'Cargando...' : 'Cargar más pedidos'}
+          </Button>
+        </div>
+      )}
     </div>
   );
 }
@@ -61,7 +61,7 @@ export const authAPI = {
 
 // Products endpoints
 export const productsAPI = {
-  getAll: (filters = {}) => apiClient.get('/productos', { params: filters }),
+  getAll: (filters = {}) => apiClient.get('/productos', { params: { todos: true, ...filters } }),
   getById: (id) => apiClient.get(`/productos/${id}`),
   search: (query) => apiClient.get('/productos/search', { params: { nombre: query } })
 }
@@ -72,15 +72,23 @@ export const cartAPI = {
   add: (productId, quantity) => apiClient.post('/cart', { productId, quantity }),
   update: (productId, quantity) => apiClient.put(`/cart/${productId}`, { quantity }),
   remove: (productId) => apiClient.delete(`/cart/${productId}`),
+  // operations: [{ op: 'add' | 'set' | 'remove', productId, quantity }]
+  batch: (operations) => apiClient.post('/cart/batch', { operations }),
   clear: () => apiClient.post('/cart/clear')
 }
 
+const idempotencyHeaders = (idempotencyKey) =>
+  idempotencyKey ? { headers: { 'Idempotency-Key': idempotencyKey } } : undefined
+
 // Orders endpoints
 export const ordersAPI = {
-  createFromCart: () => apiClient.post('/pedidos/desde-carrito'),
-  getAll: () => apiClient.get('/pedidos'),
+  // idempotencyKey: un reintento con la misma clave devuelve el pedido ya creado en vez de crear otro
+  createFromCart: (idempotencyKey) => apiClient.post('/pedidos/desde-carrito', null, idempotencyHeaders(idempotencyKey)),
+  // Historial del usuario: resúmenes paginados ({ items, nextCursor, hasMore }); el detalle con getById
+  getAll: (cursor) => apiClient.get('/pedidos', { params: cursor ? { cursor } : {} }),
   getById: (id) => apiClient.get(`/pedidos/${id}`),
-  confirmPayment: (id, paymentData) => apiClient.post(`/pedidos/${id}/confirmar-pago`, paymentData),
+  confirmPayment: (id, paymentData, idempotencyKey) =>
+    apiClient.post(`/pedidos/${id}/confirmar-pago`, paymentData, idempotencyHeaders(idempotencyKey)),
   updateStatus: (id, status) => apiClient.put(`/pedidos/${id}/estado`, { estado: status })
 }
 
@@ -0,0 +1,66 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.entity.Usuario;
+import com.example.demo.security.TokenVersionService;
+import com.example.demo.security.jwt.AuthTokenFilter;
+import com.example.demo.security.jwt.JwtUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuthTokenFilter de punta a punta: extracción del header, verificación del JWT y
+ * construcción de la autenticación. En modo con base de datos el UserDetailsService
+ * responde desde memoria, de modo que se mide el costo propio del filtro.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+
+    @Param({"false", "true"})
+    public boolean statelessAuthorities;
+
+    private AuthTokenFilter filtro;
+    private String header;
+
+    @Setup
+    public void preparar() {
+        Usuario usuario = Fixtures.usuario(0);
+        AnnotationConfigApplicationContext contexto = Fixtures.contexto(
+                Map.of("app.jwt.statelessAuthorities", statelessAuthorities), usuario,
+                JwtUtils.class, TokenVersionService.class, AuthTokenFilter.class);
+        filtro = contexto.getBean(AuthTokenFilter.class);
+        header = "Bearer " + contexto.getBean(JwtUtils.class).generateJwtToken(usuario);
+    }
+
+    @Benchmark
+    public Authentication filtrarRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart");
+        request.addHeader("Authorization", header);
+        filtro.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.dto.CarritoItemDTO;
+import com.example.demo.entity.CarritoItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Conversión de las líneas del carrito a CarritoItemDTO, como en cada respuesta de /api/cart
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarritoItemDTOBenchmark {
+
+    @Param({"1", "20", "100"})
+    public int lineas;
+
+    private List<CarritoItem> items;
+
+    @Setup
+    public void preparar() {
+        items = Fixtures.carrito(lineas);
+    }
+
+    @Benchmark
+    public List<CarritoItemDTO> mapearCarrito() {
+        return items.stream()
+                .map(CarritoItemDTO::new)
+                .collect(Collectors.toList());
+    }
+}
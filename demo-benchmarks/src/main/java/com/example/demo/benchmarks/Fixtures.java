@@ -0,0 +1,140 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.entity.CarritoItem;
+import com.example.demo.entity.Pedido;
+import com.example.demo.entity.PedidoItem;
+import com.example.demo.entity.Producto;
+import com.example.demo.entity.Rol;
+import com.example.demo.entity.Usuario;
+import com.example.demo.repository.UsuarioRepository;
+import com.example.demo.security.jwt.JwtUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Construye los componentes y datos de prueba de los benchmarks. Los componentes salen de un
+ * contexto de Spring mínimo (sin la aplicación completa ni MongoDB), de modo que @Autowired,
+ * @Value y @PostConstruct se resuelven igual que en el backend.
+ */
+final class Fixtures {
+
+    static final String SECRETO = "mySecretKeyForJwtTokenGenerationWithMinimumLengthOf256BitsForHS256AlgorithmRequiredByJJWTWithHS256";
+    static final String[] CATEGORIAS = {"Frutas", "Verduras", "Orgánicos", "Lácteos"};
+
+    private Fixtures() {
+    }
+
+    /**
+     * Contexto con los componentes indicados y las propiedades app.* dadas. El repositorio de
+     * usuarios y el UserDetailsService responden desde memoria con el usuario indicado.
+     */
+    static AnnotationConfigApplicationContext contexto(Map<String, Object> propiedades, Usuario usuario,
+                                                       Class<?>... componentes) {
+        Map<String, Object> valores = new HashMap<>();
+        valores.put("app.jwtSecret", SECRETO);
+        valores.putAll(propiedades);
+
+        AnnotationConfigApplicationContext contexto = new AnnotationConfigApplicationContext();
+        contexto.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmarks", valores));
+        contexto.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        contexto.registerBean(UsuarioRepository.class, () -> usuarioRepository(usuario));
+        contexto.registerBean(UserDetailsService.class, () -> email -> new User(email, usuario.getPassword(),
+                List.of(new SimpleGrantedAuthority("ROLE_CLIENTE"))));
+        contexto.register(componentes);
+        contexto.refresh();
+        return contexto;
+    }
+
+    static JwtUtils jwtUtils(int cacheMaxEntries) {
+        return contexto(Map.of("app.jwtCache.maxEntries", cacheMaxEntries), usuario(0), JwtUtils.class)
+                .getBean(JwtUtils.class);
+    }
+
+    /**
+     * Repositorio que siempre devuelve el usuario indicado al consultar su versión de token
+     */
+    private static UsuarioRepository usuarioRepository(Usuario usuario) {
+        return (UsuarioRepository) Proxy.newProxyInstance(
+                UsuarioRepository.class.getClassLoader(),
+                new Class<?>[]{UsuarioRepository.class},
+                (proxy, metodo, args) -> {
+                    if (metodo.getName().equals("findTokenVersionById")) {
+                        return Optional.of(usuario);
+                    }
+                    throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+
+    static Usuario usuario(int indice) {
+        Usuario usuario = new Usuario("Cliente " + indice, "cliente" + indice + "@huertohogar.cl", "{bcrypt}x");
+        usuario.setId(String.format("%024x", indice + 1));
+        usuario.getRoles().add(new Rol("ROLE_CLIENTE"));
+        return usuario;
+    }
+
+    static Producto producto(int indice) {
+        Producto producto = new Producto(
+                "Producto " + indice,
+                "Descripción del producto " + indice + " cultivado sin pesticidas",
+                new BigDecimal("1990").add(BigDecimal.valueOf(indice * 10L)),
+                100 + indice,
+                CATEGORIAS[indice % CATEGORIAS.length]);
+        producto.setId(String.format("%024x", 1000 + indice));
+        producto.setImagenUrl("/uploads/producto-" + indice + ".jpg");
+        return producto;
+    }
+
+    static List<Producto> productos(int cantidad) {
+        List<Producto> productos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            productos.add(producto(i));
+        }
+        return productos;
+    }
+
+    static List<CarritoItem> carrito(int lineas) {
+        List<CarritoItem> items = new ArrayList<>(lineas);
+        for (int i = 0; i < lineas; i++) {
+            items.add(new CarritoItem("usuario", producto(i), 1 + i % 5));
+        }
+        return items;
+    }
+
+    static Pedido pedido(int indice, int lineas) {
+        Pedido pedido = new Pedido(String.format("%024x", indice + 1), BigDecimal.ZERO);
+        pedido.setId(String.format("%024x", 5000 + indice));
+        pedido.setFecha(LocalDateTime.of(2025, 11, 1, 10, 30).plusMinutes(indice));
+        pedido.setEstado("PENDIENTE");
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lineas; i++) {
+            Producto producto = producto(indice + i);
+            PedidoItem item = new PedidoItem(producto, 1 + i % 3, producto.getPrecio());
+            pedido.getItems().add(item);
+            total = total.add(item.getSubtotal());
+        }
+        pedido.setTotal(total);
+        return pedido;
+    }
+
+    static List<Pedido> pedidos(int cantidad, int lineas) {
+        List<Pedido> pedidos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            pedidos.add(pedido(i, lineas));
+        }
+        return pedidos;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ráfaga de requests bloqueantes atendidas por el pool de hilos de plataforma de Tomcat
+ * (200 hilos por defecto) o por hilos virtuales (perfil "virtual"), con el mismo tamaño de
+ * pool de conexiones en ambos modos. Cada request hace varias llamadas a un almacén de alta
+ * latencia (como Atlas sobre WAN) con conexiones acotadas, igual que el driver de MongoDB.
+ *
+ * Es una simulación: para medir la aplicación real, levantarla con y sin el perfil "virtual"
+ * (mismo app.mongo.pool.maxSize) y generar carga contra ella.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HilosVirtualesBenchmark {
+
+    private static final int REQUESTS = 1000;
+    private static final int LLAMADAS_POR_REQUEST = 3;
+    private static final long LATENCIA_MS = 20;
+    private static final int HILOS_TOMCAT = 200;
+
+    @Param({"plataforma", "virtuales"})
+    public String hilos;
+
+    @Param({"100", "300"})
+    public int conexiones;
+
+    private ExecutorService executor;
+    private Semaphore almacen;
+
+    @Setup
+    public void preparar() {
+        executor = "virtuales".equals(hilos)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(HILOS_TOMCAT);
+        almacen = new Semaphore(conexiones, true);
+    }
+
+    @TearDown
+    public void cerrar() {
+        executor.close();
+    }
+
+    /**
+     * Tiempo hasta completar la ráfaga completa de requests
+     */
+    @Benchmark
+    public int rafaga() throws Exception {
+        List<Future<?>> tareas = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            tareas.add(executor.submit(() -> {
+                for (int llamada = 0; llamada < LLAMADAS_POR_REQUEST; llamada++) {
+                    consultar();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        return tareas.size();
+    }
+
+    private void consultar() throws InterruptedException {
+        almacen.acquire();
+        try {
+            Thread.sleep(LATENCIA_MS);
+        } finally {
+            almacen.release();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.entity.Pedido;
+import com.example.demo.entity.Producto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización con Jackson de las respuestas más frecuentes: listado de productos
+ * y listado de pedidos con sus items
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JacksonBenchmark {
+
+    @Param({"20", "200"})
+    public int elementos;
+
+    private JsonMapper jsonMapper;
+    private List<Producto> productos;
+    private List<Pedido> pedidos;
+
+    @Setup
+    public void preparar() {
+        jsonMapper = JsonMapper.builder().build();
+        productos = Fixtures.productos(elementos);
+        pedidos = Fixtures.pedidos(elementos, 5);
+    }
+
+    @Benchmark
+    public byte[] serializarProductos() {
+        return jsonMapper.writeValueAsBytes(productos);
+    }
+
+    @Benchmark
+    public byte[] serializarPedidos() {
+        return jsonMapper.writeValueAsBytes(pedidos);
+    }
+}
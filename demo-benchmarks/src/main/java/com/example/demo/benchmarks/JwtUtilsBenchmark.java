@@ -0,0 +1,72 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.entity.Usuario;
+import com.example.demo.security.jwt.JwtUtils;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generación y validación de tokens JWT (con y sin la caché de tokens verificados)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+    private static final int TOKENS = 1024;
+
+    private JwtUtils jwtUtils;
+    private JwtUtils jwtUtilsSinCache;
+    private Usuario usuario;
+    private String token;
+    private String[] tokens;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        jwtUtils = Fixtures.jwtUtils(10000);
+        // Con una sola entrada y tokens rotativos cada validación es un fallo de caché
+        jwtUtilsSinCache = Fixtures.jwtUtils(1);
+        usuario = Fixtures.usuario(0);
+        token = jwtUtils.generateJwtToken(usuario);
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = jwtUtils.generateJwtToken(Fixtures.usuario(i));
+        }
+    }
+
+    @Benchmark
+    public String generarTokenDesdeEmail() {
+        return jwtUtils.generateJwtTokenFromEmail(usuario.getEmail());
+    }
+
+    @Benchmark
+    public String generarTokenConClaims() {
+        return jwtUtils.generateJwtToken(usuario);
+    }
+
+    @Benchmark
+    public Claims validarTokenEnCache() {
+        return jwtUtils.verificarToken(token);
+    }
+
+    @Benchmark
+    public Claims validarTokenSinCache() {
+        siguiente = (siguiente + 1) & (TOKENS - 1);
+        return jwtUtilsSinCache.verificarToken(tokens[siguiente]);
+    }
+}
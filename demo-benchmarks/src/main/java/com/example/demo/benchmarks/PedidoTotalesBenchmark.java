@@ -0,0 +1,57 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.entity.Pedido;
+import com.example.demo.entity.PedidoItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo con BigDecimal de PedidoItem.getSubtotal y del total del pedido
+ * (el mismo recorrido que hace PedidoService al crear un pedido)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PedidoTotalesBenchmark {
+
+    @Param({"1", "20", "100"})
+    public int lineas;
+
+    private Pedido pedido;
+    private PedidoItem item;
+
+    @Setup
+    public void preparar() {
+        pedido = Fixtures.pedido(0, lineas);
+        item = pedido.getItems().get(0);
+    }
+
+    @Benchmark
+    public BigDecimal subtotalItem() {
+        return item.getSubtotal();
+    }
+
+    @Benchmark
+    public BigDecimal totalPedido() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (PedidoItem pedidoItem : pedido.getItems()) {
+            total = total.add(pedidoItem.getSubtotal());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.demo.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caché en memoria acotada por tamaño (LRU) y por tiempo de vida de cada entrada.
+ * Las lecturas y escrituras se sincronizan sobre el propio mapa; el valor se calcula
+ * fuera del lock para no bloquear a otros lectores durante una consulta a la base de datos.
+ */
+public class TtlCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final LinkedHashMap<K, Entrada<V>> entradas;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Se incrementa en cada invalidación para descartar cargas que empezaron antes de ella
+    private long generacion;
+
+    // Generación de la última invalidación total y de la última invalidación de cada clave:
+    // invalidar una clave sólo descarta las cargas en curso de esa clave
+    private long generacionTotal;
+    private final Map<K, Long> invalidaciones = new HashMap<>();
+
+    public TtlCache(int maxEntries, long ttlMs) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries debe ser mayor a 0");
+        }
+        if (ttlMs <= 0) {
+            throw new IllegalArgumentException("ttlMs debe ser mayor a 0");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> eldest) {
+                if (size() > TtlCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve el valor asociado a la clave si existe y no ha expirado
+     */
+    public V get(K key) {
+        long ahora = System.currentTimeMillis();
+        synchronized (entradas) {
+            Entrada<V> entrada = entradas.get(key);
+            if (entrada != null) {
+                if (entrada.expiraEn > ahora) {
+                    hits.incrementAndGet();
+                    return entrada.valor;
+                }
+                entradas.remove(key);
+                evictions.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Devuelve el valor en caché o lo calcula con el loader y lo almacena.
+     * Los valores null no se almacenan, y tampoco los que se cargaron mientras
+     * ocurría una invalidación (podrían ser anteriores a la escritura que la provocó).
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V valor = get(key);
+        if (valor != null) {
+            return valor;
+        }
+        long generacionInicial;
+        synchronized (entradas) {
+            generacionInicial = generacion;
+        }
+        valor = loader.apply(key);
+        if (valor != null) {
+            synchronized (entradas) {
+                if (generacionTotal <= generacionInicial
+                        && invalidaciones.getOrDefault(key, 0L) <= generacionInicial) {
+                    entradas.put(key, new Entrada<>(valor, System.currentTimeMillis() + ttlMs));
+                }
+            }
+        }
+        return valor;
+    }
+
+    public void put(K key, V valor) {
+        put(key, valor, System.currentTimeMillis() + ttlMs);
+    }
+
+    /**
+     * Almacena un valor con un instante de expiración explícito (epoch millis)
+     */
+    public void put(K key, V valor, long expiraEn) {
+        synchronized (entradas) {
+            entradas.put(key, new Entrada<>(valor, Math.min(expiraEn, System.currentTimeMillis() + ttlMs)));
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entradas) {
+            entradas.remove(key);
+            generacion++;
+            if (invalidaciones.size() >= maxEntries) {
+                // Acota el registro: las cargas en curso se descartan como tras una invalidación total
+                invalidaciones.clear();
+                generacionTotal = generacion;
+            } else {
+                invalidaciones.put(key, generacion);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entradas) {
+            entradas.clear();
+            generacion++;
+            generacionTotal = generacion;
+            invalidaciones.clear();
+        }
+    }
+
+    /**
+     * Elimina de una pasada todas las entradas expiradas
+     */
+    public void purgarExpiradas() {
+        long ahora = System.currentTimeMillis();
+        synchronized (entradas) {
+            Iterator<Entrada<V>> it = entradas.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().expiraEn <= ahora) {
+                    it.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Publica los contadores de la caché en Micrometer siguiendo la convención de
+     * Spring (cache.gets con result=hit/miss, cache.evictions y cache.size, etiquetados con cache=nombre)
+     */
+    public TtlCache<K, V> registrarMetricas(MeterRegistry registry, String nombre) {
+        FunctionCounter.builder("cache.gets", this, TtlCache::getHits)
+                .tag("cache", nombre).tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", this, TtlCache::getMisses)
+                .tag("cache", nombre).tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", this, TtlCache::getEvictions)
+                .tag("cache", nombre).register(registry);
+        Gauge.builder("cache.size", this, TtlCache::size)
+                .tag("cache", nombre).register(registry);
+        return this;
+    }
+
+    private static final class Entrada<V> {
+        private final V valor;
+        private final long expiraEn;
+
+        private Entrada(V valor, long expiraEn) {
+            this.valor = valor;
+            this.expiraEn = expiraEn;
+        }
+    }
+}
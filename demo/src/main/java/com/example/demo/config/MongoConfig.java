@@ -0,0 +1,72 @@
+package com.example.demo.config;
+
+import com.mongodb.MongoClientSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.mongodb.autoconfigure.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.mongodb.autoconfigure.ReactiveMongoClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ajustes del cliente de MongoDB.
+ *
+ * El pool de conexiones es el límite real de concurrencia hacia Atlas: con hilos virtuales
+ * (perfil "virtual") ya no lo acota el pool de hilos de Tomcat, por lo que su tamaño y el
+ * tiempo máximo de espera por una conexión se configuran explícitamente.
+ *
+ * El driver reactivo (catálogo en /api/catalogo) usa un segundo MongoClient con su propio
+ * pool; se acota por separado con app.mongo.reactivo.pool.* para que las conexiones de cada
+ * instancia hacia Atlas sean como máximo la suma de ambos pools.
+ */
+@Configuration
+public class MongoConfig {
+
+    @Value("${app.mongo.pool.maxSize:100}")
+    private int maxSize;
+
+    @Value("${app.mongo.pool.minSize:0}")
+    private int minSize;
+
+    @Value("${app.mongo.pool.maxWaitTimeMs:120000}")
+    private long maxWaitTimeMs;
+
+    @Value("${app.mongo.pool.maxConnecting:2}")
+    private int maxConnecting;
+
+    @Value("${app.mongo.reactivo.pool.maxSize:20}")
+    private int reactivoMaxSize;
+
+    @Value("${app.mongo.reactivo.pool.maxWaitTimeMs:10000}")
+    private long reactivoMaxWaitTimeMs;
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer poolConexionesCustomizer() {
+        return builder -> builder.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(maxSize)
+                .minSize(minSize)
+                .maxWaitTime(maxWaitTimeMs, TimeUnit.MILLISECONDS)
+                .maxConnecting(maxConnecting));
+    }
+
+    /**
+     * Cliente del driver reactivo: los mismos ajustes que el autoconfigurado (URI, Netty, pool)
+     * y al final el tamaño y la espera propios de su pool
+     */
+    @Bean
+    @Profile("!memoria")
+    public com.mongodb.reactivestreams.client.MongoClient reactiveStreamsMongoClient(
+            ObjectProvider<MongoClientSettingsBuilderCustomizer> customizers, MongoClientSettings settings) {
+        List<MongoClientSettingsBuilderCustomizer> ajustes = new ArrayList<>(customizers.orderedStream().toList());
+        ajustes.add(builder -> builder.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(reactivoMaxSize)
+                .minSize(Math.min(minSize, reactivoMaxSize))
+                .maxWaitTime(reactivoMaxWaitTimeMs, TimeUnit.MILLISECONDS)));
+        return new ReactiveMongoClientFactory(ajustes).createMongoClient(settings);
+    }
+}
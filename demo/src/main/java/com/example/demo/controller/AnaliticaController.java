@@ -0,0 +1,43 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.AnaliticaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/analitica")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+@PreAuthorize("hasRole('ADMIN')")
+public class AnaliticaController {
+
+    @Autowired
+    private AnaliticaService analiticaService;
+
+    /**
+     * GET /api/admin/analitica?desde=2024-01-01&hasta=2024-01-31
+     * Ingresos por día, categoría y producto y pedidos por estado, leídos de los acumulados diarios
+     */
+    @GetMapping
+    public ResponseEntity<?> obtenerAnalitica(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            return ResponseEntity.ok(analiticaService.obtener(desde, hasta));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Recalcula los acumulados desde los pedidos (también se ejecuta de forma programada)
+    @PostMapping("/reconstruir")
+    public ResponseEntity<?> reconstruir() {
+        int acumulados = analiticaService.reconstruir();
+        return ResponseEntity.ok(Map.of("message", "Analítica reconstruida", "acumulados", acumulados));
+    }
+}
@@ -1,12 +1,14 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.ChangePasswordRequest;
+import com.example.demo.dto.ChangePasswordResponse;
 import com.example.demo.dto.LoginRequest;
 import com.example.demo.dto.LoginResponse;
 import com.example.demo.dto.RegisterRequest;
 import com.example.demo.dto.RegisterResponse;
 import com.example.demo.dto.UserInfoResponse;
 import com.example.demo.entity.Usuario;
+import com.example.demo.security.UsuarioActual;
 import com.example.demo.security.jwt.JwtUtils;
 import com.example.demo.service.UsuarioService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -120,13 +122,13 @@ public class AuthController {
 
             SecurityContextHolder.getContext().setAuthentication(authentication);
 
-            // Generar JWT token
-            String jwt = jwtUtils.generateJwtToken(authentication);
-
             // Obtener información del usuario
             Usuario usuario = usuarioService.findByEmail(loginRequest.getEmail())
                     .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
+            // Generar JWT token (incluye ID, roles y versión de token del usuario)
+            String jwt = jwtUtils.generateJwtToken(usuario);
+
             List<String> roles = usuario.getRoles().stream()
                     .map(rol -> rol.getNombre())
                     .collect(Collectors.toList());
@@ -158,7 +160,7 @@ public class AuthController {
      * Devuelve la información del usuario autenticado
      */
     @GetMapping("/me")
-    public ResponseEntity<?> getCurrentUser() {
+    public ResponseEntity<?> getCurrentUser(@UsuarioActual Usuario usuario) {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
@@ -167,9 +169,9 @@ public class AuthController {
                         .body(new RegisterResponse("No hay usuario autenticado", false));
             }
 
-            String email = authentication.getName();
-            Usuario usuario = usuarioService.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+            if (usuario == null) {
+                throw new RuntimeException("Usuario no encontrado");
+            }
 
             List<String> roles = usuario.getRoles().stream()
                     .map(rol -> rol.getNombre())
@@ -195,7 +197,8 @@ public class AuthController {
      * Cambia la contraseña del usuario autenticado
      */
     @PostMapping("/change-password")
-    public ResponseEntity<?> changePassword(@RequestBody ChangePasswordRequest changePasswordRequest) {
+    public ResponseEntity<?> changePassword(@UsuarioActual Usuario usuario,
+                                            @RequestBody ChangePasswordRequest changePasswordRequest) {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
@@ -220,9 +223,9 @@ public class AuthController {
                         .body(new RegisterResponse("Las nuevas contraseñas no coinciden", false));
             }
 
-            String email = authentication.getName();
-            Usuario usuario = usuarioService.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+            if (usuario == null) {
+                throw new RuntimeException("Usuario no encontrado");
+            }
 
             // Verificar que la contraseña actual es correcta
             if (!usuarioService.verificarPassword(usuario, changePasswordRequest.getCurrentPassword())) {
@@ -230,10 +233,12 @@ public class AuthController {
                         .body(new RegisterResponse("La contraseña actual es incorrecta", false));
             }
 
-            // Cambiar contraseña
-            usuarioService.cambiarPassword(usuario, changePasswordRequest.getNewPassword());
+            // Cambiar contraseña: revoca los tokens anteriores, incluido el de esta sesión, así que
+            // se devuelve uno nuevo con la versión de token actualizada
+            Usuario actualizado = usuarioService.cambiarPassword(usuario, changePasswordRequest.getNewPassword());
+            String jwt = jwtUtils.generateJwtToken(actualizado);
 
-            return ResponseEntity.ok(new RegisterResponse("Contraseña cambiada exitosamente", true));
+            return ResponseEntity.ok(new ChangePasswordResponse("Contraseña cambiada exitosamente", true, jwt));
 
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
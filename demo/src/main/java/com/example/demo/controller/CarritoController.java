@@ -1,11 +1,14 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.CarritoBatchRequest;
 import com.example.demo.dto.CarritoItemDTO;
 import com.example.demo.entity.CarritoItem;
 import com.example.demo.entity.Usuario;
-import com.example.demo.repository.CarritoItemRepository;
-import com.example.demo.repository.ProductoRepository;
-import com.example.demo.repository.UsuarioRepository;
+import com.example.demo.metricas.MetricasOperaciones;
+import com.example.demo.security.UsuarioActual;
+import com.example.demo.service.CarritoService;
+import com.example.demo.service.ProductoService;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -21,200 +24,195 @@ import java.util.stream.Collectors;
 public class CarritoController {
 
     @Autowired
-    private CarritoItemRepository carritoRepository;
+    private CarritoService carritoService;
 
     @Autowired
-    private UsuarioRepository usuarioRepository;
+    private ProductoService productoService;
 
     @Autowired
-    private ProductoRepository productoRepository;
+    private MetricasOperaciones metricas;
 
     @GetMapping
-    public ResponseEntity<?> obtenerCarrito(Authentication authentication) {
+    public ResponseEntity<?> obtenerCarrito(Authentication authentication, @UsuarioActual Usuario usuario) {
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(401).build();
         }
 
-        String email = authentication.getName();
-        Usuario usuario = usuarioRepository.findByEmail(email)
-                .orElse(null);
-
         if (usuario == null) {
             return ResponseEntity.status(404).build();
         }
 
-        List<CarritoItem> items = carritoRepository.findByUsuario(usuario);
-        List<CarritoItemDTO> itemDTOs = items.stream()
-                .map(CarritoItemDTO::new)
-                .collect(Collectors.toList());
-        Map<String, Object> response = new java.util.HashMap<>();
-        response.put("items", itemDTOs);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(respuestaCarrito(carritoService.obtenerItems(usuario.getId())));
     }
 
     @PostMapping
     public ResponseEntity<?> agregarAlCarrito(
             Authentication authentication,
+            @UsuarioActual Usuario usuario,
             @RequestBody Map<String, Object> request) {
-        try {
-            if (authentication == null || !authentication.isAuthenticated()) {
-                return ResponseEntity.status(401).build();
-            }
-
-            String email = authentication.getName();
-            Usuario usuario = usuarioRepository.findByEmail(email)
-                    .orElse(null);
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(401).build();
+        }
 
-            if (usuario == null) {
-                return ResponseEntity.status(404).build();
-            }
+        if (usuario == null) {
+            return ResponseEntity.status(404).build();
+        }
 
+        Timer.Sample muestra = metricas.iniciar();
+        String resultado = MetricasOperaciones.ERROR;
+        try {
             String productoId = request.get("productId").toString();
             Integer cantidad = Integer.valueOf(request.get("quantity").toString());
 
             if (cantidad <= 0) {
+                resultado = MetricasOperaciones.INVALIDO;
                 return ResponseEntity.badRequest().body(Map.of("error", "La cantidad debe ser mayor a 0"));
             }
 
-            var producto = productoRepository.findById(productoId);
+            var producto = productoService.findById(productoId);
             if (producto.isEmpty()) {
+                resultado = MetricasOperaciones.NO_ENCONTRADO;
                 return ResponseEntity.badRequest().body(Map.of("error", "Producto no encontrado"));
             }
 
-            if (producto.get().getStock() < cantidad) {
+            if (producto.get().getStockDisponible() < cantidad) {
+                resultado = MetricasOperaciones.SIN_STOCK;
                 return ResponseEntity.badRequest().body(Map.of("error", "Stock insuficiente"));
             }
 
-            // Verificar si ya existe en el carrito
-            var existente = carritoRepository.findByUsuarioAndProductoId(usuario, productoId);
-            if (existente.isPresent()) {
-                CarritoItem item = existente.get();
-                item.setCantidad(item.getCantidad() + cantidad);
-                carritoRepository.save(item);
-            } else {
-                CarritoItem nuevoItem = new CarritoItem();
-                nuevoItem.setUsuario(usuario);
-                nuevoItem.setProducto(producto.get());
-                nuevoItem.setCantidad(cantidad);
-                carritoRepository.save(nuevoItem);
-            }
-
-            List<CarritoItem> items = carritoRepository.findByUsuario(usuario);
-            List<CarritoItemDTO> itemDTOs = items.stream()
-                    .map(CarritoItemDTO::new)
-                    .collect(Collectors.toList());
-            Map<String, Object> response = new java.util.HashMap<>();
-            response.put("items", itemDTOs);
-            return ResponseEntity.ok(response);
+            List<CarritoItem> items = carritoService.agregar(usuario.getId(), producto.get(), cantidad);
+            resultado = MetricasOperaciones.EXITO;
+            return ResponseEntity.ok(respuestaCarrito(items));
         } catch (Exception e) {
+            resultado = MetricasOperaciones.resultado(e);
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } finally {
+            metricas.registrar(muestra, MetricasOperaciones.CARRITO, resultado, "operacion", "agregar");
         }
     }
 
     @PutMapping("/{productoId}")
     public ResponseEntity<?> actualizarCantidad(
             Authentication authentication,
+            @UsuarioActual Usuario usuario,
             @PathVariable String productoId,
             @RequestBody Map<String, Integer> request) {
-        try {
-            if (authentication == null || !authentication.isAuthenticated()) {
-                return ResponseEntity.status(401).build();
-            }
-
-            String email = authentication.getName();
-            Usuario usuario = usuarioRepository.findByEmail(email)
-                    .orElse(null);
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(401).build();
+        }
 
-            if (usuario == null) {
-                return ResponseEntity.status(404).build();
-            }
+        if (usuario == null) {
+            return ResponseEntity.status(404).build();
+        }
 
+        Timer.Sample muestra = metricas.iniciar();
+        String resultado = MetricasOperaciones.ERROR;
+        try {
             Integer cantidad = request.get("quantity");
             if (cantidad == null || cantidad < 0) {
+                resultado = MetricasOperaciones.INVALIDO;
                 return ResponseEntity.badRequest().body(Map.of("error", "Cantidad inválida"));
             }
 
-            var items = carritoRepository.findByUsuarioAndProductoId(usuario, productoId);
-            if (items.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Producto no encontrado en el carrito"));
-            }
-
-            CarritoItem item = items.get();
-            if (cantidad == 0) {
-                carritoRepository.delete(item);
-            } else {
-                item.setCantidad(cantidad);
-                carritoRepository.save(item);
-            }
-
-            List<CarritoItem> cartItems = carritoRepository.findByUsuario(usuario);
-            List<CarritoItemDTO> itemDTOs = cartItems.stream()
-                    .map(CarritoItemDTO::new)
-                    .collect(Collectors.toList());
-            Map<String, Object> response = new java.util.HashMap<>();
-            response.put("items", itemDTOs);
-            return ResponseEntity.ok(response);
+            List<CarritoItem> items = carritoService.actualizarCantidad(usuario.getId(), productoId, cantidad);
+            resultado = MetricasOperaciones.EXITO;
+            return ResponseEntity.ok(respuestaCarrito(items));
         } catch (Exception e) {
+            resultado = MetricasOperaciones.resultado(e);
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } finally {
+            metricas.registrar(muestra, MetricasOperaciones.CARRITO, resultado, "operacion", "actualizar");
         }
     }
 
     @DeleteMapping("/{productoId}")
     public ResponseEntity<?> eliminarDelCarrito(
             Authentication authentication,
+            @UsuarioActual Usuario usuario,
             @PathVariable String productoId) {
-        try {
-            if (authentication == null || !authentication.isAuthenticated()) {
-                return ResponseEntity.status(401).build();
-            }
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(401).build();
+        }
 
-            String email = authentication.getName();
-            Usuario usuario = usuarioRepository.findByEmail(email)
-                    .orElse(null);
+        if (usuario == null) {
+            return ResponseEntity.status(404).build();
+        }
 
-            if (usuario == null) {
-                return ResponseEntity.status(404).build();
-            }
+        Timer.Sample muestra = metricas.iniciar();
+        String resultado = MetricasOperaciones.ERROR;
+        try {
+            List<CarritoItem> items = carritoService.eliminar(usuario.getId(), productoId);
+            resultado = MetricasOperaciones.EXITO;
+            return ResponseEntity.ok(respuestaCarrito(items));
+        } catch (Exception e) {
+            resultado = MetricasOperaciones.resultado(e);
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } finally {
+            metricas.registrar(muestra, MetricasOperaciones.CARRITO, resultado, "operacion", "eliminar");
+        }
+    }
 
-            var items = carritoRepository.findByUsuarioAndProductoId(usuario, productoId);
-            if (items.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Producto no encontrado en el carrito"));
-            }
+    /**
+     * Aplica varias operaciones add/set/remove en una sola request (por ejemplo, al fusionar
+     * el carrito de invitado al iniciar sesión). Si alguna falla no se aplica ninguna.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> operacionesEnLote(
+            Authentication authentication,
+            @UsuarioActual Usuario usuario,
+            @RequestBody CarritoBatchRequest request) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(401).build();
+        }
+
+        if (usuario == null) {
+            return ResponseEntity.status(404).build();
+        }
 
-            carritoRepository.delete(items.get());
-            List<CarritoItem> cartItems = carritoRepository.findByUsuario(usuario);
-            List<CarritoItemDTO> itemDTOs = cartItems.stream()
-                    .map(CarritoItemDTO::new)
-                    .collect(Collectors.toList());
-            Map<String, Object> response = new java.util.HashMap<>();
-            response.put("items", itemDTOs);
-            return ResponseEntity.ok(response);
+        Timer.Sample muestra = metricas.iniciar();
+        String resultado = MetricasOperaciones.ERROR;
+        try {
+            List<CarritoItem> items = carritoService.aplicarOperaciones(usuario.getId(), request.getOperations());
+            resultado = MetricasOperaciones.EXITO;
+            return ResponseEntity.ok(respuestaCarrito(items));
         } catch (Exception e) {
+            resultado = MetricasOperaciones.resultado(e);
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } finally {
+            metricas.registrar(muestra, MetricasOperaciones.CARRITO, resultado, "operacion", "lote");
         }
     }
 
     @PostMapping("/clear")
-    public ResponseEntity<?> vaciarCarrito(Authentication authentication) {
-        try {
-            if (authentication == null || !authentication.isAuthenticated()) {
-                return ResponseEntity.status(401).build();
-            }
-
-            String email = authentication.getName();
-            Usuario usuario = usuarioRepository.findByEmail(email)
-                    .orElse(null);
+    public ResponseEntity<?> vaciarCarrito(Authentication authentication, @UsuarioActual Usuario usuario) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(401).build();
+        }
 
-            if (usuario == null) {
-                return ResponseEntity.status(404).build();
-            }
+        if (usuario == null) {
+            return ResponseEntity.status(404).build();
+        }
 
-            carritoRepository.deleteByUsuario(usuario);
-            Map<String, Object> response = new java.util.HashMap<>();
-            response.put("items", List.of());
-            return ResponseEntity.ok(response);
+        Timer.Sample muestra = metricas.iniciar();
+        String resultado = MetricasOperaciones.ERROR;
+        try {
+            carritoService.vaciar(usuario.getId());
+            resultado = MetricasOperaciones.EXITO;
+            return ResponseEntity.ok(respuestaCarrito(List.of()));
         } catch (Exception e) {
+            resultado = MetricasOperaciones.resultado(e);
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } finally {
+            metricas.registrar(muestra, MetricasOperaciones.CARRITO, resultado, "operacion", "vaciar");
         }
     }
+
+    private Map<String, Object> respuestaCarrito(List<CarritoItem> items) {
+        List<CarritoItemDTO> itemDTOs = items.stream()
+                .map(CarritoItemDTO::new)
+                .collect(Collectors.toList());
+        Map<String, Object> response = new java.util.HashMap<>();
+        response.put("items", itemDTOs);
+        return response;
+    }
 }
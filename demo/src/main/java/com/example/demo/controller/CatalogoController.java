@@ -0,0 +1,87 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.Producto;
+import com.example.demo.repository.ProductoReactiveRepository;
+import com.example.demo.service.ProductoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+
+/**
+ * API de sólo lectura del catálogo sobre el driver reactivo de MongoDB.
+ *
+ * Los handlers devuelven Flux/Mono: Spring MVC libera el hilo del servlet mientras se espera
+ * a la base de datos y, con Accept application/x-ndjson (el formato por defecto), escribe cada
+ * producto apenas llega del cursor. Con Accept application/json responde un arreglo JSON.
+ * Las escrituras siguen en /api/productos.
+ */
+@RestController
+@RequestMapping("/api/catalogo")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class CatalogoController {
+
+    @Autowired
+    private ProductoReactiveRepository productoReactiveRepository;
+
+    @Autowired
+    private ProductoService productoService;
+
+    /**
+     * GET /api/catalogo?categoria=
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<Producto> listar(@RequestParam(required = false) String categoria) {
+        if (categoria != null && !categoria.isBlank()) {
+            return productoReactiveRepository.findByCategoriaOrderByIdAsc(categoria.trim());
+        }
+        return productoReactiveRepository.findAllByOrderByIdAsc();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Producto>> obtener(@PathVariable String id) {
+        return productoReactiveRepository.findById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/categoria/{categoria}",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<Producto> porCategoria(@PathVariable String categoria) {
+        return productoReactiveRepository.findByCategoriaOrderByIdAsc(categoria.trim());
+    }
+
+    /**
+     * GET /api/catalogo/search?nombre=&limit=
+     * Usa el mismo índice en memoria que /api/productos/search y carga los productos con un
+     * único $in reactivo, manteniendo el orden por relevancia. La búsqueda en el índice es
+     * bloqueante (puede esperar la reconstrucción), por eso corre en boundedElastic y no en el
+     * hilo de la request.
+     */
+    @GetMapping(value = "/search",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<Producto> buscar(@RequestParam String nombre, @RequestParam(required = false) Integer limit) {
+        return Mono.fromCallable(() -> productoService.buscarIds(nombre, limit))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(ids -> ids.isEmpty()
+                        ? Flux.<Producto>empty()
+                        : productoReactiveRepository.findAllById(ids)
+                                .collectMap(Producto::getId)
+                                .flatMapIterable(porId -> ids.stream()
+                                        .map(porId::get)
+                                        .filter(producto -> producto != null)
+                                        .toList()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> manejarArgumentoInvalido(IllegalArgumentException e) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("error", e.getMessage()));
+    }
+}
@@ -3,14 +3,26 @@ package com.example.demo.controller;
 import com.example.demo.entity.Pedido;
 import com.example.demo.entity.Usuario;
 import com.example.demo.repository.PedidoRepository;
-import com.example.demo.repository.UsuarioRepository;
+import com.example.demo.security.UsuarioActual;
+import com.example.demo.service.ExportacionPedidosService;
+import com.example.demo.service.Idempotencia;
+import com.example.demo.service.PedidoAjenoException;
+import com.example.demo.service.PedidoNoEncontradoException;
 import com.example.demo.service.PedidoService;
+import com.example.demo.service.StockInsuficienteException;
+import com.example.demo.service.TransicionInvalidaException;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -23,54 +35,107 @@ public class PedidoController {
     private PedidoService pedidoService;
 
     @Autowired
-    private UsuarioRepository usuarioRepository;
+    private PedidoRepository pedidoRepository;
 
     @Autowired
-    private PedidoRepository pedidoRepository;
+    private Idempotencia idempotencia;
 
-    // Endpoint para administradores - obtener todos los pedidos
+    @Autowired
+    private ExportacionPedidosService exportacionPedidosService;
+
+    // Endpoint para administradores - obtener todos los pedidos paginados por cursor
+    // (con todos=true devuelve la colección completa sin paginar)
     @GetMapping("/admin/todos")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Pedido>> obtenerTodosPedidos() {
-        List<Pedido> pedidos = pedidoRepository.findAll();
-        return ResponseEntity.ok(pedidos);
+    public ResponseEntity<?> obtenerTodosPedidos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean todos) {
+        try {
+            if (todos) {
+                List<Pedido> pedidos = pedidoRepository.findAll();
+                return ResponseEntity.ok(pedidos);
+            }
+            return ResponseEntity.ok(pedidoService.obtenerPagina(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
+    // Exportación para finanzas (?formato=ndjson|csv&desde=&hasta=&estado=): cada pedido se escribe
+    // en la respuesta apenas se lee del cursor, sin armar la lista completa en memoria
+    @GetMapping("/admin/exportar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> exportarPedidos(
+            @RequestParam(defaultValue = ExportacionPedidosService.NDJSON) String formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) String estado,
+            HttpServletResponse response) throws IOException {
+        ExportacionPedidosService.Filtro filtro;
+        try {
+            filtro = exportacionPedidosService.validar(formato, desde, hasta, estado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        boolean csv = ExportacionPedidosService.CSV.equals(filtro.formato());
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"pedidos." + filtro.formato() + "\"");
+        exportacionPedidosService.exportar(filtro, response.getOutputStream());
+        // La respuesta ya se escribió directamente
+        return null;
+    }
+
+    // Historial del usuario: resúmenes paginados por cursor (el detalle se obtiene con GET /{id})
     @GetMapping
-    public ResponseEntity<List<Pedido>> obtenerPedidos(Authentication authentication) {
+    public ResponseEntity<?> obtenerPedidos(
+            Authentication authentication,
+            @UsuarioActual Usuario usuario,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(401).build();
         }
 
-        String email = authentication.getName();
-        Usuario usuario = usuarioRepository.findByEmail(email)
-                .orElse(null);
-
         if (usuario == null) {
             return ResponseEntity.status(404).build();
         }
 
-        List<Pedido> pedidos = pedidoService.obtenerPedidosPorUsuario(usuario.getId());
-        return ResponseEntity.ok(pedidos);
+        try {
+            return ResponseEntity.ok(pedidoService.obtenerResumenesUsuario(usuario.getId(), cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
+    // Con Idempotency-Key, un reintento con la misma clave devuelve el pedido ya creado
     @PostMapping("/desde-carrito")
-    public ResponseEntity<?> crearPedidoDesdeCarrito(Authentication authentication) {
-        try {
-            if (authentication == null || !authentication.isAuthenticated()) {
-                return ResponseEntity.status(401).build();
-            }
+    public ResponseEntity<?> crearPedidoDesdeCarrito(
+            Authentication authentication,
+            @UsuarioActual Usuario usuario,
+            @RequestHeader(value = Idempotencia.HEADER, required = false) String idempotencyKey) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(401).build();
+        }
 
-            String email = authentication.getName();
-            Usuario usuario = usuarioRepository.findByEmail(email)
-                    .orElse(null);
+        if (usuario == null) {
+            return ResponseEntity.status(404).build();
+        }
 
-            if (usuario == null) {
-                return ResponseEntity.status(404).build();
-            }
+        return idempotencia.ejecutar(idempotencyKey, usuario.getId(), "desde-carrito", null,
+                () -> crearPedido(usuario));
+    }
 
+    private ResponseEntity<?> crearPedido(Usuario usuario) {
+        try {
             Pedido pedido = pedidoService.crearPedidoDesdeCarrito(usuario.getId());
             return ResponseEntity.ok(pedido);
+        } catch (StockInsuficienteException e) {
+            return ResponseEntity.status(409).body(Map.of(
+                    "error", e.getMessage(),
+                    "productoId", e.getProductoId(),
+                    "solicitado", e.getSolicitado()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
@@ -81,16 +146,13 @@ public class PedidoController {
     @GetMapping("/{id}")
     public ResponseEntity<Pedido> obtenerPedido(
             Authentication authentication,
+            @UsuarioActual Usuario usuario,
             @PathVariable String id) {
         try {
             if (authentication == null || !authentication.isAuthenticated()) {
                 return ResponseEntity.status(401).build();
             }
 
-            String email = authentication.getName();
-            Usuario usuario = usuarioRepository.findByEmail(email)
-                    .orElse(null);
-
             if (usuario == null) {
                 return ResponseEntity.status(404).build();
             }
@@ -101,7 +163,7 @@ public class PedidoController {
             }
 
             // Verificar que el usuario sea el dueño del pedido
-            if (!pedido.get().getUsuario().getId().equals(usuario.getId())) {
+            if (!usuario.getId().equals(pedido.get().getUsuarioId())) {
                 return ResponseEntity.status(403).build();
             }
 
@@ -131,6 +193,12 @@ public class PedidoController {
             Pedido pedido = pedidoService.actualizarEstado(id, nuevoEstado);
 
             return ResponseEntity.ok(pedido);
+        } catch (PedidoNoEncontradoException e) {
+            return ResponseEntity.notFound().build();
+        } catch (TransicionInvalidaException e) {
+            return ResponseEntity.status(409).body(Map.of(
+                    "error", e.getMessage(),
+                    "estadoActual", e.getEstadoActual()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
@@ -141,34 +209,29 @@ public class PedidoController {
     @PostMapping("/{id}/confirmar-pago")
     public ResponseEntity<?> confirmarPago(
             Authentication authentication,
+            @UsuarioActual Usuario usuario,
             @PathVariable String id,
-            @RequestBody Map<String, Object> paymentData) {
-        try {
-            if (authentication == null || !authentication.isAuthenticated()) {
-                return ResponseEntity.status(401).build();
-            }
-
-            String email = authentication.getName();
-            Usuario usuario = usuarioRepository.findByEmail(email)
-                    .orElse(null);
-
-            if (usuario == null) {
-                return ResponseEntity.status(404).build();
-            }
+            @RequestBody Map<String, Object> paymentData,
+            @RequestHeader(value = Idempotencia.HEADER, required = false) String idempotencyKey) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(401).build();
+        }
 
-            var pedido = pedidoService.obtenerPedidoPorId(id);
-            if (pedido.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
+        if (usuario == null) {
+            return ResponseEntity.status(404).build();
+        }
 
-            // Verificar que el usuario sea el dueño del pedido
-            if (!pedido.get().getUsuario().getId().equals(usuario.getId())) {
-                return ResponseEntity.status(403).build();
-            }
+        return idempotencia.ejecutar(idempotencyKey, usuario.getId(), "confirmar-pago:" + id, paymentData,
+                () -> confirmarPago(usuario, id, paymentData));
+    }
 
-            // Confirmar pago con información de Transbank
+    private ResponseEntity<?> confirmarPago(Usuario usuario, String id, Map<String, Object> paymentData) {
+        try {
+            // Confirmar pago con información de Transbank; la propiedad del pedido se verifica
+            // en el mismo update condicional
             Pedido pedidoConfirmado = pedidoService.confirmarPago(
                     id,
+                    usuario.getId(),
                     (String) paymentData.get("numeroOrden"),
                     (String) paymentData.get("codigoAutorizacion"),
                     (String) paymentData.get("codigoRespuesta"),
@@ -178,6 +241,14 @@ public class PedidoController {
             );
 
             return ResponseEntity.ok(pedidoConfirmado);
+        } catch (PedidoNoEncontradoException e) {
+            return ResponseEntity.notFound().build();
+        } catch (PedidoAjenoException e) {
+            return ResponseEntity.status(403).build();
+        } catch (TransicionInvalidaException e) {
+            return ResponseEntity.status(409).body(Map.of(
+                    "error", e.getMessage(),
+                    "estadoActual", e.getEstadoActual()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
@@ -188,34 +259,30 @@ public class PedidoController {
     @DeleteMapping("/{id}")
     public ResponseEntity<?> cancelarPedido(
             Authentication authentication,
+            @UsuarioActual Usuario usuario,
             @PathVariable String id) {
         try {
             if (authentication == null || !authentication.isAuthenticated()) {
                 return ResponseEntity.status(401).build();
             }
 
-            String email = authentication.getName();
-            Usuario usuario = usuarioRepository.findByEmail(email)
-                    .orElse(null);
-
             if (usuario == null) {
                 return ResponseEntity.status(404).build();
             }
 
-            var pedido = pedidoService.obtenerPedidoPorId(id);
-            if (pedido.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
-
-            // Verificar que el usuario sea el dueño del pedido o admin
-            if (!pedido.get().getUsuario().getId().equals(usuario.getId()) &&
-                !authentication.getAuthorities().stream()
-                        .anyMatch(g -> g.getAuthority().equals("ROLE_ADMIN"))) {
-                return ResponseEntity.status(403).build();
-            }
-
-            pedidoService.actualizarEstado(id, "CANCELADO");
+            // El dueño sólo puede cancelar sus pedidos (condición del update); un admin, cualquiera
+            boolean admin = authentication.getAuthorities().stream()
+                    .anyMatch(g -> g.getAuthority().equals("ROLE_ADMIN"));
+            pedidoService.actualizarEstado(id, "CANCELADO", admin ? null : usuario.getId());
             return ResponseEntity.ok(Map.of("message", "Pedido cancelado"));
+        } catch (PedidoNoEncontradoException e) {
+            return ResponseEntity.notFound().build();
+        } catch (PedidoAjenoException e) {
+            return ResponseEntity.status(403).build();
+        } catch (TransicionInvalidaException e) {
+            return ResponseEntity.status(409).body(Map.of(
+                    "error", e.getMessage(),
+                    "estadoActual", e.getEstadoActual()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
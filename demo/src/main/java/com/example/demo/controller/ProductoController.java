@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/productos")
@@ -16,10 +17,24 @@ public class ProductoController {
     @Autowired
     private ProductoService productoService;
 
+    /**
+     * GET /api/productos?cursor=&size=
+     * Lista paginada por cursor; con todos=true devuelve el catálogo completo (servido desde caché)
+     */
     @GetMapping
-    public ResponseEntity<List<Producto>> listarProductos() {
-        List<Producto> productos = productoService.listarTodos();
-        return ResponseEntity.ok(productos);
+    public ResponseEntity<?> listarProductos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean todos) {
+        try {
+            if (todos) {
+                List<Producto> productos = productoService.listarTodos();
+                return ResponseEntity.ok(productos);
+            }
+            return ResponseEntity.ok(productoService.listarPagina(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @GetMapping("/{id}")
@@ -35,10 +50,20 @@ public class ProductoController {
         return ResponseEntity.ok(productos);
     }
 
+    /**
+     * GET /api/productos/search?nombre=&limit=
+     * Busca en nombre, descripción y categoría, ordenado por relevancia
+     */
     @GetMapping("/search")
-    public ResponseEntity<List<Producto>> buscarPorNombre(@RequestParam String nombre) {
-        List<Producto> productos = productoService.buscarPorNombre(nombre);
-        return ResponseEntity.ok(productos);
+    public ResponseEntity<?> buscarPorNombre(
+            @RequestParam String nombre,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            List<Producto> productos = productoService.buscar(nombre, limit);
+            return ResponseEntity.ok(productos);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @PostMapping
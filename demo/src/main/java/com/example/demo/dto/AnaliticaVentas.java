@@ -0,0 +1,167 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Analítica de ventas de un rango de días, armada con los acumulados diarios (ResumenVentas).
+ * Los totales, días, categorías y productos consideran sólo pedidos vendidos; porEstado
+ * cuenta todos los pedidos creados en el rango según su estado actual.
+ */
+public class AnaliticaVentas {
+    private LocalDate desde;
+    private LocalDate hasta;
+    private long pedidos;
+    private long unidades;
+    private BigDecimal ingresos = BigDecimal.ZERO;
+    private List<Fila> porDia = new ArrayList<>();
+    private List<Fila> porEstado = new ArrayList<>();
+    private List<Fila> porCategoria = new ArrayList<>();
+    private List<Fila> productos = new ArrayList<>();
+
+    public AnaliticaVentas() {
+    }
+
+    public AnaliticaVentas(LocalDate desde, LocalDate hasta) {
+        this.desde = desde;
+        this.hasta = hasta;
+    }
+
+    /**
+     * Contadores de una clave (día, estado, categoría o ID de producto)
+     */
+    public static class Fila {
+        private String clave;
+        private String nombre;
+        private long pedidos;
+        private long unidades;
+        private BigDecimal ingresos = BigDecimal.ZERO;
+
+        public Fila() {
+        }
+
+        public Fila(String clave) {
+            this.clave = clave;
+        }
+
+        public void sumar(long pedidos, long unidades, BigDecimal ingresos) {
+            this.pedidos += pedidos;
+            this.unidades += unidades;
+            this.ingresos = this.ingresos.add(ingresos);
+        }
+
+        public String getClave() {
+            return clave;
+        }
+
+        public void setClave(String clave) {
+            this.clave = clave;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public void setNombre(String nombre) {
+            this.nombre = nombre;
+        }
+
+        public long getPedidos() {
+            return pedidos;
+        }
+
+        public void setPedidos(long pedidos) {
+            this.pedidos = pedidos;
+        }
+
+        public long getUnidades() {
+            return unidades;
+        }
+
+        public void setUnidades(long unidades) {
+            this.unidades = unidades;
+        }
+
+        public BigDecimal getIngresos() {
+            return ingresos;
+        }
+
+        public void setIngresos(BigDecimal ingresos) {
+            this.ingresos = ingresos;
+        }
+    }
+
+    public LocalDate getDesde() {
+        return desde;
+    }
+
+    public void setDesde(LocalDate desde) {
+        this.desde = desde;
+    }
+
+    public LocalDate getHasta() {
+        return hasta;
+    }
+
+    public void setHasta(LocalDate hasta) {
+        this.hasta = hasta;
+    }
+
+    public long getPedidos() {
+        return pedidos;
+    }
+
+    public void setPedidos(long pedidos) {
+        this.pedidos = pedidos;
+    }
+
+    public long getUnidades() {
+        return unidades;
+    }
+
+    public void setUnidades(long unidades) {
+        this.unidades = unidades;
+    }
+
+    public BigDecimal getIngresos() {
+        return ingresos;
+    }
+
+    public void setIngresos(BigDecimal ingresos) {
+        this.ingresos = ingresos;
+    }
+
+    public List<Fila> getPorDia() {
+        return porDia;
+    }
+
+    public void setPorDia(List<Fila> porDia) {
+        this.porDia = porDia;
+    }
+
+    public List<Fila> getPorEstado() {
+        return porEstado;
+    }
+
+    public void setPorEstado(List<Fila> porEstado) {
+        this.porEstado = porEstado;
+    }
+
+    public List<Fila> getPorCategoria() {
+        return porCategoria;
+    }
+
+    public void setPorCategoria(List<Fila> porCategoria) {
+        this.porCategoria = porCategoria;
+    }
+
+    public List<Fila> getProductos() {
+        return productos;
+    }
+
+    public void setProductos(List<Fila> productos) {
+        this.productos = productos;
+    }
+}
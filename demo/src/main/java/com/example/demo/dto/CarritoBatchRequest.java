@@ -0,0 +1,23 @@
+package com.example.demo.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CarritoBatchRequest {
+    private List<CarritoOperacion> operations = new ArrayList<>();
+
+    public CarritoBatchRequest() {
+    }
+
+    public CarritoBatchRequest(List<CarritoOperacion> operations) {
+        this.operations = operations;
+    }
+
+    public List<CarritoOperacion> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<CarritoOperacion> operations) {
+        this.operations = operations;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.dto;
+
+/**
+ * Operación sobre una línea del carrito dentro de POST /api/cart/batch.
+ * op: "add" suma quantity, "set" fija quantity (0 quita la línea) y "remove" quita el producto.
+ */
+public class CarritoOperacion {
+    public static final String AGREGAR = "add";
+    public static final String FIJAR = "set";
+    public static final String QUITAR = "remove";
+
+    private String op;
+    private String productId;
+    private Integer quantity;
+
+    public CarritoOperacion() {
+    }
+
+    public CarritoOperacion(String op, String productId, Integer quantity) {
+        this.op = op;
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.dto;
+
+/**
+ * Respuesta del cambio de contraseña. El cambio revoca los tokens emitidos antes (incluido el
+ * de la sesión actual), así que se entrega uno nuevo para que el cliente siga autenticado.
+ */
+public class ChangePasswordResponse {
+    private String message;
+    private boolean success;
+    private String token;
+
+    public ChangePasswordResponse() {
+    }
+
+    public ChangePasswordResponse(String message, boolean success, String token) {
+        this.message = message;
+        this.success = success;
+        this.token = token;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+}
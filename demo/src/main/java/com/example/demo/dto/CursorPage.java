@@ -0,0 +1,104 @@
+package com.example.demo.dto;
+
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de resultados con paginación por cursor (keyset).
+ * El cursor es opaco para el cliente: se devuelve en nextCursor y se reenvía tal cual
+ * para pedir la página siguiente.
+ */
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public CursorPage() {
+    }
+
+    public CursorPage(List<T> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Construye la página a partir de una consulta que pidió size + 1 elementos:
+     * si llegó el elemento extra hay más páginas y se descarta.
+     */
+    public static <T> CursorPage<T> desde(List<T> resultados, int size, Function<T, String> clave) {
+        boolean hayMas = resultados.size() > size;
+        List<T> items = hayMas ? resultados.subList(0, size) : resultados;
+        String siguiente = hayMas ? codificarCursor(clave.apply(items.get(items.size() - 1))) : null;
+        return new CursorPage<>(items, siguiente, hayMas);
+    }
+
+    /**
+     * Ajusta el tamaño de página solicitado al valor por defecto y al máximo permitido
+     */
+    public static int tamanoPagina(Integer solicitado, int porDefecto, int maximo) {
+        if (solicitado == null) {
+            return Math.min(porDefecto, maximo);
+        }
+        if (solicitado <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a 0");
+        }
+        return Math.min(solicitado, maximo);
+    }
+
+    public static String codificarCursor(String valor) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decodificarCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    /**
+     * Decodifica un cursor que contiene el _id del último elemento; un cursor alterado o que no
+     * es un ObjectId se rechaza en vez de devolver una página vacía
+     */
+    public static String decodificarCursorId(String cursor) {
+        String id = decodificarCursor(cursor);
+        if (id != null && !ObjectId.isValid(id)) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        return id;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Resumen de un pedido para el historial del cliente: sólo los campos de la lista, sin los
+ * ítems ni sus productos (el detalle completo se obtiene con GET /api/pedidos/{id}).
+ */
+public class PedidoResumen {
+    private String id;
+    private LocalDateTime fecha;
+    private String estado;
+    private BigDecimal total;
+    private String numeroOrden;
+    private Integer cantidadItems;
+
+    public PedidoResumen() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public String getNumeroOrden() {
+        return numeroOrden;
+    }
+
+    public void setNumeroOrden(String numeroOrden) {
+        this.numeroOrden = numeroOrden;
+    }
+
+    public Integer getCantidadItems() {
+        return cantidadItems;
+    }
+
+    public void setCantidadItems(Integer cantidadItems) {
+        this.cantidadItems = cantidadItems;
+    }
+}
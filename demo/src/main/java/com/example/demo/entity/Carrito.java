@@ -0,0 +1,57 @@
+package com.example.demo.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Carrito completo de un usuario en un único documento (modo app.carrito.modo=documento).
+ * El _id es el ID del usuario y cada línea se modifica con actualizaciones atómicas de arreglo.
+ */
+@Document(collection = "carritos")
+@CompoundIndex(name = "producto", def = "{'items.producto._id': 1}")
+public class Carrito {
+    @Id
+    private String usuarioId;
+
+    private List<CarritoLinea> items = new ArrayList<>();
+
+    public Carrito() {
+    }
+
+    public Carrito(String usuarioId) {
+        this.usuarioId = usuarioId;
+    }
+
+    public String getUsuarioId() {
+        return usuarioId;
+    }
+
+    public void setUsuarioId(String usuarioId) {
+        this.usuarioId = usuarioId;
+    }
+
+    public List<CarritoLinea> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CarritoLinea> items) {
+        this.items = items;
+    }
+
+    /**
+     * Devuelve las líneas como CarritoItem, el formato que usan los DTO y los pedidos
+     */
+    public List<CarritoItem> toCarritoItems() {
+        List<CarritoItem> carritoItems = new ArrayList<>();
+        if (items != null) {
+            for (CarritoLinea linea : items) {
+                carritoItems.add(new CarritoItem(usuarioId, linea.getProducto(), linea.getCantidad()));
+            }
+        }
+        return carritoItems;
+    }
+}
@@ -1,28 +1,38 @@
 package com.example.demo.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 import java.math.BigDecimal;
 
 @Document(collection = "carrito_items")
+@CompoundIndexes({
+        @CompoundIndex(name = "usuario_producto", def = "{'usuarioId': 1, 'producto._id': 1}"),
+        @CompoundIndex(name = "producto", def = "{'producto._id': 1}")
+})
 public class CarritoItem {
     @Id
     private String id;
 
-    @DBRef
-    private Usuario usuario;
+    private String usuarioId;
 
-    @DBRef
-    private Producto producto;
+    // Snapshot embebido: leer el carrito no requiere consultar productos
+    private ProductoSnapshot producto;
 
     private Integer cantidad;
 
     public CarritoItem() {
     }
 
-    public CarritoItem(Usuario usuario, Producto producto, Integer cantidad) {
-        this.usuario = usuario;
+    public CarritoItem(String usuarioId, Producto producto, Integer cantidad) {
+        this.usuarioId = usuarioId;
+        this.producto = new ProductoSnapshot(producto);
+        this.cantidad = cantidad;
+    }
+
+    public CarritoItem(String usuarioId, ProductoSnapshot producto, Integer cantidad) {
+        this.usuarioId = usuarioId;
         this.producto = producto;
         this.cantidad = cantidad;
     }
@@ -35,19 +45,19 @@ public class CarritoItem {
         this.id = id;
     }
 
-    public Usuario getUsuario() {
-        return usuario;
+    public String getUsuarioId() {
+        return usuarioId;
     }
 
-    public void setUsuario(Usuario usuario) {
-        this.usuario = usuario;
+    public void setUsuarioId(String usuarioId) {
+        this.usuarioId = usuarioId;
     }
 
-    public Producto getProducto() {
+    public ProductoSnapshot getProducto() {
         return producto;
     }
 
-    public void setProducto(Producto producto) {
+    public void setProducto(ProductoSnapshot producto) {
         this.producto = producto;
     }
 
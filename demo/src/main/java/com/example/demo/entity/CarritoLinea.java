@@ -0,0 +1,34 @@
+package com.example.demo.entity;
+
+/**
+ * Línea embebida en el documento Carrito
+ */
+public class CarritoLinea {
+    private ProductoSnapshot producto;
+
+    private Integer cantidad;
+
+    public CarritoLinea() {
+    }
+
+    public CarritoLinea(ProductoSnapshot producto, Integer cantidad) {
+        this.producto = producto;
+        this.cantidad = cantidad;
+    }
+
+    public ProductoSnapshot getProducto() {
+        return producto;
+    }
+
+    public void setProducto(ProductoSnapshot producto) {
+        this.producto = producto;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+}
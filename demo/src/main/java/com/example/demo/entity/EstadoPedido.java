@@ -0,0 +1,61 @@
+package com.example.demo.entity;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estados de un pedido y transiciones permitidas entre ellos.
+ * Pedido guarda el nombre del estado; un cambio de estado sólo se aplica si el estado actual
+ * está entre los orígenes permitidos hacia el nuevo.
+ */
+public enum EstadoPedido {
+    PENDIENTE,
+    CONFIRMADO,
+    EN_PROCESO,
+    ENVIADO,
+    ENTREGADO,
+    CANCELADO;
+
+    // Estado actual -> estados a los que puede pasar (ENTREGADO y CANCELADO son finales)
+    private static final Map<EstadoPedido, Set<EstadoPedido>> TRANSICIONES = Map.of(
+            PENDIENTE, EnumSet.of(CONFIRMADO, CANCELADO),
+            CONFIRMADO, EnumSet.of(EN_PROCESO, ENVIADO, CANCELADO),
+            EN_PROCESO, EnumSet.of(ENVIADO, CANCELADO),
+            ENVIADO, EnumSet.of(ENTREGADO),
+            ENTREGADO, EnumSet.noneOf(EstadoPedido.class),
+            CANCELADO, EnumSet.noneOf(EstadoPedido.class));
+
+    public boolean puedePasarA(EstadoPedido nuevo) {
+        return TRANSICIONES.get(this).contains(nuevo);
+    }
+
+    /**
+     * Nombres de los estados desde los que se puede pasar a éste (condición del update)
+     */
+    public List<String> origenes() {
+        List<String> origenes = new ArrayList<>();
+        for (EstadoPedido estado : values()) {
+            if (estado.puedePasarA(this)) {
+                origenes.add(estado.name());
+            }
+        }
+        return origenes;
+    }
+
+    /**
+     * Estado a partir de su nombre (sin distinguir mayúsculas)
+     */
+    public static EstadoPedido desde(String nombre) {
+        if (nombre == null || nombre.isBlank()) {
+            throw new IllegalArgumentException("El estado no puede estar vacío");
+        }
+        try {
+            return valueOf(nombre.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Estado de pedido no válido: " + nombre.trim());
+        }
+    }
+}
@@ -1,20 +1,27 @@
 package com.example.demo.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "pedidos")
+@CompoundIndex(name = "usuario_estado_fecha", def = "{'usuarioId': 1, 'estado': 1, 'fecha': -1}")
+// Historial del cliente: pedidos del usuario por fecha descendente, con _id como desempate del cursor
+@CompoundIndex(name = "usuario_fecha", def = "{'usuarioId': 1, 'fecha': -1, '_id': -1}")
+// Exportación por rango de fechas, recorrida en orden de fecha
+@CompoundIndex(name = "fecha_id", def = "{'fecha': 1, '_id': 1}")
+// Pedidos por estado (panel de administración) y exportación filtrada por estado
+@CompoundIndex(name = "estado_fecha_id", def = "{'estado': 1, 'fecha': 1, '_id': 1}")
 public class Pedido {
     @Id
     private String id;
 
-    @DBRef
-    private Usuario usuario;
+    // ID del dueño del pedido (antes era un @DBRef a Usuario)
+    private String usuarioId;
 
     private List<PedidoItem> items = new ArrayList<>();
 
@@ -22,7 +29,7 @@ public class Pedido {
 
     private LocalDateTime fecha;
 
-    private String estado; // PENDIENTE, CONFIRMADO, ENVIADO, ENTREGADO, CANCELADO
+    private String estado; // nombre de EstadoPedido (PENDIENTE, CONFIRMADO, EN_PROCESO, ENVIADO, ENTREGADO, CANCELADO)
     
     // Información de pago Transbank
     private String metodoPago; // "Webpay Plus", "Efectivo", etc.
@@ -39,9 +46,9 @@ public class Pedido {
         this.estado = "PENDIENTE";
     }
 
-    public Pedido(Usuario usuario, BigDecimal total) {
+    public Pedido(String usuarioId, BigDecimal total) {
         this();
-        this.usuario = usuario;
+        this.usuarioId = usuarioId;
         this.total = total;
     }
 
@@ -53,12 +60,12 @@ public class Pedido {
         this.id = id;
     }
 
-    public Usuario getUsuario() {
-        return usuario;
+    public String getUsuarioId() {
+        return usuarioId;
     }
 
-    public void setUsuario(Usuario usuario) {
-        this.usuario = usuario;
+    public void setUsuarioId(String usuarioId) {
+        this.usuarioId = usuarioId;
     }
 
     public List<PedidoItem> getItems() {
@@ -7,6 +7,11 @@ public class PedidoItem {
     @DBRef
     private Producto producto;
 
+    // Datos del producto al momento de la compra (los usa la analítica de ventas sin resolver el DBRef)
+    private String productoId;
+    private String nombre;
+    private String categoria;
+
     private Integer cantidad;
 
     private BigDecimal precioUnitario;
@@ -18,6 +23,11 @@ public class PedidoItem {
         this.producto = producto;
         this.cantidad = cantidad;
         this.precioUnitario = precioUnitario;
+        if (producto != null) {
+            this.productoId = producto.getId();
+            this.nombre = producto.getNombre();
+            this.categoria = producto.getCategoria();
+        }
     }
 
     public Producto getProducto() {
@@ -28,6 +38,30 @@ public class PedidoItem {
         this.producto = producto;
     }
 
+    public String getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(String productoId) {
+        this.productoId = productoId;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public void setCategoria(String categoria) {
+        this.categoria = categoria;
+    }
+
     public Integer getCantidad() {
         return cantidad;
     }
@@ -1,10 +1,13 @@
 package com.example.demo.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.math.BigDecimal;
 
 @Document(collection = "productos")
+// Filtro por categoría, ordenado por _id en el catálogo reactivo
+@CompoundIndex(name = "categoria_id", def = "{'categoria': 1, '_id': 1}")
 public class Producto {
     @Id
     private String id;
@@ -17,6 +20,9 @@ public class Producto {
 
     private Integer stock;
 
+    // Unidades retenidas por reservas de carrito vigentes (app.reservas.habilitadas=true)
+    private Integer stockReservado;
+
     private String imagenUrl;
 
     private String categoria;
@@ -32,6 +38,20 @@ public class Producto {
         this.categoria = categoria;
     }
 
+    /**
+     * Constructor de copia (usado por la caché de catálogo para no compartir instancias mutables)
+     */
+    public Producto(Producto otro) {
+        this.id = otro.id;
+        this.nombre = otro.nombre;
+        this.descripcion = otro.descripcion;
+        this.precio = otro.precio;
+        this.stock = otro.stock;
+        this.stockReservado = otro.stockReservado;
+        this.imagenUrl = otro.imagenUrl;
+        this.categoria = otro.categoria;
+    }
+
     public String getId() {
         return id;
     }
@@ -72,6 +92,24 @@ public class Producto {
         this.stock = stock;
     }
 
+    public Integer getStockReservado() {
+        return stockReservado;
+    }
+
+    public void setStockReservado(Integer stockReservado) {
+        this.stockReservado = stockReservado;
+    }
+
+    /**
+     * Stock que todavía se puede reservar o comprar (stock menos lo reservado)
+     */
+    public Integer getStockDisponible() {
+        if (stock == null) {
+            return null;
+        }
+        return stockReservado == null ? stock : stock - stockReservado;
+    }
+
     public String getImagenUrl() {
         return imagenUrl;
     }
@@ -0,0 +1,116 @@
+package com.example.demo.entity;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Copia embebida de los datos de un producto que se muestran en el carrito.
+ * Evita resolver una referencia a productos por cada línea al leer el carrito;
+ * ProductoService la refresca cuando cambian los datos del producto.
+ */
+public class ProductoSnapshot {
+    private String id;
+
+    private String nombre;
+
+    private BigDecimal precio;
+
+    private String imagenUrl;
+
+    private String categoria;
+
+    public ProductoSnapshot() {
+    }
+
+    public ProductoSnapshot(Producto producto) {
+        this.id = producto.getId();
+        this.nombre = producto.getNombre();
+        this.precio = producto.getPrecio();
+        this.imagenUrl = producto.getImagenUrl();
+        this.categoria = producto.getCategoria();
+    }
+
+    /**
+     * Crea un Producto con los datos del snapshot (sin stock ni descripción),
+     * usado como referencia al generar las líneas de un pedido
+     */
+    public Producto toProducto() {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setNombre(nombre);
+        producto.setPrecio(precio);
+        producto.setImagenUrl(imagenUrl);
+        producto.setCategoria(categoria);
+        return producto;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public BigDecimal getPrecio() {
+        return precio;
+    }
+
+    public void setPrecio(BigDecimal precio) {
+        this.precio = precio;
+    }
+
+    public String getImagenUrl() {
+        return imagenUrl;
+    }
+
+    public void setImagenUrl(String imagenUrl) {
+        this.imagenUrl = imagenUrl;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public void setCategoria(String categoria) {
+        this.categoria = categoria;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductoSnapshot)) {
+            return false;
+        }
+        ProductoSnapshot otro = (ProductoSnapshot) o;
+        return Objects.equals(id, otro.id)
+                && Objects.equals(nombre, otro.nombre)
+                && (precio == null ? otro.precio == null : otro.precio != null && precio.compareTo(otro.precio) == 0)
+                && Objects.equals(imagenUrl, otro.imagenUrl)
+                && Objects.equals(categoria, otro.categoria);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, nombre, imagenUrl, categoria);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductoSnapshot{" +
+                "id=" + id +
+                ", nombre='" + nombre + '\'' +
+                ", precio=" + precio +
+                '}';
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demo.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Unidades de un producto retenidas para la línea del carrito de un usuario hasta expiraEn.
+ * La cantidad está sumada en Producto.stockReservado; quien elimina el documento (checkout,
+ * cambio del carrito o barrido de vencidas) es quien descuenta esa cantidad del producto.
+ */
+@Document(collection = "reservas")
+@CompoundIndexes({
+        @CompoundIndex(name = "usuario_producto", def = "{'usuarioId': 1, 'productoId': 1}", unique = true),
+        @CompoundIndex(name = "producto", def = "{'productoId': 1}"),
+        @CompoundIndex(name = "expiraEn", def = "{'expiraEn': 1}")
+})
+public class Reserva {
+    @Id
+    private String id;
+
+    private String usuarioId;
+
+    private String productoId;
+
+    private Integer cantidad;
+
+    private Instant expiraEn;
+
+    public Reserva() {
+    }
+
+    public Reserva(String usuarioId, String productoId, Integer cantidad, Instant expiraEn) {
+        this.usuarioId = usuarioId;
+        this.productoId = productoId;
+        this.cantidad = cantidad;
+        this.expiraEn = expiraEn;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUsuarioId() {
+        return usuarioId;
+    }
+
+    public void setUsuarioId(String usuarioId) {
+        this.usuarioId = usuarioId;
+    }
+
+    public String getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(String productoId) {
+        this.productoId = productoId;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public Instant getExpiraEn() {
+        return expiraEn;
+    }
+
+    public void setExpiraEn(Instant expiraEn) {
+        this.expiraEn = expiraEn;
+    }
+}
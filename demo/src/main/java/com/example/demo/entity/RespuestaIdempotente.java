@@ -0,0 +1,92 @@
+package com.example.demo.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Resultado de una request con Idempotency-Key. El _id combina operación, usuario y clave;
+ * mientras la primera ejecución está EN_CURSO los duplicados esperan, y una vez COMPLETADA se
+ * les devuelve la respuesta guardada si el cuerpo de la request coincide. MongoDB elimina el
+ * documento al llegar a expiraEn.
+ */
+@Document(collection = "idempotencia")
+public class RespuestaIdempotente {
+    public static final String EN_CURSO = "EN_CURSO";
+    public static final String COMPLETADA = "COMPLETADA";
+
+    @Id
+    private String id;
+
+    private String estado;
+
+    // SHA-256 del cuerpo de la request: la misma clave con otro cuerpo no se repite
+    private String huella;
+
+    private Integer status;
+
+    // Cuerpo de la respuesta serializado como JSON
+    private String cuerpo;
+
+    @Indexed(name = "expiraEn", expireAfter = "0s")
+    private Instant expiraEn;
+
+    public RespuestaIdempotente() {
+    }
+
+    public RespuestaIdempotente(String id, String estado, Instant expiraEn) {
+        this.id = id;
+        this.estado = estado;
+        this.expiraEn = expiraEn;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public String getHuella() {
+        return huella;
+    }
+
+    public void setHuella(String huella) {
+        this.huella = huella;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public String getCuerpo() {
+        return cuerpo;
+    }
+
+    public void setCuerpo(String cuerpo) {
+        this.cuerpo = cuerpo;
+    }
+
+    public Instant getExpiraEn() {
+        return expiraEn;
+    }
+
+    public void setExpiraEn(Instant expiraEn) {
+        this.expiraEn = expiraEn;
+    }
+}
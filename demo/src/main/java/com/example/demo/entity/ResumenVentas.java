@@ -0,0 +1,215 @@
+package com.example.demo.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Acumulado de ventas de un día para una dimensión (total del día, estado, categoría o
+ * producto). Se mantiene con incrementos al crear pedidos y cambiar su estado, para que la
+ * analítica lea un documento por día y clave en vez de recorrer todos los pedidos.
+ *
+ * El día es el de creación del pedido. La dimensión "estado" cuenta los pedidos según su
+ * estado actual; las demás sólo suman pedidos vendidos (pagados y no cancelados).
+ */
+@Document(collection = "resumen_ventas")
+public class ResumenVentas {
+
+    public static final String DIA = "dia";
+    public static final String ESTADO = "estado";
+    public static final String CATEGORIA = "categoria";
+    public static final String PRODUCTO = "producto";
+
+    public static final String TOTAL = "total";
+    public static final String SIN_CATEGORIA = "Sin categoría";
+
+    // Estados que cuentan como venta en los ingresos
+    public static final Set<String> VENDIDOS = Set.of("CONFIRMADO", "EN_PROCESO", "ENVIADO", "ENTREGADO");
+
+    @Id
+    private String id; // dia|dimension|clave
+
+    @Indexed
+    private String dia; // yyyy-MM-dd
+
+    private String dimension;
+
+    private String clave;
+
+    private String nombre; // nombre del producto (dimensión producto)
+
+    private long pedidos;
+
+    private long unidades;
+
+    private BigDecimal ingresos = BigDecimal.ZERO;
+
+    private Instant actualizadoEn;
+
+    public ResumenVentas() {
+    }
+
+    public ResumenVentas(String dia, String dimension, String clave) {
+        this.id = dia + "|" + dimension + "|" + clave;
+        this.dia = dia;
+        this.dimension = dimension;
+        this.clave = clave;
+    }
+
+    /**
+     * Aporte del pedido, en el estado indicado, a cada acumulado de su día. Con signo -1
+     * devuelve lo que hay que descontar (por ejemplo, al salir de ese estado).
+     */
+    public static List<ResumenVentas> aportes(Pedido pedido, String estado, int signo) {
+        List<ResumenVentas> aportes = new ArrayList<>();
+        if (pedido.getFecha() == null || estado == null) {
+            return aportes;
+        }
+        String dia = pedido.getFecha().toLocalDate().toString();
+        BigDecimal total = pedido.getTotal() != null ? pedido.getTotal() : BigDecimal.ZERO;
+        BigDecimal factor = BigDecimal.valueOf(signo);
+
+        ResumenVentas porEstado = new ResumenVentas(dia, ESTADO, estado);
+        porEstado.sumar(signo, 0, total.multiply(factor));
+        aportes.add(porEstado);
+
+        if (!VENDIDOS.contains(estado)) {
+            return aportes;
+        }
+
+        // Un pedido cuenta una vez por categoría y por producto aunque tenga varias líneas
+        Map<String, ResumenVentas> porClave = new LinkedHashMap<>();
+        long unidades = 0;
+        for (PedidoItem item : pedido.getItems()) {
+            int cantidad = item.getCantidad() != null ? item.getCantidad() : 0;
+            BigDecimal subtotal = item.getPrecioUnitario() != null
+                    ? item.getPrecioUnitario().multiply(BigDecimal.valueOf(cantidad)).multiply(factor)
+                    : BigDecimal.ZERO;
+            unidades += cantidad;
+
+            Producto producto = item.getProducto();
+            String productoId = item.getProductoId() != null ? item.getProductoId()
+                    : producto != null ? producto.getId() : null;
+            String categoria = item.getCategoria() != null ? item.getCategoria()
+                    : producto != null && producto.getCategoria() != null ? producto.getCategoria() : SIN_CATEGORIA;
+
+            sumarLinea(porClave, new ResumenVentas(dia, CATEGORIA, categoria), signo, cantidad, subtotal);
+            if (productoId != null) {
+                ResumenVentas porProducto = new ResumenVentas(dia, PRODUCTO, productoId);
+                porProducto.setNombre(item.getNombre() != null ? item.getNombre()
+                        : producto != null ? producto.getNombre() : null);
+                sumarLinea(porClave, porProducto, signo, cantidad, subtotal);
+            }
+        }
+        aportes.addAll(porClave.values());
+
+        ResumenVentas delDia = new ResumenVentas(dia, DIA, TOTAL);
+        delDia.sumar(signo, unidades * signo, total.multiply(factor));
+        aportes.add(delDia);
+        return aportes;
+    }
+
+    private static void sumarLinea(Map<String, ResumenVentas> porClave, ResumenVentas nuevo,
+                                   int signo, int cantidad, BigDecimal subtotal) {
+        ResumenVentas acumulado = porClave.get(nuevo.getId());
+        if (acumulado == null) {
+            porClave.put(nuevo.getId(), nuevo);
+            nuevo.sumar(signo, (long) cantidad * signo, subtotal);
+        } else {
+            acumulado.sumar(0, (long) cantidad * signo, subtotal);
+        }
+    }
+
+    /**
+     * Suma contadores a este acumulado
+     */
+    public void sumar(long pedidos, long unidades, BigDecimal ingresos) {
+        this.pedidos += pedidos;
+        this.unidades += unidades;
+        this.ingresos = this.ingresos.add(ingresos);
+    }
+
+    public boolean esVacio() {
+        return pedidos == 0 && unidades == 0 && ingresos.signum() == 0;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getDia() {
+        return dia;
+    }
+
+    public void setDia(String dia) {
+        this.dia = dia;
+    }
+
+    public String getDimension() {
+        return dimension;
+    }
+
+    public void setDimension(String dimension) {
+        this.dimension = dimension;
+    }
+
+    public String getClave() {
+        return clave;
+    }
+
+    public void setClave(String clave) {
+        this.clave = clave;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public long getPedidos() {
+        return pedidos;
+    }
+
+    public void setPedidos(long pedidos) {
+        this.pedidos = pedidos;
+    }
+
+    public long getUnidades() {
+        return unidades;
+    }
+
+    public void setUnidades(long unidades) {
+        this.unidades = unidades;
+    }
+
+    public BigDecimal getIngresos() {
+        return ingresos;
+    }
+
+    public void setIngresos(BigDecimal ingresos) {
+        this.ingresos = ingresos;
+    }
+
+    public Instant getActualizadoEn() {
+        return actualizadoEn;
+    }
+
+    public void setActualizadoEn(Instant actualizadoEn) {
+        this.actualizadoEn = actualizadoEn;
+    }
+}
@@ -22,6 +22,9 @@ public class Usuario {
     @DBRef
     private Set<Rol> roles = new HashSet<>();
 
+    // Se incrementa al cambiar roles o contraseña para invalidar los JWT emitidos antes
+    private long tokenVersion;
+
     public Usuario() {
     }
 
@@ -31,6 +34,18 @@ public class Usuario {
         this.password = password;
     }
 
+    /**
+     * Copia el usuario (los roles se copian en un nuevo conjunto)
+     */
+    public Usuario(Usuario otro) {
+        this.id = otro.id;
+        this.nombre = otro.nombre;
+        this.email = otro.email;
+        this.password = otro.password;
+        this.roles = new HashSet<>(otro.roles);
+        this.tokenVersion = otro.tokenVersion;
+    }
+
     public String getId() {
         return id;
     }
@@ -71,6 +86,14 @@ public class Usuario {
         this.roles = roles;
     }
 
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(long tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
     @Override
     public String toString() {
         return "Usuario{" +
@@ -0,0 +1,70 @@
+package com.example.demo.loader;
+
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Convierte las líneas de carrito antiguas (DBRef a usuario y producto) al formato actual:
+ * usuarioId plano y snapshot embebido del producto. Las líneas cuyo producto ya no existe se eliminan.
+ */
+@Component
+@Order(0)
+@Profile("!memoria")
+public class CarritoItemsMigration implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(CarritoItemsMigration.class);
+
+    private static final String COLECCION = "carrito_items";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(String... args) {
+        Query pendientes = new Query(where("usuarioId").exists(false));
+        int migradas = 0;
+        int eliminadas = 0;
+
+        for (Document item : mongoTemplate.find(pendientes, Document.class, COLECCION)) {
+            Object usuario = item.get("usuario");
+            Object producto = item.get("producto");
+            Document productoDoc = producto instanceof DBRef
+                    ? mongoTemplate.findById(((DBRef) producto).getId(), Document.class, "productos")
+                    : null;
+
+            if (!(usuario instanceof DBRef) || productoDoc == null) {
+                mongoTemplate.remove(new Query(where("_id").is(item.get("_id"))), COLECCION);
+                eliminadas++;
+                continue;
+            }
+
+            Document snapshot = new Document("_id", productoDoc.get("_id"))
+                    .append("nombre", productoDoc.get("nombre"))
+                    .append("precio", productoDoc.get("precio"))
+                    .append("imagenUrl", productoDoc.get("imagenUrl"))
+                    .append("categoria", productoDoc.get("categoria"));
+
+            Update update = new Update()
+                    .set("usuarioId", ((DBRef) usuario).getId().toString())
+                    .set("producto", snapshot)
+                    .unset("usuario");
+            mongoTemplate.updateFirst(new Query(where("_id").is(item.get("_id"))), update, COLECCION);
+            migradas++;
+        }
+
+        if (migradas > 0 || eliminadas > 0) {
+            logger.info("Migración de carrito_items: {} líneas migradas, {} eliminadas", migradas, eliminadas);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.loader;
+
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Reemplaza el DBRef "usuario" de los pedidos antiguos por el campo indexado "usuarioId".
+ * Recorre los pedidos pendientes con un cursor y aplica los cambios en lotes.
+ */
+@Component
+@Order(0)
+@Profile("!memoria")
+public class PedidosMigration implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(PedidosMigration.class);
+
+    private static final String COLECCION = "pedidos";
+    private static final int TAMANO_LOTE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(String... args) {
+        Query pendientes = new Query(where("usuario").exists(true).and("usuarioId").exists(false));
+        pendientes.fields().include("_id", "usuario");
+
+        int migrados = 0;
+        BulkOperations lote = null;
+        int enLote = 0;
+
+        try (Stream<Document> pedidos = mongoTemplate.stream(pendientes, Document.class, COLECCION)) {
+            for (Document pedido : (Iterable<Document>) pedidos::iterator) {
+                Object usuario = pedido.get("usuario");
+                if (!(usuario instanceof DBRef)) {
+                    continue;
+                }
+                if (lote == null) {
+                    lote = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLECCION);
+                }
+                lote.updateOne(new Query(where("_id").is(pedido.get("_id"))),
+                        new Update().set("usuarioId", ((DBRef) usuario).getId().toString()).unset("usuario"));
+                enLote++;
+                if (enLote == TAMANO_LOTE) {
+                    lote.execute();
+                    migrados += enLote;
+                    lote = null;
+                    enLote = 0;
+                }
+            }
+        }
+        if (lote != null) {
+            lote.execute();
+            migrados += enLote;
+        }
+
+        if (migrados > 0) {
+            logger.info("Migración de pedidos: {} pedidos con usuarioId", migrados);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.metricas;
+
+import com.example.demo.service.PedidoAjenoException;
+import com.example.demo.service.PedidoNoEncontradoException;
+import com.example.demo.service.StockInsuficienteException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Timers y contadores de las operaciones de negocio (checkout, pagos, carrito).
+ * Todos los timers publican percentiles (p50, p95, p99) e histograma, visibles en
+ * /actuator/metrics/{nombre} y filtrables por el tag "resultado".
+ */
+@Component
+public class MetricasOperaciones {
+
+    public static final String CHECKOUT = "pedidos.checkout";
+    public static final String CHECKOUT_ETAPA = "pedidos.checkout.etapa";
+    public static final String CHECKOUT_UNIDADES = "pedidos.checkout.unidades";
+    public static final String CONFIRMAR_PAGO = "pedidos.pago.confirmacion";
+    public static final String ACTUALIZAR_ESTADO = "pedidos.estado.actualizacion";
+    public static final String CARRITO = "carrito.operaciones";
+    public static final String ANALITICA_FALLOS = "analitica.incrementos.fallidos";
+
+    public static final String EXITO = "exito";
+    public static final String SIN_STOCK = "sin_stock";
+    public static final String CARRITO_VACIO = "carrito_vacio";
+    public static final String NO_ENCONTRADO = "no_encontrado";
+    public static final String PROHIBIDO = "prohibido";
+    public static final String INVALIDO = "invalido";
+    public static final String ERROR = "error";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public Timer.Sample iniciar() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Detiene la medición y la registra con el resultado y los tags adicionales (pares clave, valor)
+     */
+    public void registrar(Timer.Sample muestra, String nombre, String resultado, String... tags) {
+        muestra.stop(Timer.builder(nombre)
+                .tags(tags)
+                .tag("resultado", resultado)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * Mide una etapa de una operación; el resultado es "exito" o "error" según si lanza excepción
+     */
+    public <T> T medirEtapa(String nombre, String etapa, Supplier<T> paso) {
+        Timer.Sample muestra = iniciar();
+        String resultado = ERROR;
+        try {
+            T valor = paso.get();
+            resultado = EXITO;
+            return valor;
+        } finally {
+            registrar(muestra, nombre, resultado, "etapa", etapa);
+        }
+    }
+
+    public void medirEtapa(String nombre, String etapa, Runnable paso) {
+        medirEtapa(nombre, etapa, () -> {
+            paso.run();
+            return null;
+        });
+    }
+
+    public void contar(String nombre, double cantidad, String... tags) {
+        meterRegistry.counter(nombre, tags).increment(cantidad);
+    }
+
+    /**
+     * Resultado de una operación que terminó con la excepción indicada
+     */
+    public static String resultado(Exception e) {
+        if (e instanceof StockInsuficienteException) {
+            return SIN_STOCK;
+        }
+        if (e instanceof PedidoNoEncontradoException) {
+            return NO_ENCONTRADO;
+        }
+        if (e instanceof PedidoAjenoException) {
+            return PROHIBIDO;
+        }
+        if (e instanceof IllegalArgumentException) {
+            return INVALIDO;
+        }
+        return ERROR;
+    }
+}
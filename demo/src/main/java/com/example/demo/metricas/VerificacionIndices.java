@@ -0,0 +1,246 @@
+package com.example.demo.metricas;
+
+import com.mongodb.ExplainVerbosity;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.query.ConvertingParameterAccessor;
+import org.springframework.data.mongodb.repository.query.MongoParametersParameterAccessor;
+import org.springframework.data.mongodb.repository.query.MongoQueryCreator;
+import org.springframework.data.mongodb.repository.query.MongoQueryMethod;
+import org.springframework.data.repository.core.support.RepositoryFactoryInformation;
+import org.springframework.data.repository.query.Parameter;
+import org.springframework.data.repository.query.QueryMethod;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Verifica que las consultas derivadas de los repositorios (findBy..., deleteBy..., etc.) usen
+ * un índice. Los índices se declaran en las entidades (@Indexed / @CompoundIndex) y se crean al
+ * iniciar con spring.data.mongodb.auto-index-creation.
+ *
+ * Cada consulta se arma igual que Spring Data, con valores de ejemplo para sus parámetros, y se
+ * ejecuta explain: si el plan ganador incluye COLLSCAN la consulta recorre la colección completa.
+ * Se verifica al iniciar (app.indices.verificacion.alIniciar) y bajo demanda en /actuator/indices.
+ */
+@Component
+@Profile("!memoria")
+@Endpoint(id = "indices")
+public class VerificacionIndices {
+    private static final Logger logger = LoggerFactory.getLogger(VerificacionIndices.class);
+
+    private static final String COLLSCAN = "COLLSCAN";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ListableBeanFactory beanFactory;
+
+    @Value("${app.indices.verificacion.alIniciar:true}")
+    private boolean alIniciar;
+
+    // Con true la aplicación no inicia si alguna consulta hace COLLSCAN (útil en CI y staging)
+    @Value("${app.indices.verificacion.fallar:false}")
+    private boolean fallar;
+
+    // Consultas que se aceptan sin índice, como Repositorio.metodo
+    @Value("${app.indices.verificacion.excluir:}")
+    private String[] excluidas;
+
+    /**
+     * Resultado del explain de una consulta derivada
+     */
+    public record Consulta(String nombre, String coleccion, String filtro, String orden,
+                           List<String> etapas, List<String> indices, boolean collscan,
+                           boolean excluida, String error) {
+    }
+
+    /**
+     * Informe de todas las consultas; sinIndice lista las que hacen COLLSCAN y no están excluidas
+     */
+    public record Informe(Instant fecha, int consultas, List<String> sinIndice, List<Consulta> detalle) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verificarAlIniciar() {
+        if (!alIniciar) {
+            return;
+        }
+        Informe informe = verificar();
+        for (Consulta consulta : informe.detalle()) {
+            if (consulta.error() != null) {
+                logger.warn("No se pudo verificar el índice de {}: {}", consulta.nombre(), consulta.error());
+            } else if (consulta.collscan() && !consulta.excluida()) {
+                logger.warn("Consulta sin índice (COLLSCAN): {} en {} filtro={} orden={}",
+                        consulta.nombre(), consulta.coleccion(), consulta.filtro(), consulta.orden());
+            }
+        }
+        logger.info("Verificación de índices: {} consultas, {} sin índice",
+                informe.consultas(), informe.sinIndice().size());
+        if (fallar && !informe.sinIndice().isEmpty()) {
+            throw new IllegalStateException("Consultas sin índice: " + String.join(", ", informe.sinIndice()));
+        }
+    }
+
+    @ReadOperation
+    public Informe verificar() {
+        Set<String> aceptadas = Set.of(excluidas);
+        List<Consulta> detalle = new ArrayList<>();
+        for (RepositoryFactoryInformation<?, ?> repositorio : beanFactory.getBeansOfType(RepositoryFactoryInformation.class).values()) {
+            String interfaz = repositorio.getRepositoryInformation().getRepositoryInterface().getSimpleName();
+            for (QueryMethod metodo : repositorio.getQueryMethods()) {
+                if (metodo instanceof MongoQueryMethod consulta && esDerivada(consulta)) {
+                    String nombre = interfaz + "." + consulta.getName();
+                    detalle.add(explicar(nombre, consulta, aceptadas.contains(nombre)));
+                }
+            }
+        }
+        detalle.sort(Comparator.comparing(Consulta::nombre));
+
+        List<String> sinIndice = detalle.stream()
+                .filter(consulta -> consulta.collscan() && !consulta.excluida())
+                .map(Consulta::nombre)
+                .toList();
+        return new Informe(Instant.now(), detalle.size(), sinIndice, detalle);
+    }
+
+    private static boolean esDerivada(MongoQueryMethod consulta) {
+        return !consulta.hasAnnotatedQuery() && !consulta.hasAnnotatedAggregation() && !consulta.isGeoNearQuery();
+    }
+
+    private Consulta explicar(String nombre, MongoQueryMethod metodo, boolean excluida) {
+        Class<?> tipo = metodo.getEntityInformation().getJavaType();
+        String coleccion = metodo.getEntityInformation().getCollectionName();
+        try {
+            MongoConverter converter = mongoTemplate.getConverter();
+            Object[] valores = new Object[metodo.getParameters().getNumberOfParameters()];
+            for (Parameter parametro : metodo.getParameters()) {
+                valores[parametro.getIndex()] = valorDeEjemplo(parametro.getType());
+            }
+            ConvertingParameterAccessor accessor = new ConvertingParameterAccessor(converter,
+                    new MongoParametersParameterAccessor(metodo, valores));
+            Query query = new MongoQueryCreator(new PartTree(metodo.getName(), tipo), accessor,
+                    converter.getMappingContext()).createQuery();
+
+            MongoPersistentEntity<?> entidad = converter.getMappingContext().getRequiredPersistentEntity(tipo);
+            QueryMapper mapper = new QueryMapper(converter);
+            Document filtro = mapper.getMappedObject(query.getQueryObject(), entidad);
+            Document orden = mapper.getMappedSort(query.getSortObject(), entidad);
+
+            Document explain = mongoTemplate.getCollection(coleccion).find(filtro).sort(orden)
+                    .explain(ExplainVerbosity.QUERY_PLANNER);
+            Set<String> etapas = new LinkedHashSet<>();
+            Set<String> indices = new LinkedHashSet<>();
+            Document planificador = explain.get("queryPlanner", Document.class);
+            recorrerPlan(planificador != null ? planificador.get("winningPlan") : explain, etapas, indices);
+            return new Consulta(nombre, coleccion, filtro.toJson(), orden.toJson(), List.copyOf(etapas),
+                    List.copyOf(indices), etapas.contains(COLLSCAN), excluida, null);
+        } catch (RuntimeException e) {
+            return new Consulta(nombre, coleccion, null, null, List.of(), List.of(), false, excluida, e.getMessage());
+        }
+    }
+
+    /**
+     * Junta las etapas y los índices del plan. Recorre todo el documento porque su forma cambia
+     * según la versión del servidor (inputStage, inputStages, queryPlan, shards).
+     */
+    private static void recorrerPlan(Object nodo, Set<String> etapas, Set<String> indices) {
+        if (nodo instanceof Map<?, ?> documento) {
+            for (Map.Entry<?, ?> campo : documento.entrySet()) {
+                if ("stage".equals(campo.getKey()) && campo.getValue() instanceof String etapa) {
+                    etapas.add(etapa);
+                } else if ("indexName".equals(campo.getKey()) && campo.getValue() instanceof String indice) {
+                    indices.add(indice);
+                } else {
+                    recorrerPlan(campo.getValue(), etapas, indices);
+                }
+            }
+        } else if (nodo instanceof Collection<?> lista) {
+            for (Object elemento : lista) {
+                recorrerPlan(elemento, etapas, indices);
+            }
+        }
+    }
+
+    /**
+     * Valor de ejemplo para un parámetro: el plan depende de los campos consultados, no del valor.
+     * Los String son ObjectId válidos para que los filtros por _id se conviertan igual que en uso real.
+     */
+    private static Object valorDeEjemplo(Class<?> tipo) {
+        if (tipo == String.class) {
+            return new ObjectId().toHexString();
+        }
+        if (tipo == Limit.class) {
+            return Limit.of(1);
+        }
+        if (Pageable.class.isAssignableFrom(tipo)) {
+            return PageRequest.of(0, 1);
+        }
+        if (tipo == Sort.class) {
+            return Sort.unsorted();
+        }
+        if (tipo == Instant.class) {
+            return Instant.now();
+        }
+        if (tipo == LocalDateTime.class) {
+            return LocalDateTime.now();
+        }
+        if (tipo == LocalDate.class) {
+            return LocalDate.now();
+        }
+        if (tipo == Date.class) {
+            return new Date();
+        }
+        if (tipo == Integer.class || tipo == int.class) {
+            return 0;
+        }
+        if (tipo == Long.class || tipo == long.class) {
+            return 0L;
+        }
+        if (tipo == BigDecimal.class) {
+            return BigDecimal.ZERO;
+        }
+        if (tipo == Boolean.class || tipo == boolean.class) {
+            return true;
+        }
+        if (Collection.class.isAssignableFrom(tipo)) {
+            return List.of(new ObjectId().toHexString());
+        }
+        if (tipo.isEnum()) {
+            return tipo.getEnumConstants()[0];
+        }
+        return null;
+    }
+}
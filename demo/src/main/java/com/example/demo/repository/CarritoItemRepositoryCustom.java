@@ -0,0 +1,25 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.CarritoItem;
+import com.example.demo.entity.ProductoSnapshot;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Operaciones sobre carrito_items que no se pueden expresar como consultas derivadas
+ */
+public interface CarritoItemRepositoryCustom {
+
+    /**
+     * Reemplaza el snapshot del producto en todas las líneas de carrito que lo contienen.
+     * Devuelve el número de líneas actualizadas.
+     */
+    long actualizarSnapshotProducto(ProductoSnapshot snapshot);
+
+    /**
+     * Aplica en un único bulk los cambios de un carrito: inserta o actualiza las líneas
+     * indicadas (por usuario y producto) y elimina las de los productos quitados
+     */
+    void aplicarCambios(String usuarioId, List<CarritoItem> lineas, Collection<String> productosQuitados);
+}
@@ -0,0 +1,46 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.CarritoItem;
+import com.example.demo.entity.ProductoSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+class CarritoItemRepositoryImpl implements CarritoItemRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public long actualizarSnapshotProducto(ProductoSnapshot snapshot) {
+        Query query = new Query(where("producto.id").is(snapshot.getId()));
+        Update update = new Update().set("producto", snapshot);
+        return mongoTemplate.updateMulti(query, update, CarritoItem.class).getModifiedCount();
+    }
+
+    @Override
+    public void aplicarCambios(String usuarioId, List<CarritoItem> lineas, Collection<String> productosQuitados) {
+        if (lineas.isEmpty() && productosQuitados.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CarritoItem.class);
+        for (CarritoItem linea : lineas) {
+            Query query = new Query(where("usuarioId").is(usuarioId).and("producto.id").is(linea.getProducto().getId()));
+            Update update = new Update()
+                    .set("producto", linea.getProducto())
+                    .set("cantidad", linea.getCantidad());
+            bulk.upsert(query, update);
+        }
+        if (!productosQuitados.isEmpty()) {
+            bulk.remove(new Query(where("usuarioId").is(usuarioId).and("producto.id").in(productosQuitados)));
+        }
+        bulk.execute();
+    }
+}
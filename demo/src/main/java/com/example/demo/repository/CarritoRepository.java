@@ -0,0 +1,9 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Carrito;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CarritoRepository extends MongoRepository<Carrito, String>, CarritoRepositoryCustom {
+}
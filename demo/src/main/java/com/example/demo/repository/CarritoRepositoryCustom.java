@@ -0,0 +1,48 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Carrito;
+import com.example.demo.entity.CarritoItem;
+import com.example.demo.entity.ProductoSnapshot;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Actualizaciones atómicas sobre el documento de carrito de un usuario.
+ * Cada operación devuelve el carrito ya modificado, para responder sin volver a consultarlo.
+ */
+public interface CarritoRepositoryCustom {
+
+    /**
+     * Suma la cantidad a la línea del producto, o la agrega si no existe
+     * (crea el carrito si el usuario no tiene uno)
+     */
+    Carrito agregarProducto(String usuarioId, ProductoSnapshot producto, int cantidad);
+
+    /**
+     * Fija la cantidad de una línea existente; devuelve null si el producto no está en el carrito
+     */
+    Carrito establecerCantidad(String usuarioId, String productoId, int cantidad);
+
+    /**
+     * Quita la línea del producto; devuelve null si el producto no está en el carrito
+     */
+    Carrito quitarProducto(String usuarioId, String productoId);
+
+    /**
+     * Aplica en un único bulk ordenado los cambios de un carrito sin reemplazar el documento:
+     * fija producto y cantidad de las líneas existentes, agrega las que faltan y quita las de
+     * los productos quitados. Las líneas que no se tocan conservan los cambios concurrentes.
+     */
+    void aplicarCambios(String usuarioId, List<CarritoItem> lineas, Collection<String> productosQuitados);
+
+    /**
+     * Reemplaza el snapshot del producto en todos los carritos que lo contienen
+     */
+    long actualizarSnapshotProducto(ProductoSnapshot snapshot);
+
+    /**
+     * Quita el producto de todos los carritos que lo contienen
+     */
+    long quitarProductoDeTodos(String productoId);
+}
@@ -0,0 +1,121 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Carrito;
+import com.example.demo.entity.CarritoItem;
+import com.example.demo.entity.CarritoLinea;
+import com.example.demo.entity.ProductoSnapshot;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+class CarritoRepositoryImpl implements CarritoRepositoryCustom {
+
+    private static final FindAndModifyOptions DEVOLVER_NUEVO = FindAndModifyOptions.options().returnNew(true);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Carrito agregarProducto(String usuarioId, ProductoSnapshot producto, int cantidad) {
+        // Caso habitual: la línea ya existe y basta con sumar la cantidad
+        Carrito carrito = incrementarCantidad(usuarioId, producto.getId(), cantidad);
+        if (carrito != null) {
+            return carrito;
+        }
+
+        // La línea no existe: se agrega (y se crea el carrito si hace falta) sólo si el producto
+        // sigue sin estar en el carrito, para que dos clics simultáneos no dupliquen la línea
+        Query sinProducto = new Query(where("usuarioId").is(usuarioId)
+                .and("items.producto.id").ne(producto.getId()));
+        Update agregar = new Update().push("items", new CarritoLinea(producto, cantidad));
+        try {
+            return mongoTemplate.findAndModify(sinProducto, agregar,
+                    FindAndModifyOptions.options().returnNew(true).upsert(true), Carrito.class);
+        } catch (DuplicateKeyException e) {
+            // Otra request agregó la línea entre ambas operaciones: el upsert chocó con el carrito existente
+            return incrementarCantidad(usuarioId, producto.getId(), cantidad);
+        }
+    }
+
+    private Carrito incrementarCantidad(String usuarioId, String productoId, int cantidad) {
+        Update update = new Update().inc("items.$.cantidad", cantidad);
+        return mongoTemplate.findAndModify(conProducto(usuarioId, productoId), update, DEVOLVER_NUEVO, Carrito.class);
+    }
+
+    @Override
+    public Carrito establecerCantidad(String usuarioId, String productoId, int cantidad) {
+        Update update = new Update().set("items.$.cantidad", cantidad);
+        return mongoTemplate.findAndModify(conProducto(usuarioId, productoId), update, DEVOLVER_NUEVO, Carrito.class);
+    }
+
+    @Override
+    public Carrito quitarProducto(String usuarioId, String productoId) {
+        Update update = new Update().pull("items", Query.query(where("producto.id").is(productoId)));
+        return mongoTemplate.findAndModify(conProducto(usuarioId, productoId), update, DEVOLVER_NUEVO, Carrito.class);
+    }
+
+    @Override
+    public void aplicarCambios(String usuarioId, List<CarritoItem> lineas, Collection<String> productosQuitados) {
+        if (lineas.isEmpty() && productosQuitados.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Carrito.class);
+        if (!lineas.isEmpty()) {
+            // Crea el carrito vacío si el usuario no tiene uno, para que los $push siguientes encuentren el documento
+            bulk.upsert(new Query(where("usuarioId").is(usuarioId)), new Update().setOnInsert("items", List.of()));
+        }
+        for (CarritoItem linea : lineas) {
+            String productoId = linea.getProducto().getId();
+            // Sólo una de las dos coincide: actualiza la línea si existe, o la agrega si no
+            bulk.updateOne(conProducto(usuarioId, productoId), new Update()
+                    .set("items.$.producto", linea.getProducto())
+                    .set("items.$.cantidad", linea.getCantidad()));
+            bulk.updateOne(new Query(where("usuarioId").is(usuarioId).and("items.producto.id").ne(productoId)),
+                    new Update().push("items", new CarritoLinea(linea.getProducto(), linea.getCantidad())));
+        }
+        if (!productosQuitados.isEmpty()) {
+            // Igual que en los filtros de arreglo, el $in dentro del $pull no convierte los IDs
+            List<Object> ids = productosQuitados.stream().map(CarritoRepositoryImpl::idMongo).toList();
+            bulk.updateOne(new Query(where("usuarioId").is(usuarioId)),
+                    new Update().pull("items", Query.query(where("producto.id").in(ids))));
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public long actualizarSnapshotProducto(ProductoSnapshot snapshot) {
+        Query query = new Query(where("items.producto.id").is(snapshot.getId()));
+        Update update = new Update().set("items.$[linea].producto", snapshot)
+                .filterArray(where("linea.producto._id").is(idMongo(snapshot.getId())));
+        return mongoTemplate.updateMulti(query, update, Carrito.class).getModifiedCount();
+    }
+
+    @Override
+    public long quitarProductoDeTodos(String productoId) {
+        Query query = new Query(where("items.producto.id").is(productoId));
+        Update update = new Update().pull("items", Query.query(where("producto.id").is(productoId)));
+        return mongoTemplate.updateMulti(query, update, Carrito.class).getModifiedCount();
+    }
+
+    /**
+     * Los filtros de arreglo no pasan por el mapeo de tipos: el ID se convierte a ObjectId
+     * igual que al guardar el snapshot
+     */
+    private static Object idMongo(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    private static Query conProducto(String usuarioId, String productoId) {
+        return new Query(where("usuarioId").is(usuarioId).and("items.producto.id").is(productoId));
+    }
+}
@@ -1,15 +1,19 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.Pedido;
-import com.example.demo.entity.Usuario;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface PedidoRepository extends MongoRepository<Pedido, String> {
-    List<Pedido> findByUsuario(Usuario usuario);
+public interface PedidoRepository extends MongoRepository<Pedido, String>, PedidoRepositoryCustom {
+    List<Pedido> findByUsuarioIdOrderByFechaDesc(String usuarioId);
     List<Pedido> findByEstado(String estado);
-    List<Pedido> findByUsuarioAndEstado(Usuario usuario, String estado);
+    List<Pedido> findByUsuarioIdAndEstadoOrderByFechaDesc(String usuarioId, String estado);
+
+    // Paginación por cursor sobre _id descendente (los ObjectId crecen con la fecha de creación)
+    List<Pedido> findAllByOrderByIdDesc(Limit limit);
+    List<Pedido> findByIdLessThanOrderByIdDesc(String id, Limit limit);
 }
@@ -0,0 +1,52 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.PedidoResumen;
+import com.example.demo.entity.Pedido;
+import com.example.demo.entity.ResumenVentas;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Consultas de pedidos que proyectan sólo los campos necesarios en el servidor
+ */
+public interface PedidoRepositoryCustom {
+
+    /**
+     * Resúmenes de los pedidos del usuario, del más reciente al más antiguo (fecha y _id
+     * descendentes). Con fecha e id del último resumen recibido devuelve los siguientes.
+     */
+    List<PedidoResumen> buscarResumenes(String usuarioId, LocalDateTime fecha, String id, int limite);
+
+    /**
+     * Recalcula desde los pedidos todos los acumulados de ventas (por día, estado, categoría y
+     * producto), con los días en la zona horaria indicada
+     */
+    List<ResumenVentas> calcularResumenVentas(ZoneId zona);
+
+    /**
+     * Recorre con un cursor, de a `lote` documentos y por fecha ascendente, los pedidos creados
+     * en [desde, hasta) con el estado indicado (los filtros nulos no se aplican). Los ítems vienen
+     * sin el DBRef al producto: se usan los datos copiados al comprar. El Stream debe cerrarse.
+     */
+    Stream<Pedido> recorrerParaExportar(LocalDateTime desde, LocalDateTime hasta, String estado, int lote);
+
+    /**
+     * Cambia el estado (y los campos indicados) sólo si el estado actual está entre los orígenes
+     * y, con usuarioId, si el pedido es de ese usuario (null para administradores), con un único
+     * update condicional que no reescribe el resto del pedido. Devuelve el pedido con el cambio
+     * aplicado junto con el estado que tenía antes, o null si ninguna condición coincidió.
+     */
+    CambioEstado cambiarEstado(String pedidoId, String usuarioId, Collection<String> estadosOrigen, String nuevoEstado,
+                               Map<String, Object> campos);
+
+    /**
+     * Resultado de cambiarEstado: el pedido actualizado y el estado desde el que se hizo la transición
+     */
+    record CambioEstado(Pedido pedido, String estadoAnterior) {
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.PedidoResumen;
+import com.example.demo.entity.Pedido;
+import com.example.demo.entity.ResumenVentas;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+class PedidoRepositoryImpl implements PedidoRepositoryCustom {
+
+    private static final String COLECCION = "pedidos";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<PedidoResumen> buscarResumenes(String usuarioId, LocalDateTime fecha, String id, int limite) {
+        Criteria criterio = where("usuarioId").is(usuarioId);
+        if (fecha != null) {
+            // Keyset sobre (fecha, _id): los pedidos con la misma fecha se desempatan por _id
+            criterio = criterio.orOperator(
+                    where("fecha").lt(fecha),
+                    where("fecha").is(fecha).and("id").lt(new ObjectId(id)));
+        }
+
+        // Se recorre el índice usuario_fecha y se calcula la cantidad de ítems en el servidor:
+        // no viajan los ítems ni se resuelven las referencias a productos
+        TypedAggregation<Pedido> aggregation = Aggregation.newAggregation(Pedido.class,
+                Aggregation.match(criterio),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "fecha", "id")),
+                Aggregation.limit(limite),
+                Aggregation.project("fecha", "estado", "total", "numeroOrden")
+                        .and(ArrayOperators.Size.lengthOfArray(
+                                ConditionalOperators.ifNull("items").then(List.of())))
+                        .as("cantidadItems"));
+        return mongoTemplate.aggregate(aggregation, PedidoResumen.class).getMappedResults();
+    }
+
+    @Override
+    public List<ResumenVentas> calcularResumenVentas(ZoneId zona) {
+        // Mismo criterio que ResumenVentas.aportes: día de creación, estado actual y, para las
+        // demás dimensiones, sólo pedidos vendidos. $toDecimal admite totales guardados como texto.
+        Document dia = new Document("$dateToString", new Document("format", "%Y-%m-%d")
+                .append("date", "$fecha")
+                .append("timezone", zona.getId()));
+        AggregationOperation vendidos = contexto -> new Document("$match",
+                new Document("estado", new Document("$in", List.copyOf(ResumenVentas.VENDIDOS))));
+
+        List<ResumenVentas> resumenes = new ArrayList<>();
+
+        resumenes.addAll(agregar(ResumenVentas.ESTADO, List.of(
+                contexto -> new Document("$group", new Document("_id",
+                        new Document("dia", dia).append("clave", "$estado"))
+                        .append("pedidos", new Document("$sum", 1))
+                        .append("ingresos", new Document("$sum", new Document("$toDecimal", "$total")))))));
+
+        resumenes.addAll(agregar(ResumenVentas.DIA, List.of(vendidos,
+                contexto -> new Document("$group", new Document("_id",
+                        new Document("dia", dia).append("clave", ResumenVentas.TOTAL))
+                        .append("pedidos", new Document("$sum", 1))
+                        .append("unidades", new Document("$sum", new Document("$sum", "$items.cantidad")))
+                        .append("ingresos", new Document("$sum", new Document("$toDecimal", "$total")))))));
+
+        resumenes.addAll(agregar(ResumenVentas.CATEGORIA, porLinea(vendidos, dia,
+                new Document("$ifNull", List.of("$items.categoria", ResumenVentas.SIN_CATEGORIA)))));
+
+        // Los ítems antiguos no tienen productoId: se usa el id del DBRef (campo "$id")
+        resumenes.addAll(agregar(ResumenVentas.PRODUCTO, porLinea(vendidos, dia,
+                new Document("$ifNull", List.of("$items.productoId",
+                        new Document("$toString", new Document("$getField", new Document("field",
+                                new Document("$literal", "$id")).append("input", "$items.producto"))))))));
+        return resumenes;
+    }
+
+    /**
+     * Etapas para las dimensiones por línea: se agrupa primero por pedido y clave para que un
+     * pedido con varias líneas de la misma clave cuente una sola vez
+     */
+    private static List<AggregationOperation> porLinea(AggregationOperation vendidos, Document dia, Document clave) {
+        return List.of(vendidos,
+                contexto -> new Document("$unwind", "$items"),
+                contexto -> new Document("$project", new Document("dia", dia)
+                        .append("clave", clave)
+                        .append("nombre", "$items.nombre")
+                        .append("cantidad", "$items.cantidad")
+                        .append("subtotal", new Document("$multiply", List.of(
+                                new Document("$toDecimal", "$items.precioUnitario"), "$items.cantidad")))),
+                contexto -> new Document("$match", new Document("clave", new Document("$ne", null))),
+                contexto -> new Document("$group", new Document("_id",
+                        new Document("pedido", "$_id").append("dia", "$dia").append("clave", "$clave"))
+                        .append("nombre", new Document("$last", "$nombre"))
+                        .append("unidades", new Document("$sum", "$cantidad"))
+                        .append("ingresos", new Document("$sum", "$subtotal"))),
+                contexto -> new Document("$group", new Document("_id",
+                        new Document("dia", "$_id.dia").append("clave", "$_id.clave"))
+                        .append("nombre", new Document("$last", "$nombre"))
+                        .append("pedidos", new Document("$sum", 1))
+                        .append("unidades", new Document("$sum", "$unidades"))
+                        .append("ingresos", new Document("$sum", "$ingresos"))));
+    }
+
+    private List<ResumenVentas> agregar(String dimension, List<AggregationOperation> etapas) {
+        Aggregation aggregation = Aggregation.newAggregation(etapas)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        List<ResumenVentas> resumenes = new ArrayList<>();
+        for (Document fila : mongoTemplate.aggregate(aggregation, COLECCION, Document.class)) {
+            Document id = fila.get("_id", Document.class);
+            ResumenVentas resumen = new ResumenVentas(id.getString("dia"), dimension, String.valueOf(id.get("clave")));
+            resumen.setNombre(fila.getString("nombre"));
+            resumen.sumar(numero(fila.get("pedidos")), numero(fila.get("unidades")), decimal(fila.get("ingresos")));
+            resumenes.add(resumen);
+        }
+        return resumenes;
+    }
+
+    private static long numero(Object valor) {
+        return valor instanceof Number numero ? numero.longValue() : 0;
+    }
+
+    private static BigDecimal decimal(Object valor) {
+        if (valor instanceof Decimal128 decimal) {
+            return decimal.bigDecimalValue();
+        }
+        return valor instanceof Number numero ? new BigDecimal(numero.toString()) : BigDecimal.ZERO;
+    }
+
+    @Override
+    public Stream<Pedido> recorrerParaExportar(LocalDateTime desde, LocalDateTime hasta, String estado, int lote) {
+        Query query = new Query();
+        if (desde != null || hasta != null) {
+            Criteria fecha = where("fecha");
+            if (desde != null) {
+                fecha = fecha.gte(desde);
+            }
+            if (hasta != null) {
+                fecha = fecha.lt(hasta);
+            }
+            query.addCriteria(fecha);
+        }
+        if (estado != null) {
+            query.addCriteria(where("estado").is(estado));
+        }
+        // Orden del índice fecha_id: sin sort en memoria, el servidor entrega lote por lote
+        query.with(Sort.by("fecha", "id")).cursorBatchSize(lote);
+        query.fields().exclude("items.producto");
+        return mongoTemplate.stream(query, Pedido.class);
+    }
+
+    @Override
+    public CambioEstado cambiarEstado(String pedidoId, String usuarioId, Collection<String> estadosOrigen,
+                                      String nuevoEstado, Map<String, Object> campos) {
+        Criteria criterio = where("id").is(pedidoId).and("estado").in(estadosOrigen);
+        if (usuarioId != null) {
+            criterio.and("usuarioId").is(usuarioId);
+        }
+        Query query = new Query(criterio);
+        Update update = new Update().set("estado", nuevoEstado);
+        campos.forEach(update::set);
+        // findAndModify devuelve el documento previo completo: de ahí sale el estado anterior
+        // real, y aplicándole los mismos campos del update queda igual al documento guardado
+        // (con items.producto resuelto para el cliente) sin volver a leerlo
+        Pedido pedido = mongoTemplate.findAndModify(query, update, Pedido.class);
+        if (pedido == null) {
+            return null;
+        }
+        String estadoAnterior = pedido.getEstado();
+        pedido.setEstado(nuevoEstado);
+        BeanWrapperImpl wrapper = new BeanWrapperImpl(pedido);
+        campos.forEach(wrapper::setPropertyValue);
+        return new CambioEstado(pedido, estadoAnterior);
+    }
+}
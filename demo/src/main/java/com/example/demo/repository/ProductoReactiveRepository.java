@@ -0,0 +1,15 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Producto;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Acceso de sólo lectura al catálogo con el driver reactivo (API /api/catalogo)
+ */
+@Repository
+public interface ProductoReactiveRepository extends ReactiveMongoRepository<Producto, String> {
+    Flux<Producto> findAllByOrderByIdAsc();
+    Flux<Producto> findByCategoriaOrderByIdAsc(String categoria);
+}
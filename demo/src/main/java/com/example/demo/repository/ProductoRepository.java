@@ -1,13 +1,18 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.Producto;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface ProductoRepository extends MongoRepository<Producto, String> {
+public interface ProductoRepository extends MongoRepository<Producto, String>, ProductoRepositoryCustom {
     List<Producto> findByCategoria(String categoria);
     List<Producto> findByNombreContainingIgnoreCase(String nombre);
+
+    // Paginación por cursor sobre _id (ascendente)
+    List<Producto> findAllByOrderByIdAsc(Limit limit);
+    List<Producto> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
@@ -0,0 +1,57 @@
+package com.example.demo.repository;
+
+import java.util.Map;
+
+/**
+ * Operaciones de stock atómicas que no se pueden expresar como consultas derivadas
+ */
+public interface ProductoRepositoryCustom {
+
+    /**
+     * Descuenta stock sólo si el disponible (stock - stockReservado) alcanza la cantidad pedida
+     * (un único update condicional). Devuelve false si el producto no existe o no alcanza.
+     */
+    boolean descontarStock(String productoId, int cantidad);
+
+    /**
+     * Repone stock (incremento atómico). Devuelve false si el producto no existe.
+     */
+    boolean reponerStock(String productoId, int cantidad);
+
+    /**
+     * Aplica todos los descuentos (productoId -> cantidad) en una única escritura bulk de updates
+     * condicionales por línea. Si algún producto no tiene stock suficiente (o no existe), los descuentos ya aplicados se
+     * revierten y se devuelve el ID de ese producto; si todos se aplicaron devuelve null.
+     */
+    String descontarStockEnLote(Map<String, Integer> cantidades);
+
+    /**
+     * Repone stock de varios productos en una única operación bulk
+     */
+    void reponerStockEnLote(Map<String, Integer> cantidades);
+
+    /**
+     * Reserva unidades (incrementa stockReservado) sólo si el stock disponible
+     * (stock - stockReservado) alcanza. Devuelve false si el producto no existe o no alcanza.
+     */
+    boolean reservarStock(String productoId, int cantidad);
+
+    /**
+     * Devuelve al stock disponible unidades reservadas (productoId -> cantidad) en una operación bulk
+     */
+    void liberarStockReservado(Map<String, Integer> cantidades);
+
+    /**
+     * Descuenta las líneas (productoId -> cantidad) consumiendo lo que el comprador tenía reservado
+     * (productoId -> reservado) en una única escritura bulk: cada producto se actualiza con un
+     * update condicional que exige stock - (stockReservado - reservado) >= cantidad y descuenta
+     * ambos contadores.
+     * Si alguna línea falla se revierten las ya aplicadas y se devuelve su ID; null si todas se aplicaron.
+     */
+    String descontarStockReservadoEnLote(Map<String, Integer> cantidades, Map<String, Integer> reservadas);
+
+    /**
+     * Revierte descontarStockReservadoEnLote: repone el stock y lo reservado en una operación bulk
+     */
+    void reponerStockReservadoEnLote(Map<String, Integer> cantidades, Map<String, Integer> reservadas);
+}
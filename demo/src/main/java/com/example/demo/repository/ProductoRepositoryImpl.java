@@ -0,0 +1,200 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Producto;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+class ProductoRepositoryImpl implements ProductoRepositoryCustom {
+
+    // Marcas de los lotes de descuento en curso (un elemento por checkout que tocó el producto)
+    private static final String DESCUENTOS_EN_CURSO = "descuentosEnCurso";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean descontarStock(String productoId, int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad a descontar debe ser mayor a 0");
+        }
+        // Sólo el stock disponible: no se vende lo que retienen las reservas de carrito
+        Query query = new Query(where("id").is(productoId).andOperator(disponibleAlMenos(cantidad, 0)));
+        Update update = new Update().inc("stock", -cantidad);
+        return mongoTemplate.updateFirst(query, update, Producto.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public boolean reponerStock(String productoId, int cantidad) {
+        if (cantidad < 0) {
+            throw new IllegalArgumentException("La cantidad a reponer no puede ser negativa");
+        }
+        Query query = new Query(where("id").is(productoId));
+        Update update = new Update().inc("stock", cantidad);
+        return mongoTemplate.updateFirst(query, update, Producto.class).getMatchedCount() == 1;
+    }
+
+    @Override
+    public String descontarStockEnLote(Map<String, Integer> cantidades) {
+        for (Integer cantidad : cantidades.values()) {
+            if (cantidad <= 0) {
+                throw new IllegalArgumentException("La cantidad a descontar debe ser mayor a 0");
+            }
+        }
+        return descontarEnLote(cantidades,
+                productoId -> where("id").is(productoId).and("stock").gte(cantidades.get(productoId)),
+                productoId -> new Update().inc("stock", -cantidades.get(productoId)),
+                productoId -> new Update().inc("stock", cantidades.get(productoId)));
+    }
+
+    @Override
+    public void reponerStockEnLote(Map<String, Integer> cantidades) {
+        if (cantidades.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Producto.class);
+        cantidades.forEach((productoId, cantidad) ->
+                bulk.updateOne(new Query(where("id").is(productoId)), new Update().inc("stock", cantidad)));
+        bulk.execute();
+    }
+
+    @Override
+    public boolean reservarStock(String productoId, int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad a reservar debe ser mayor a 0");
+        }
+        Query query = new Query(where("id").is(productoId).andOperator(disponibleAlMenos(cantidad, 0)));
+        Update update = new Update().inc("stockReservado", cantidad);
+        return mongoTemplate.updateFirst(query, update, Producto.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public void liberarStockReservado(Map<String, Integer> cantidades) {
+        if (cantidades.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Producto.class);
+        cantidades.forEach((productoId, cantidad) ->
+                bulk.updateOne(new Query(where("id").is(productoId)), new Update().inc("stockReservado", -cantidad)));
+        bulk.execute();
+    }
+
+    /**
+     * Como descontarStockEnLote, con la condición sobre el stock disponible más lo reservado por
+     * el comprador
+     */
+    @Override
+    public String descontarStockReservadoEnLote(Map<String, Integer> cantidades, Map<String, Integer> reservadas) {
+        for (Integer cantidad : cantidades.values()) {
+            if (cantidad <= 0) {
+                throw new IllegalArgumentException("La cantidad a descontar debe ser mayor a 0");
+            }
+        }
+        return descontarEnLote(cantidades,
+                productoId -> where("id").is(productoId).andOperator(
+                        disponibleAlMenos(cantidades.get(productoId), reservadas.getOrDefault(productoId, 0))),
+                productoId -> incrementos(-cantidades.get(productoId), -reservadas.getOrDefault(productoId, 0)),
+                productoId -> incrementos(cantidades.get(productoId), reservadas.getOrDefault(productoId, 0)));
+    }
+
+    @Override
+    public void reponerStockReservadoEnLote(Map<String, Integer> cantidades, Map<String, Integer> reservadas) {
+        if (cantidades.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Producto.class);
+        cantidades.forEach((productoId, cantidad) -> {
+            Update update = new Update().inc("stock", cantidad);
+            int reservado = reservadas.getOrDefault(productoId, 0);
+            if (reservado > 0) {
+                update.inc("stockReservado", reservado);
+            }
+            bulk.updateOne(new Query(where("id").is(productoId)), update);
+        });
+        bulk.execute();
+    }
+
+    /**
+     * Envía todas las líneas en un único bulk ORDERED de updates condicionales (un round trip sin
+     * importar el tamaño del carrito). Cada documento descontado queda marcado con un ID propio
+     * de este lote, así que si matchedCount no llega al número de líneas se revierten sólo los
+     * documentos que llevan la marca, aunque otros checkouts hayan tocado el mismo producto.
+     * Devuelve el ID de la primera línea que no se aplicó, o null si se aplicaron todas.
+     */
+    private String descontarEnLote(Map<String, Integer> cantidades,
+                                   Function<String, Criteria> condicion,
+                                   Function<String, Update> descuento,
+                                   Function<String, Update> reposicion) {
+        if (cantidades.isEmpty()) {
+            return null;
+        }
+        String marca = new ObjectId().toHexString();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Producto.class);
+        for (String productoId : cantidades.keySet()) {
+            bulk.updateOne(new Query(condicion.apply(productoId)),
+                    descuento.apply(productoId).push(DESCUENTOS_EN_CURSO, marca));
+        }
+        int descontadas = bulk.execute().getMatchedCount();
+
+        Query marcados = new Query(where("id").in(cantidades.keySet()).and(DESCUENTOS_EN_CURSO).is(marca));
+        if (descontadas == cantidades.size()) {
+            mongoTemplate.updateMulti(marcados, new Update().pull(DESCUENTOS_EN_CURSO, marca), Producto.class);
+            return null;
+        }
+
+        // Alguna línea no alcanzó: se reponen los documentos que este lote alcanzó a descontar
+        marcados.fields().include("id");
+        Set<String> aplicadas = new HashSet<>();
+        for (Producto producto : mongoTemplate.find(marcados, Producto.class)) {
+            aplicadas.add(producto.getId());
+        }
+        if (!aplicadas.isEmpty()) {
+            BulkOperations compensacion = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Producto.class);
+            for (String productoId : aplicadas) {
+                compensacion.updateOne(new Query(where("id").is(productoId).and(DESCUENTOS_EN_CURSO).is(marca)),
+                        reposicion.apply(productoId).pull(DESCUENTOS_EN_CURSO, marca));
+            }
+            compensacion.execute();
+        }
+        for (String productoId : cantidades.keySet()) {
+            if (!aplicadas.contains(productoId)) {
+                return productoId;
+            }
+        }
+        return null;
+    }
+
+    private static Update incrementos(int stock, int reservado) {
+        Update update = new Update().inc("stock", stock);
+        if (reservado != 0) {
+            update.inc("stockReservado", reservado);
+        }
+        return update;
+    }
+
+    /**
+     * stock - (stockReservado - reservadoPropio) >= cantidad, con stockReservado ausente = 0
+     */
+    private static Criteria disponibleAlMenos(int cantidad, int reservadoPropio) {
+        AggregationExpression reservado = ConditionalOperators.ifNull("stockReservado").then(0);
+        AggregationExpression disponible = ArithmeticOperators.Subtract
+                .valueOf(ArithmeticOperators.Add.valueOf("stock").add(reservadoPropio))
+                .subtract(reservado);
+        return Criteria.expr(ComparisonOperators.Gte.valueOf(disponible).greaterThanEqualToValue(cantidad));
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Reserva;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReservaRepository extends MongoRepository<Reserva, String>, ReservaRepositoryCustom {
+    Optional<Reserva> findByUsuarioIdAndProductoId(String usuarioId, String productoId);
+    List<Reserva> findByUsuarioId(String usuarioId);
+    void deleteByProductoId(String productoId);
+
+    // Barrido de vencidas: recorre el índice por expiraEn en lotes
+    List<Reserva> findByExpiraEnLessThanEqualOrderByExpiraEnAsc(Instant ahora, Limit limit);
+}
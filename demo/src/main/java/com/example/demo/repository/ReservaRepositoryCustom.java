@@ -0,0 +1,29 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Reserva;
+
+import java.time.Instant;
+
+/**
+ * Actualizaciones condicionales de reservas: cada una sólo se aplica si el documento sigue en
+ * el estado leído, para que una reserva nunca se libere dos veces (por ejemplo, por el
+ * barrido de vencidas y por el checkout a la vez)
+ */
+public interface ReservaRepositoryCustom {
+
+    /**
+     * Cambia la cantidad y el vencimiento sólo si la reserva todavía tiene la cantidad esperada.
+     * Devuelve false si fue eliminada o modificada por otra operación.
+     */
+    boolean actualizarCantidad(String id, int cantidadEsperada, int cantidad, Instant expiraEn);
+
+    /**
+     * Elimina y devuelve la reserva del producto para el usuario (null si no tiene)
+     */
+    Reserva quitar(String usuarioId, String productoId);
+
+    /**
+     * Elimina la reserva sólo si sigue vencida; devuelve false si ya no existe o fue renovada
+     */
+    boolean quitarSiVencida(String id, Instant ahora);
+}
@@ -0,0 +1,36 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Reserva;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+class ReservaRepositoryImpl implements ReservaRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean actualizarCantidad(String id, int cantidadEsperada, int cantidad, Instant expiraEn) {
+        Query query = new Query(where("id").is(id).and("cantidad").is(cantidadEsperada));
+        Update update = new Update().set("cantidad", cantidad).set("expiraEn", expiraEn);
+        return mongoTemplate.updateFirst(query, update, Reserva.class).getMatchedCount() == 1;
+    }
+
+    @Override
+    public Reserva quitar(String usuarioId, String productoId) {
+        Query query = new Query(where("usuarioId").is(usuarioId).and("productoId").is(productoId));
+        return mongoTemplate.findAndRemove(query, Reserva.class);
+    }
+
+    @Override
+    public boolean quitarSiVencida(String id, Instant ahora) {
+        Query query = new Query(where("id").is(id).and("expiraEn").lte(ahora));
+        return mongoTemplate.remove(query, Reserva.class).getDeletedCount() == 1;
+    }
+}
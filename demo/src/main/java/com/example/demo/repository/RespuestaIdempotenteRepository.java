@@ -0,0 +1,15 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.RespuestaIdempotente;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface RespuestaIdempotenteRepository extends MongoRepository<RespuestaIdempotente, String>,
+        RespuestaIdempotenteRepositoryCustom {
+
+    // Elimina un registro vencido que el monitor TTL de MongoDB todavía no borró
+    long deleteByIdAndExpiraEnBefore(String id, Instant ahora);
+}
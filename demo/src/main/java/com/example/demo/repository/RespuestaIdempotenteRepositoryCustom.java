@@ -0,0 +1,15 @@
+package com.example.demo.repository;
+
+import java.time.Instant;
+
+/**
+ * Actualización condicional del registro de una ejecución idempotente en curso
+ */
+public interface RespuestaIdempotenteRepositoryCustom {
+
+    /**
+     * Extiende el vencimiento del registro sólo si sigue EN_CURSO (una respuesta ya completada o
+     * un registro eliminado no se modifica). Devuelve false si no se aplicó.
+     */
+    boolean renovarEnCurso(String id, Instant expiraEn);
+}
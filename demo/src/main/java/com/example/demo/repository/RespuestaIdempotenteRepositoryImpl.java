@@ -0,0 +1,24 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.RespuestaIdempotente;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+class RespuestaIdempotenteRepositoryImpl implements RespuestaIdempotenteRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean renovarEnCurso(String id, Instant expiraEn) {
+        Query query = new Query(where("id").is(id).and("estado").is(RespuestaIdempotente.EN_CURSO));
+        Update update = new Update().set("expiraEn", expiraEn);
+        return mongoTemplate.updateFirst(query, update, RespuestaIdempotente.class).getMatchedCount() == 1;
+    }
+}
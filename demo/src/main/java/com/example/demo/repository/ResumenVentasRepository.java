@@ -0,0 +1,9 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ResumenVentas;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ResumenVentasRepository extends MongoRepository<ResumenVentas, String>, ResumenVentasRepositoryCustom {
+}
@@ -0,0 +1,29 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ResumenVentas;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Escrituras de los acumulados de ventas: incrementos atómicos por documento, sin leerlos antes
+ */
+public interface ResumenVentasRepositoryCustom {
+
+    /**
+     * Suma los contadores de cada aporte a su acumulado (lo crea si no existe) en un solo bulk
+     */
+    void incrementar(Collection<ResumenVentas> aportes);
+
+    /**
+     * Reemplaza los contadores por los recalculados y elimina los acumulados que no se
+     * actualizaron desde el inicio de la reconstrucción (días o claves que ya no tienen ventas)
+     */
+    void reemplazar(Collection<ResumenVentas> resumenes, Instant inicio);
+
+    /**
+     * Acumulados de todas las dimensiones entre dos días (yyyy-MM-dd, ambos incluidos)
+     */
+    List<ResumenVentas> buscarEntre(String desde, String hasta);
+}
@@ -0,0 +1,85 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ResumenVentas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+class ResumenVentasRepositoryImpl implements ResumenVentasRepositoryCustom {
+
+    private static final int TAMANO_LOTE = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void incrementar(Collection<ResumenVentas> aportes) {
+        if (aportes.isEmpty()) {
+            return;
+        }
+        Instant ahora = Instant.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ResumenVentas.class);
+        for (ResumenVentas aporte : aportes) {
+            Update update = new Update()
+                    .inc("pedidos", aporte.getPedidos())
+                    .inc("unidades", aporte.getUnidades())
+                    .inc("ingresos", aporte.getIngresos())
+                    .set("actualizadoEn", ahora)
+                    .setOnInsert("dia", aporte.getDia())
+                    .setOnInsert("dimension", aporte.getDimension())
+                    .setOnInsert("clave", aporte.getClave());
+            if (aporte.getNombre() != null) {
+                update.set("nombre", aporte.getNombre());
+            }
+            bulk.upsert(new Query(where("id").is(aporte.getId())), update);
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public void reemplazar(Collection<ResumenVentas> resumenes, Instant inicio) {
+        BulkOperations bulk = null;
+        int enLote = 0;
+        for (ResumenVentas resumen : resumenes) {
+            if (bulk == null) {
+                bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ResumenVentas.class);
+            }
+            bulk.upsert(new Query(where("id").is(resumen.getId())), new Update()
+                    .set("dia", resumen.getDia())
+                    .set("dimension", resumen.getDimension())
+                    .set("clave", resumen.getClave())
+                    .set("nombre", resumen.getNombre())
+                    .set("pedidos", resumen.getPedidos())
+                    .set("unidades", resumen.getUnidades())
+                    .set("ingresos", resumen.getIngresos())
+                    .set("actualizadoEn", inicio));
+            if (++enLote == TAMANO_LOTE) {
+                bulk.execute();
+                bulk = null;
+                enLote = 0;
+            }
+        }
+        if (bulk != null) {
+            bulk.execute();
+        }
+        mongoTemplate.remove(new Query(new Criteria().orOperator(
+                where("actualizadoEn").lt(inicio),
+                where("actualizadoEn").exists(false))), ResumenVentas.class);
+    }
+
+    @Override
+    public List<ResumenVentas> buscarEntre(String desde, String hasta) {
+        Query query = new Query(where("dia").gte(desde).lte(hasta)).with(Sort.by("dia"));
+        return mongoTemplate.find(query, ResumenVentas.class);
+    }
+}
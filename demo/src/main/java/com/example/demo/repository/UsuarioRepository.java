@@ -1,13 +1,24 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.Usuario;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UsuarioRepository extends MongoRepository<Usuario, String> {
     Optional<Usuario> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    // Proyección mínima: sólo la versión de token, sin resolver los roles
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'tokenVersion': 1 }")
+    Optional<Usuario> findTokenVersionById(String id);
+
+    // Paginación por cursor sobre _id (ascendente)
+    List<Usuario> findAllByOrderByIdAsc(Limit limit);
+    List<Usuario> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
@@ -0,0 +1,112 @@
+package com.example.demo.repository.memoria;
+
+import com.example.demo.entity.CarritoItem;
+import com.example.demo.entity.ProductoSnapshot;
+import com.example.demo.repository.CarritoItemRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@Profile("memoria")
+public class CarritoItemRepositoryEnMemoria extends RepositorioEnMemoria<CarritoItem> implements CarritoItemRepository {
+
+    private final IndiceSecundario<CarritoItem> porUsuario = indice("usuarioId", CarritoItem::getUsuarioId);
+    private final IndiceSecundario<CarritoItem> porProducto = indice("producto", CarritoItemRepositoryEnMemoria::productoId);
+
+    @Override
+    protected String obtenerId(CarritoItem item) {
+        return item.getId();
+    }
+
+    @Override
+    protected void asignarId(CarritoItem item, String id) {
+        item.setId(id);
+    }
+
+    @Override
+    protected CarritoItem copiar(CarritoItem item) {
+        CarritoItem copia = new CarritoItem(item.getUsuarioId(), copiar(item.getProducto()), item.getCantidad());
+        copia.setId(item.getId());
+        return copia;
+    }
+
+    static ProductoSnapshot copiar(ProductoSnapshot snapshot) {
+        return snapshot == null ? null : new ProductoSnapshot(snapshot.toProducto());
+    }
+
+    private static String productoId(CarritoItem item) {
+        return item.getProducto() != null ? item.getProducto().getId() : null;
+    }
+
+    @Override
+    public List<CarritoItem> findByUsuarioId(String usuarioId) {
+        return buscar(porUsuario.buscar(usuarioId), item -> usuarioId.equals(item.getUsuarioId()));
+    }
+
+    @Override
+    public Optional<CarritoItem> findByUsuarioIdAndProductoId(String usuarioId, String productoId) {
+        return buscar(porUsuario.buscar(usuarioId),
+                item -> usuarioId.equals(item.getUsuarioId()) && productoId.equals(productoId(item)))
+                .stream().findFirst();
+    }
+
+    @Override
+    public void deleteByUsuarioId(String usuarioId) {
+        escritura.lock();
+        try {
+            List.copyOf(porUsuario.buscar(usuarioId)).forEach(this::quitar);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @Override
+    public void deleteByProductoId(String productoId) {
+        escritura.lock();
+        try {
+            List.copyOf(porProducto.buscar(productoId)).forEach(this::quitar);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @Override
+    public long actualizarSnapshotProducto(ProductoSnapshot snapshot) {
+        escritura.lock();
+        try {
+            long actualizadas = 0;
+            for (String id : List.copyOf(porProducto.buscar(snapshot.getId()))) {
+                CarritoItem item = copiar(datos.get(id));
+                item.setProducto(copiar(snapshot));
+                guardar(item);
+                actualizadas++;
+            }
+            return actualizadas;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @Override
+    public void aplicarCambios(String usuarioId, List<CarritoItem> lineas, Collection<String> productosQuitados) {
+        escritura.lock();
+        try {
+            for (CarritoItem linea : lineas) {
+                CarritoItem item = findByUsuarioIdAndProductoId(usuarioId, linea.getProducto().getId())
+                        .orElseGet(() -> new CarritoItem(usuarioId, (ProductoSnapshot) null, 0));
+                item.setProducto(copiar(linea.getProducto()));
+                item.setCantidad(linea.getCantidad());
+                save(item);
+            }
+            for (String productoId : productosQuitados) {
+                findByUsuarioIdAndProductoId(usuarioId, productoId).ifPresent(item -> quitar(item.getId()));
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.demo.repository.memoria;
+
+import com.example.demo.entity.Carrito;
+import com.example.demo.entity.CarritoItem;
+import com.example.demo.entity.CarritoLinea;
+import com.example.demo.entity.ProductoSnapshot;
+import com.example.demo.repository.CarritoRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+@Repository
+@Profile("memoria")
+public class CarritoRepositoryEnMemoria extends RepositorioEnMemoria<Carrito> implements CarritoRepository {
+
+    private final IndiceSecundario<Carrito> porProducto = indice("producto", carrito -> {
+        List<String> productos = new ArrayList<>();
+        for (CarritoLinea linea : carrito.getItems()) {
+            productos.add(productoId(linea));
+        }
+        return productos;
+    }, false);
+
+    @Override
+    protected String obtenerId(Carrito carrito) {
+        return carrito.getUsuarioId();
+    }
+
+    @Override
+    protected void asignarId(Carrito carrito, String id) {
+        carrito.setUsuarioId(id);
+    }
+
+    @Override
+    protected Carrito copiar(Carrito carrito) {
+        Carrito copia = new Carrito(carrito.getUsuarioId());
+        if (carrito.getItems() != null) {
+            for (CarritoLinea linea : carrito.getItems()) {
+                copia.getItems().add(new CarritoLinea(CarritoItemRepositoryEnMemoria.copiar(linea.getProducto()),
+                        linea.getCantidad()));
+            }
+        }
+        return copia;
+    }
+
+    private static String productoId(CarritoLinea linea) {
+        return linea.getProducto() != null ? linea.getProducto().getId() : null;
+    }
+
+    private static CarritoLinea buscarLinea(Carrito carrito, String productoId) {
+        for (CarritoLinea linea : carrito.getItems()) {
+            if (Objects.equals(productoId, productoId(linea))) {
+                return linea;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Carrito agregarProducto(String usuarioId, ProductoSnapshot producto, int cantidad) {
+        escritura.lock();
+        try {
+            Carrito carrito = findById(usuarioId).orElseGet(() -> new Carrito(usuarioId));
+            CarritoLinea linea = buscarLinea(carrito, producto.getId());
+            if (linea != null) {
+                linea.setCantidad(linea.getCantidad() + cantidad);
+            } else {
+                carrito.getItems().add(new CarritoLinea(CarritoItemRepositoryEnMemoria.copiar(producto), cantidad));
+            }
+            guardar(carrito);
+            return carrito;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @Override
+    public Carrito establecerCantidad(String usuarioId, String productoId, int cantidad) {
+        return modificar(usuarioId, carrito -> {
+            CarritoLinea linea = buscarLinea(carrito, productoId);
+            if (linea == null) {
+                return null;
+            }
+            linea.setCantidad(cantidad);
+            return carrito;
+        });
+    }
+
+    @Override
+    public Carrito quitarProducto(String usuarioId, String productoId) {
+        return modificar(usuarioId, carrito -> {
+            CarritoLinea linea = buscarLinea(carrito, productoId);
+            if (linea == null) {
+                return null;
+            }
+            carrito.getItems().remove(linea);
+            return carrito;
+        });
+    }
+
+    @Override
+    public void aplicarCambios(String usuarioId, List<CarritoItem> lineas, Collection<String> productosQuitados) {
+        if (lineas.isEmpty() && productosQuitados.isEmpty()) {
+            return;
+        }
+        escritura.lock();
+        try {
+            Carrito carrito = findById(usuarioId).orElseGet(() -> new Carrito(usuarioId));
+            for (CarritoItem item : lineas) {
+                CarritoLinea linea = buscarLinea(carrito, item.getProducto().getId());
+                if (linea == null) {
+                    linea = new CarritoLinea();
+                    carrito.getItems().add(linea);
+                }
+                linea.setProducto(CarritoItemRepositoryEnMemoria.copiar(item.getProducto()));
+                linea.setCantidad(item.getCantidad());
+            }
+            carrito.getItems().removeIf(linea -> productosQuitados.contains(productoId(linea)));
+            guardar(carrito);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @Override
+    public long actualizarSnapshotProducto(ProductoSnapshot snapshot) {
+        escritura.lock();
+        try {
+            long actualizados = 0;
+            for (String usuarioId : List.copyOf(porProducto.buscar(snapshot.getId()))) {
+                Carrito carrito = copiar(datos.get(usuarioId));
+                for (CarritoLinea linea : carrito.getItems()) {
+                    if (snapshot.getId().equals(productoId(linea))) {
+                        linea.setProducto(CarritoItemRepositoryEnMemoria.copiar(snapshot));
+                    }
+                }
+                guardar(carrito);
+                actualizados++;
+            }
+            return actualizados;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @Override
+    public long quitarProductoDeTodos(String productoId) {
+        escritura.lock();
+        try {
+            long actualizados = 0;
+            for (String usuarioId : List.copyOf(porProducto.buscar(productoId))) {
+                Carrito carrito = copiar(datos.get(usuarioId));
+                carrito.getItems().removeIf(linea -> productoId.equals(productoId(linea)));
+                guardar(carrito);
+                actualizados++;
+            }
+            return actualizados;
+        } finally {
+            escritura.unlock();
+        }
+    }
+}
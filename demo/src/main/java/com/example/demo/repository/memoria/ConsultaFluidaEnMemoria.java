@@ -0,0 +1,156 @@
+package com.example.demo.repository.memoria;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * findBy(Example, ...) de los repositorios en memoria: ordena, limita y proyecta las entidades
+ * que coinciden con el ejemplo. Es inmutable; cada sortBy/limit/as/project devuelve una copia.
+ *
+ * project(...) deja en null las propiedades no pedidas (como la proyección de campos de
+ * MongoDB) y as(...) acepta interfaces de proyección y clases DTO con constructor sin argumentos
+ * o con parámetros nombrados como las propiedades.
+ */
+class ConsultaFluidaEnMemoria<T> implements FluentQuery.FetchableFluentQuery<T> {
+
+    private static final SpelAwareProxyProjectionFactory PROYECCIONES = new SpelAwareProxyProjectionFactory();
+
+    private final Supplier<? extends List<?>> coincidencias;
+    private final Class<T> tipo;
+    private final Sort orden;
+    private final int limite;
+    private final Set<String> propiedades;
+
+    ConsultaFluidaEnMemoria(Supplier<? extends List<?>> coincidencias, Class<T> tipo) {
+        this(coincidencias, tipo, Sort.unsorted(), 0, Set.of());
+    }
+
+    private ConsultaFluidaEnMemoria(Supplier<? extends List<?>> coincidencias, Class<T> tipo, Sort orden,
+                                    int limite, Set<String> propiedades) {
+        this.coincidencias = coincidencias;
+        this.tipo = tipo;
+        this.orden = orden;
+        this.limite = limite;
+        this.propiedades = propiedades;
+    }
+
+    @Override
+    public FetchableFluentQuery<T> sortBy(Sort sort) {
+        return new ConsultaFluidaEnMemoria<>(coincidencias, tipo, orden.and(sort), limite, propiedades);
+    }
+
+    @Override
+    public FetchableFluentQuery<T> limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("El límite no puede ser negativo");
+        }
+        return new ConsultaFluidaEnMemoria<>(coincidencias, tipo, orden, limit, propiedades);
+    }
+
+    @Override
+    public <R> FetchableFluentQuery<R> as(Class<R> resultType) {
+        return new ConsultaFluidaEnMemoria<>(coincidencias, resultType, orden, limite, propiedades);
+    }
+
+    @Override
+    public FetchableFluentQuery<T> project(Collection<String> properties) {
+        return new ConsultaFluidaEnMemoria<>(coincidencias, tipo, orden, limite, Set.copyOf(properties));
+    }
+
+    @Override
+    public T oneValue() {
+        List<T> resultado = all();
+        if (resultado.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, resultado.size());
+        }
+        return resultado.isEmpty() ? null : resultado.get(0);
+    }
+
+    @Override
+    public T firstValue() {
+        return stream().findFirst().orElse(null);
+    }
+
+    @Override
+    public List<T> all() {
+        return stream().toList();
+    }
+
+    @Override
+    public Page<T> page(Pageable pageable) {
+        List<Object> ordenadas = ordenadas(pageable.getSortOr(orden));
+        return RepositorioEnMemoria.paginar(ordenadas, pageable).map(this::proyectar);
+    }
+
+    @Override
+    public Stream<T> stream() {
+        Stream<Object> ordenadas = ordenadas(orden).stream();
+        return (limite > 0 ? ordenadas.limit(limite) : ordenadas).map(this::proyectar);
+    }
+
+    @Override
+    public long count() {
+        return coincidencias.get().size();
+    }
+
+    @Override
+    public boolean exists() {
+        return !coincidencias.get().isEmpty();
+    }
+
+    private List<Object> ordenadas(Sort sort) {
+        List<Object> entidades = new ArrayList<>(coincidencias.get());
+        entidades.sort(RepositorioEnMemoria.comparador(sort));
+        return entidades;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T proyectar(Object entidad) {
+        Object origen = propiedades.isEmpty() ? entidad : soloPropiedades(entidad);
+        if (tipo.isInstance(origen)) {
+            return (T) origen;
+        }
+        if (tipo.isInterface()) {
+            return PROYECCIONES.createProjection(tipo, origen);
+        }
+        BeanWrapper fuente = new BeanWrapperImpl(origen);
+        Constructor<T> constructor = BeanUtils.getResolvableConstructor(tipo);
+        if (constructor.getParameterCount() == 0) {
+            T dto = BeanUtils.instantiateClass(constructor);
+            BeanUtils.copyProperties(origen, dto);
+            return dto;
+        }
+        String[] nombres = BeanUtils.getParameterNames(constructor);
+        Object[] argumentos = new Object[nombres.length];
+        for (int i = 0; i < nombres.length; i++) {
+            argumentos[i] = fuente.isReadableProperty(nombres[i]) ? fuente.getPropertyValue(nombres[i]) : null;
+        }
+        return BeanUtils.instantiateClass(constructor, argumentos);
+    }
+
+    private Object soloPropiedades(Object entidad) {
+        BeanWrapper fuente = new BeanWrapperImpl(entidad);
+        BeanWrapper copia = new BeanWrapperImpl(BeanUtils.instantiateClass(entidad.getClass()));
+        for (String propiedad : propiedades) {
+            if (fuente.isReadableProperty(propiedad) && copia.isWritableProperty(propiedad)) {
+                copia.setPropertyValue(propiedad, fuente.getPropertyValue(propiedad));
+            }
+        }
+        return copia.getWrappedInstance();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.repository.memoria;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Versión reactiva de ConsultaFluidaEnMemoria para el repositorio reactivo del catálogo: cada
+ * operación se evalúa al suscribirse
+ */
+class ConsultaFluidaReactivaEnMemoria<T> implements FluentQuery.ReactiveFluentQuery<T> {
+
+    private final FluentQuery.FetchableFluentQuery<T> consulta;
+
+    ConsultaFluidaReactivaEnMemoria(FluentQuery.FetchableFluentQuery<T> consulta) {
+        this.consulta = consulta;
+    }
+
+    @Override
+    public ReactiveFluentQuery<T> sortBy(Sort sort) {
+        return new ConsultaFluidaReactivaEnMemoria<>(consulta.sortBy(sort));
+    }
+
+    @Override
+    public ReactiveFluentQuery<T> limit(int limit) {
+        return new ConsultaFluidaReactivaEnMemoria<>(consulta.limit(limit));
+    }
+
+    @Override
+    public <R> ReactiveFluentQuery<R> as(Class<R> resultType) {
+        return new ConsultaFluidaReactivaEnMemoria<>(consulta.as(resultType));
+    }
+
+    @Override
+    public ReactiveFluentQuery<T> project(Collection<String> properties) {
+        return new ConsultaFluidaReactivaEnMemoria<>(consulta.project(properties));
+    }
+
+    @Override
+    public Mono<T> one() {
+        return Mono.fromSupplier(consulta::oneValue);
+    }
+
+    @Override
+    public Mono<T> first() {
+        return Mono.fromSupplier(consulta::firstValue);
+    }
+
+    @Override
+    public Flux<T> all() {
+        return Flux.defer(() -> Flux.fromIterable(consulta.all()));
+    }
+
+    @Override
+    public Mono<Page<T>> page(Pageable pageable) {
+        return Mono.fromSupplier(() -> consulta.page(pageable));
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.fromSupplier(consulta::count);
+    }
+
+    @Override
+    public Mono<Boolean> exists() {
+        return Mono.fromSupplier(consulta::exists);
+    }
+}
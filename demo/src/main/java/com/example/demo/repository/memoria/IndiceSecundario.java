@@ -0,0 +1,72 @@
+package com.example.demo.repository.memoria;
+
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Índice secundario de un repositorio en memoria: clave -> IDs de las entidades con esa clave.
+ * Lo mantiene RepositorioEnMemoria dentro de su lock de escritura; las lecturas son concurrentes.
+ */
+public class IndiceSecundario<T> {
+
+    private final String nombre;
+    private final Function<T, Collection<String>> claves;
+    private final boolean unico;
+    private final Map<String, Set<String>> ids = new ConcurrentHashMap<>();
+
+    IndiceSecundario(String nombre, Function<T, Collection<String>> claves, boolean unico) {
+        this.nombre = nombre;
+        this.claves = claves;
+        this.unico = unico;
+    }
+
+    /**
+     * IDs de las entidades con la clave indicada (vista de sólo lectura, puede cambiar mientras se recorre)
+     */
+    public Set<String> buscar(String clave) {
+        if (clave == null) {
+            return Set.of();
+        }
+        Set<String> encontrados = ids.get(clave);
+        return encontrados == null ? Set.of() : java.util.Collections.unmodifiableSet(encontrados);
+    }
+
+    void verificarUnico(String id, T entidad) {
+        if (!unico) {
+            return;
+        }
+        for (String clave : claves.apply(entidad)) {
+            for (String otro : buscar(clave)) {
+                if (!Objects.equals(otro, id)) {
+                    throw new DuplicateKeyException("Clave duplicada en el índice " + nombre + ": " + clave);
+                }
+            }
+        }
+    }
+
+    void actualizar(String id, T anterior, T nueva) {
+        Collection<String> clavesAnteriores = anterior == null ? Set.of() : claves.apply(anterior);
+        Collection<String> clavesNuevas = nueva == null ? Set.of() : claves.apply(nueva);
+        for (String clave : clavesAnteriores) {
+            if (!clavesNuevas.contains(clave)) {
+                ids.computeIfPresent(clave, (c, conjunto) -> {
+                    conjunto.remove(id);
+                    return conjunto.isEmpty() ? null : conjunto;
+                });
+            }
+        }
+        for (String clave : clavesNuevas) {
+            ids.computeIfAbsent(clave, c -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    void limpiar() {
+        ids.clear();
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.demo.repository.memoria;
+
+import com.example.demo.dto.PedidoResumen;
+import com.example.demo.entity.Pedido;
+import com.example.demo.entity.PedidoItem;
+import com.example.demo.entity.Producto;
+import com.example.demo.entity.ResumenVentas;
+import com.example.demo.repository.PedidoRepository;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Repository
+@Profile("memoria")
+public class PedidoRepositoryEnMemoria extends RepositorioEnMemoria<Pedido> implements PedidoRepository {
+
+    private static final Comparator<Pedido> POR_FECHA_DESC =
+            Comparator.comparing(Pedido::getFecha, Comparator.nullsLast(Comparator.reverseOrder()));
+    private static final Comparator<Pedido> POR_FECHA_E_ID_DESC =
+            POR_FECHA_DESC.thenComparing(Pedido::getId, Comparator.reverseOrder());
+
+    private final IndiceSecundario<Pedido> porUsuario = indice("usuarioId", Pedido::getUsuarioId);
+    private final IndiceSecundario<Pedido> porEstado = indice("estado", Pedido::getEstado);
+
+    @Override
+    protected String obtenerId(Pedido pedido) {
+        return pedido.getId();
+    }
+
+    @Override
+    protected void asignarId(Pedido pedido, String id) {
+        pedido.setId(id);
+    }
+
+    @Override
+    protected Pedido copiar(Pedido pedido) {
+        Pedido copia = new Pedido(pedido.getUsuarioId(), pedido.getTotal());
+        copia.setId(pedido.getId());
+        copia.setFecha(pedido.getFecha());
+        copia.setEstado(pedido.getEstado());
+        copia.setMetodoPago(pedido.getMetodoPago());
+        copia.setNumeroOrden(pedido.getNumeroOrden());
+        copia.setCodigoAutorizacion(pedido.getCodigoAutorizacion());
+        copia.setCodigoRespuesta(pedido.getCodigoRespuesta());
+        copia.setFechaPago(pedido.getFechaPago());
+        copia.setDetallesTarjeta(pedido.getDetallesTarjeta());
+        copia.setTipoTarjeta(pedido.getTipoTarjeta());
+        copia.setCuotas(pedido.getCuotas());
+        List<PedidoItem> items = new ArrayList<>();
+        for (PedidoItem item : pedido.getItems()) {
+            Producto producto = item.getProducto() != null ? new Producto(item.getProducto()) : null;
+            PedidoItem copiaItem = new PedidoItem(producto, item.getCantidad(), item.getPrecioUnitario());
+            copiaItem.setProductoId(item.getProductoId());
+            copiaItem.setNombre(item.getNombre());
+            copiaItem.setCategoria(item.getCategoria());
+            items.add(copiaItem);
+        }
+        copia.setItems(items);
+        return copia;
+    }
+
+    @Override
+    public List<Pedido> findByUsuarioIdOrderByFechaDesc(String usuarioId) {
+        List<Pedido> pedidos = buscar(porUsuario.buscar(usuarioId), pedido -> usuarioId.equals(pedido.getUsuarioId()));
+        pedidos.sort(POR_FECHA_DESC);
+        return pedidos;
+    }
+
+    @Override
+    public List<Pedido> findByEstado(String estado) {
+        return buscar(porEstado.buscar(estado), pedido -> estado.equals(pedido.getEstado()));
+    }
+
+    @Override
+    public List<Pedido> findByUsuarioIdAndEstadoOrderByFechaDesc(String usuarioId, String estado) {
+        List<Pedido> pedidos = buscar(porUsuario.buscar(usuarioId),
+                pedido -> usuarioId.equals(pedido.getUsuarioId()) && estado.equals(pedido.getEstado()));
+        pedidos.sort(POR_FECHA_DESC);
+        return pedidos;
+    }
+
+    @Override
+    public List<Pedido> findAllByOrderByIdDesc(Limit limit) {
+        return buscarPorRangoDeId(null, false, limit);
+    }
+
+    @Override
+    public List<Pedido> findByIdLessThanOrderByIdDesc(String id, Limit limit) {
+        return buscarPorRangoDeId(id, false, limit);
+    }
+
+    @Override
+    public List<PedidoResumen> buscarResumenes(String usuarioId, LocalDateTime fecha, String id, int limite) {
+        return buscar(porUsuario.buscar(usuarioId), pedido -> usuarioId.equals(pedido.getUsuarioId())
+                && (fecha == null || pedido.getFecha() != null && (pedido.getFecha().isBefore(fecha)
+                        || pedido.getFecha().isEqual(fecha) && pedido.getId().compareTo(id) < 0)))
+                .stream()
+                .sorted(POR_FECHA_E_ID_DESC)
+                .limit(limite)
+                .map(PedidoRepositoryEnMemoria::resumir)
+                .toList();
+    }
+
+    private static PedidoResumen resumir(Pedido pedido) {
+        PedidoResumen resumen = new PedidoResumen();
+        resumen.setId(pedido.getId());
+        resumen.setFecha(pedido.getFecha());
+        resumen.setEstado(pedido.getEstado());
+        resumen.setTotal(pedido.getTotal());
+        resumen.setNumeroOrden(pedido.getNumeroOrden());
+        resumen.setCantidadItems(pedido.getItems() != null ? pedido.getItems().size() : 0);
+        return resumen;
+    }
+
+    /**
+     * Las fechas ya están en hora local, por lo que el día es el de la fecha del pedido
+     */
+    @Override
+    public List<ResumenVentas> calcularResumenVentas(ZoneId zona) {
+        Map<String, ResumenVentas> resumenes = new LinkedHashMap<>();
+        for (Pedido pedido : findAll()) {
+            for (ResumenVentas aporte : ResumenVentas.aportes(pedido, pedido.getEstado(), 1)) {
+                ResumenVentas resumen = resumenes.putIfAbsent(aporte.getId(), aporte);
+                if (resumen != null) {
+                    resumen.sumar(aporte.getPedidos(), aporte.getUnidades(), aporte.getIngresos());
+                }
+            }
+        }
+        return new ArrayList<>(resumenes.values());
+    }
+
+    @Override
+    public Stream<Pedido> recorrerParaExportar(LocalDateTime desde, LocalDateTime hasta, String estado, int lote) {
+        return datos.values().stream()
+                .filter(pedido -> pedido.getFecha() != null
+                        && (desde == null || !pedido.getFecha().isBefore(desde))
+                        && (hasta == null || pedido.getFecha().isBefore(hasta))
+                        && (estado == null || estado.equals(pedido.getEstado())))
+                .sorted(Comparator.comparing(Pedido::getFecha).thenComparing(Pedido::getId))
+                .map(this::copiar);
+    }
+
+    @Override
+    public CambioEstado cambiarEstado(String pedidoId, String usuarioId, Collection<String> estadosOrigen,
+                                      String nuevoEstado, Map<String, Object> campos) {
+        String[] anterior = new String[1];
+        Pedido actualizado = modificar(pedidoId, pedido -> {
+            if (!estadosOrigen.contains(pedido.getEstado())
+                    || (usuarioId != null && !usuarioId.equals(pedido.getUsuarioId()))) {
+                return null;
+            }
+            anterior[0] = pedido.getEstado();
+            pedido.setEstado(nuevoEstado);
+            BeanWrapperImpl wrapper = new BeanWrapperImpl(pedido);
+            campos.forEach(wrapper::setPropertyValue);
+            return pedido;
+        });
+        return actualizado == null ? null : new CambioEstado(actualizado, anterior[0]);
+    }
+}
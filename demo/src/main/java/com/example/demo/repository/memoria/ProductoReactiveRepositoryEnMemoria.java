@@ -0,0 +1,181 @@
+package com.example.demo.repository.memoria;
+
+import com.example.demo.entity.Producto;
+import com.example.demo.repository.ProductoReactiveRepository;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Vista reactiva del catálogo en memoria para la API /api/catalogo: delega en el repositorio
+ * bloqueante del perfil (las operaciones son en memoria, no bloquean el hilo)
+ */
+@Repository
+@Profile("memoria")
+public class ProductoReactiveRepositoryEnMemoria implements ProductoReactiveRepository {
+
+    @Autowired
+    private ProductoRepositoryEnMemoria productos;
+
+    @Override
+    public Flux<Producto> findAllByOrderByIdAsc() {
+        return Flux.defer(() -> Flux.fromIterable(productos.findAll()));
+    }
+
+    @Override
+    public Flux<Producto> findByCategoriaOrderByIdAsc(String categoria) {
+        return Flux.defer(() -> Flux.fromIterable(productos.findByCategoria(categoria)))
+                .sort((a, b) -> a.getId().compareTo(b.getId()));
+    }
+
+    @Override
+    public Mono<Producto> findById(String id) {
+        return Mono.defer(() -> Mono.justOrEmpty(productos.findById(id)));
+    }
+
+    @Override
+    public Mono<Producto> findById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        return Mono.fromSupplier(() -> productos.existsById(id));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<Producto> findAll() {
+        return findAllByOrderByIdAsc();
+    }
+
+    @Override
+    public Flux<Producto> findAll(Sort sort) {
+        return Flux.defer(() -> Flux.fromIterable(productos.findAll(sort)));
+    }
+
+    @Override
+    public Flux<Producto> findAllById(Iterable<String> ids) {
+        return Flux.defer(() -> Flux.fromIterable(productos.findAllById(ids)));
+    }
+
+    @Override
+    public Flux<Producto> findAllById(Publisher<String> ids) {
+        return Flux.from(ids).concatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.fromSupplier(productos::count);
+    }
+
+    @Override
+    public <S extends Producto> Flux<S> findAll(Example<S> example) {
+        return Flux.defer(() -> Flux.fromIterable(productos.findAll(example)));
+    }
+
+    @Override
+    public <S extends Producto> Flux<S> findAll(Example<S> example, Sort sort) {
+        return Flux.defer(() -> Flux.fromIterable(productos.findAll(example, sort)));
+    }
+
+    @Override
+    public <S extends Producto> Mono<S> findOne(Example<S> example) {
+        return Mono.defer(() -> Mono.justOrEmpty(productos.findOne(example)));
+    }
+
+    @Override
+    public <S extends Producto> Mono<Long> count(Example<S> example) {
+        return Mono.fromSupplier(() -> productos.count(example));
+    }
+
+    @Override
+    public <S extends Producto> Mono<Boolean> exists(Example<S> example) {
+        return Mono.fromSupplier(() -> productos.exists(example));
+    }
+
+    @Override
+    public <S extends Producto, R, P extends Publisher<R>> P findBy(Example<S> example,
+            Function<FluentQuery.ReactiveFluentQuery<S>, P> queryFunction) {
+        return queryFunction.apply(new ConsultaFluidaReactivaEnMemoria<>(productos.consultaPorEjemplo(example)));
+    }
+
+    // Escrituras: /api/catalogo sólo lee, pero se implementan para cumplir el contrato del repositorio
+
+    @Override
+    public <S extends Producto> Mono<S> insert(S entity) {
+        return Mono.fromSupplier(() -> productos.insert(entity));
+    }
+
+    @Override
+    public <S extends Producto> Flux<S> insert(Iterable<S> entities) {
+        return Flux.defer(() -> Flux.fromIterable(productos.insert(entities)));
+    }
+
+    @Override
+    public <S extends Producto> Flux<S> insert(Publisher<S> entities) {
+        return Flux.from(entities).concatMap(this::insert);
+    }
+
+    @Override
+    public <S extends Producto> Mono<S> save(S entity) {
+        return Mono.fromSupplier(() -> productos.save(entity));
+    }
+
+    @Override
+    public <S extends Producto> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.defer(() -> Flux.fromIterable(productos.saveAll(entities)));
+    }
+
+    @Override
+    public <S extends Producto> Flux<S> saveAll(Publisher<S> entities) {
+        return Flux.from(entities).concatMap(this::save);
+    }
+
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return Mono.fromRunnable(() -> productos.deleteById(id));
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(Producto entity) {
+        return Mono.fromRunnable(() -> productos.delete(entity));
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends String> ids) {
+        return Mono.fromRunnable(() -> productos.deleteAllById(ids));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends Producto> entities) {
+        return Mono.fromRunnable(() -> productos.deleteAll(entities));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends Producto> entities) {
+        return Flux.from(entities).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return Mono.fromRunnable(productos::deleteAll);
+    }
+}
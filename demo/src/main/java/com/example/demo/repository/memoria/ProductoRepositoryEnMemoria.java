@@ -0,0 +1,190 @@
+package com.example.demo.repository.memoria;
+
+import com.example.demo.entity.Producto;
+import com.example.demo.repository.ProductoRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@Profile("memoria")
+public class ProductoRepositoryEnMemoria extends RepositorioEnMemoria<Producto> implements ProductoRepository {
+
+    private final IndiceSecundario<Producto> porCategoria = indice("categoria", Producto::getCategoria);
+
+    @Override
+    protected String obtenerId(Producto producto) {
+        return producto.getId();
+    }
+
+    @Override
+    protected void asignarId(Producto producto, String id) {
+        producto.setId(id);
+    }
+
+    @Override
+    protected Producto copiar(Producto producto) {
+        return new Producto(producto);
+    }
+
+    @Override
+    public List<Producto> findByCategoria(String categoria) {
+        return buscar(porCategoria.buscar(categoria), producto -> categoria.equals(producto.getCategoria()));
+    }
+
+    @Override
+    public List<Producto> findByNombreContainingIgnoreCase(String nombre) {
+        String buscado = nombre.toLowerCase();
+        return buscar(idsOrdenados, producto -> producto.getNombre() != null
+                && producto.getNombre().toLowerCase().contains(buscado));
+    }
+
+    @Override
+    public List<Producto> findAllByOrderByIdAsc(Limit limit) {
+        return buscarPorRangoDeId(null, true, limit);
+    }
+
+    @Override
+    public List<Producto> findByIdGreaterThanOrderByIdAsc(String id, Limit limit) {
+        return buscarPorRangoDeId(id, true, limit);
+    }
+
+    @Override
+    public boolean descontarStock(String productoId, int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad a descontar debe ser mayor a 0");
+        }
+        return modificar(productoId, producto -> {
+            if (disponible(producto, 0) < cantidad) {
+                return null;
+            }
+            producto.setStock(producto.getStock() - cantidad);
+            return producto;
+        }) != null;
+    }
+
+    @Override
+    public boolean reponerStock(String productoId, int cantidad) {
+        if (cantidad < 0) {
+            throw new IllegalArgumentException("La cantidad a reponer no puede ser negativa");
+        }
+        return modificar(productoId, producto -> {
+            producto.setStock(producto.getStock() + cantidad);
+            return producto;
+        }) != null;
+    }
+
+    @Override
+    public String descontarStockEnLote(Map<String, Integer> cantidades) {
+        return descontarEnLote(cantidades, Map.of(), false);
+    }
+
+    @Override
+    public void reponerStockEnLote(Map<String, Integer> cantidades) {
+        escritura.lock();
+        try {
+            cantidades.forEach(this::reponerStock);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @Override
+    public boolean reservarStock(String productoId, int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad a reservar debe ser mayor a 0");
+        }
+        return modificar(productoId, producto -> {
+            if (disponible(producto, 0) < cantidad) {
+                return null;
+            }
+            producto.setStockReservado(reservado(producto) + cantidad);
+            return producto;
+        }) != null;
+    }
+
+    @Override
+    public void liberarStockReservado(Map<String, Integer> cantidades) {
+        escritura.lock();
+        try {
+            cantidades.forEach((productoId, cantidad) -> modificar(productoId, producto -> {
+                producto.setStockReservado(reservado(producto) - cantidad);
+                return producto;
+            }));
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @Override
+    public String descontarStockReservadoEnLote(Map<String, Integer> cantidades, Map<String, Integer> reservadas) {
+        return descontarEnLote(cantidades, reservadas, true);
+    }
+
+    @Override
+    public void reponerStockReservadoEnLote(Map<String, Integer> cantidades, Map<String, Integer> reservadas) {
+        escritura.lock();
+        try {
+            cantidades.forEach((productoId, cantidad) -> modificar(productoId, producto -> {
+                producto.setStock(producto.getStock() + cantidad);
+                producto.setStockReservado(reservado(producto) + reservadas.getOrDefault(productoId, 0));
+                return producto;
+            }));
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Aplica las líneas una por una, cada una como un descuento condicional atómico, sin retener
+     * el lock entre líneas: otros checkouts se intercalan igual que entre los updates del bulk de
+     * MongoDB. Si una línea no alcanza se reponen las ya aplicadas y se devuelve su ID.
+     */
+    private String descontarEnLote(Map<String, Integer> cantidades, Map<String, Integer> reservadas,
+                                   boolean conReservas) {
+        for (Integer cantidad : cantidades.values()) {
+            if (cantidad <= 0) {
+                throw new IllegalArgumentException("La cantidad a descontar debe ser mayor a 0");
+            }
+        }
+        Map<String, Integer> aplicadas = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> linea : cantidades.entrySet()) {
+            String productoId = linea.getKey();
+            int cantidad = linea.getValue();
+            int reservadoPropio = reservadas.getOrDefault(productoId, 0);
+            Producto descontado = modificar(productoId, producto -> {
+                int alcanza = conReservas ? disponible(producto, reservadoPropio) : producto.getStock();
+                if (alcanza < cantidad) {
+                    return null;
+                }
+                producto.setStock(producto.getStock() - cantidad);
+                if (conReservas) {
+                    producto.setStockReservado(reservado(producto) - reservadoPropio);
+                }
+                return producto;
+            });
+            if (descontado == null) {
+                if (conReservas) {
+                    reponerStockReservadoEnLote(aplicadas, reservadas);
+                } else {
+                    reponerStockEnLote(aplicadas);
+                }
+                return productoId;
+            }
+            aplicadas.put(productoId, cantidad);
+        }
+        return null;
+    }
+
+    private static int reservado(Producto producto) {
+        return producto.getStockReservado() == null ? 0 : producto.getStockReservado();
+    }
+
+    private static int disponible(Producto producto, int reservadoPropio) {
+        return producto.getStock() - reservado(producto) + reservadoPropio;
+    }
+}
@@ -0,0 +1,381 @@
+package com.example.demo.repository.memoria;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Base de los repositorios del perfil "memoria": implementa las operaciones de MongoRepository
+ * sobre un ConcurrentHashMap, con índices secundarios y los IDs ordenados para las consultas
+ * paginadas por _id.
+ *
+ * Igual que con la base de datos, se guardan y se devuelven copias: modificar un objeto leído
+ * no cambia lo almacenado hasta que se guarda. Las lecturas no toman locks; las escrituras se
+ * serializan con un ReentrantLock para mantener los índices y las restricciones únicas
+ * consistentes con los datos.
+ */
+public abstract class RepositorioEnMemoria<T> {
+
+    protected final Map<String, T> datos = new ConcurrentHashMap<>();
+    protected final ConcurrentSkipListSet<String> idsOrdenados = new ConcurrentSkipListSet<>();
+    protected final ReentrantLock escritura = new ReentrantLock();
+    private final List<IndiceSecundario<T>> indices = new ArrayList<>();
+
+    protected abstract String obtenerId(T entidad);
+
+    protected abstract void asignarId(T entidad, String id);
+
+    protected abstract T copiar(T entidad);
+
+    /**
+     * Registra un índice secundario por una clave (puede haber varias claves por entidad)
+     */
+    protected IndiceSecundario<T> indice(String nombre, Function<T, Collection<String>> claves, boolean unico) {
+        IndiceSecundario<T> indice = new IndiceSecundario<>(nombre, claves, unico);
+        indices.add(indice);
+        return indice;
+    }
+
+    protected IndiceSecundario<T> indice(String nombre, Function<T, String> clave) {
+        return indice(nombre, entidad -> {
+            String valor = clave.apply(entidad);
+            return valor == null ? List.of() : List.of(valor);
+        }, false);
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Lecturas
+    // ---------------------------------------------------------------------------------------
+
+    public Optional<T> findById(String id) {
+        T entidad = id == null ? null : datos.get(id);
+        return Optional.ofNullable(entidad).map(this::copiar);
+    }
+
+    public boolean existsById(String id) {
+        return id != null && datos.containsKey(id);
+    }
+
+    public List<T> findAll() {
+        return buscar(idsOrdenados, entidad -> true);
+    }
+
+    public List<T> findAllById(Iterable<String> ids) {
+        List<T> resultado = new ArrayList<>();
+        for (String id : ids) {
+            T entidad = datos.get(id);
+            if (entidad != null) {
+                resultado.add(copiar(entidad));
+            }
+        }
+        return resultado;
+    }
+
+    public long count() {
+        return datos.size();
+    }
+
+    public List<T> findAll(Sort sort) {
+        List<T> resultado = findAll();
+        resultado.sort(comparador(sort));
+        return resultado;
+    }
+
+    public Page<T> findAll(Pageable pageable) {
+        return paginar(findAll(pageable.getSortOr(Sort.unsorted())), pageable);
+    }
+
+    /**
+     * Copias de las entidades con los IDs indicados que cumplen la condición
+     * (la condición se vuelve a evaluar porque el índice pudo cambiar mientras se leía)
+     */
+    protected List<T> buscar(Collection<String> ids, Predicate<T> condicion) {
+        List<T> resultado = new ArrayList<>();
+        for (String id : ids) {
+            T entidad = datos.get(id);
+            if (entidad != null && condicion.test(entidad)) {
+                resultado.add(copiar(entidad));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Recorre los IDs en orden ascendente o descendente desde un límite exclusivo opcional
+     */
+    protected List<T> buscarPorRangoDeId(String desde, boolean ascendente, Limit limit) {
+        Set<String> rango;
+        if (desde == null) {
+            rango = ascendente ? idsOrdenados : idsOrdenados.descendingSet();
+        } else {
+            rango = ascendente ? idsOrdenados.tailSet(desde, false) : idsOrdenados.headSet(desde, false).descendingSet();
+        }
+        int maximo = limit.isLimited() ? limit.max() : Integer.MAX_VALUE;
+        List<T> resultado = new ArrayList<>();
+        Iterator<String> it = rango.iterator();
+        while (it.hasNext() && resultado.size() < maximo) {
+            T entidad = datos.get(it.next());
+            if (entidad != null) {
+                resultado.add(copiar(entidad));
+            }
+        }
+        return resultado;
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Escrituras
+    // ---------------------------------------------------------------------------------------
+
+    public <S extends T> S save(S entidad) {
+        escritura.lock();
+        try {
+            if (obtenerId(entidad) == null) {
+                asignarId(entidad, new ObjectId().toHexString());
+            }
+            guardar(entidad);
+            return entidad;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    public <S extends T> List<S> saveAll(Iterable<S> entidades) {
+        List<S> resultado = new ArrayList<>();
+        for (S entidad : entidades) {
+            resultado.add(save(entidad));
+        }
+        return resultado;
+    }
+
+    public <S extends T> S insert(S entidad) {
+        escritura.lock();
+        try {
+            String id = obtenerId(entidad);
+            if (id != null && datos.containsKey(id)) {
+                throw new DuplicateKeyException("Ya existe un documento con _id " + id);
+            }
+            return save(entidad);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    public <S extends T> List<S> insert(Iterable<S> entidades) {
+        List<S> resultado = new ArrayList<>();
+        for (S entidad : entidades) {
+            resultado.add(insert(entidad));
+        }
+        return resultado;
+    }
+
+    public void deleteById(String id) {
+        escritura.lock();
+        try {
+            quitar(id);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    public void delete(T entidad) {
+        deleteById(obtenerId(entidad));
+    }
+
+    public void deleteAllById(Iterable<? extends String> ids) {
+        for (String id : ids) {
+            deleteById(id);
+        }
+    }
+
+    public void deleteAll(Iterable<? extends T> entidades) {
+        for (T entidad : entidades) {
+            delete(entidad);
+        }
+    }
+
+    public void deleteAll() {
+        escritura.lock();
+        try {
+            datos.clear();
+            idsOrdenados.clear();
+            indices.forEach(IndiceSecundario::limpiar);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Guarda una copia de la entidad y actualiza los índices (requiere el lock de escritura)
+     */
+    protected void guardar(T entidad) {
+        String id = obtenerId(entidad);
+        T anterior = datos.get(id);
+        for (IndiceSecundario<T> indice : indices) {
+            indice.verificarUnico(id, entidad);
+        }
+        T copia = copiar(entidad);
+        for (IndiceSecundario<T> indice : indices) {
+            indice.actualizar(id, anterior, copia);
+        }
+        datos.put(id, copia);
+        idsOrdenados.add(id);
+    }
+
+    /**
+     * Elimina la entidad y sus entradas de índice (requiere el lock de escritura)
+     */
+    protected boolean quitar(String id) {
+        if (id == null) {
+            return false;
+        }
+        T anterior = datos.remove(id);
+        if (anterior == null) {
+            return false;
+        }
+        idsOrdenados.remove(id);
+        for (IndiceSecundario<T> indice : indices) {
+            indice.actualizar(id, anterior, null);
+        }
+        return true;
+    }
+
+    /**
+     * Aplica una modificación a la entidad almacenada bajo el lock de escritura, de forma atómica
+     * respecto de las demás escrituras. Devuelve una copia del resultado o null si no existe.
+     */
+    protected T modificar(String id, java.util.function.UnaryOperator<T> cambio) {
+        escritura.lock();
+        try {
+            T actual = id == null ? null : datos.get(id);
+            if (actual == null) {
+                return null;
+            }
+            T modificado = cambio.apply(copiar(actual));
+            if (modificado == null) {
+                return null;
+            }
+            guardar(modificado);
+            return copiar(modificado);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Query by Example (igualdad sobre las propiedades no nulas de la muestra)
+    // ---------------------------------------------------------------------------------------
+
+    @SuppressWarnings("unchecked")
+    public <S extends T> List<S> findAll(Example<S> example) {
+        BeanWrapperImpl muestra = new BeanWrapperImpl(example.getProbe());
+        List<S> resultado = new ArrayList<>();
+        for (T entidad : findAll()) {
+            if (coincide(muestra, entidad)) {
+                resultado.add((S) entidad);
+            }
+        }
+        return resultado;
+    }
+
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        List<S> resultado = findAll(example);
+        resultado.sort(comparador(sort));
+        return resultado;
+    }
+
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return paginar(findAll(example, pageable.getSortOr(Sort.unsorted())), pageable);
+    }
+
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        List<S> resultado = findAll(example);
+        if (resultado.size() > 1) {
+            throw new org.springframework.dao.IncorrectResultSizeDataAccessException(1, resultado.size());
+        }
+        return resultado.stream().findFirst();
+    }
+
+    public <S extends T> long count(Example<S> example) {
+        return findAll(example).size();
+    }
+
+    public <S extends T> boolean exists(Example<S> example) {
+        return !findAll(example).isEmpty();
+    }
+
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        return queryFunction.apply(consultaPorEjemplo(example));
+    }
+
+    /**
+     * Consulta fluida sobre las entidades que coinciden con el ejemplo (se evalúa al pedir el resultado)
+     */
+    <S extends T> FluentQuery.FetchableFluentQuery<S> consultaPorEjemplo(Example<S> example) {
+        return new ConsultaFluidaEnMemoria<>(() -> findAll(example), example.getProbeType());
+    }
+
+    private static boolean coincide(BeanWrapperImpl muestra, Object entidad) {
+        BeanWrapperImpl candidato = new BeanWrapperImpl(entidad);
+        for (var propiedad : muestra.getPropertyDescriptors()) {
+            String nombre = propiedad.getName();
+            if ("class".equals(nombre) || !muestra.isReadableProperty(nombre)) {
+                continue;
+            }
+            Object valor = muestra.getPropertyValue(nombre);
+            if (valor == null || (valor instanceof Collection<?> c && c.isEmpty())) {
+                continue;
+            }
+            if (!Objects.equals(valor, candidato.getPropertyValue(nombre))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Orden y paginación
+    // ---------------------------------------------------------------------------------------
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected static <E> Comparator<E> comparador(Sort sort) {
+        Comparator<E> comparador = (a, b) -> 0;
+        for (Sort.Order orden : sort) {
+            Comparator<E> porPropiedad = Comparator.comparing(
+                    entidad -> (Comparable) new BeanWrapperImpl(entidad).getPropertyValue(orden.getProperty()),
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            comparador = comparador.thenComparing(orden.isAscending() ? porPropiedad : porPropiedad.reversed());
+        }
+        return comparador;
+    }
+
+    protected static <E> Page<E> paginar(List<E> ordenados, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(ordenados);
+        }
+        int desde = (int) Math.min(pageable.getOffset(), ordenados.size());
+        int hasta = Math.min(desde + pageable.getPageSize(), ordenados.size());
+        return new PageImpl<>(new ArrayList<>(ordenados.subList(desde, hasta)), pageable, ordenados.size());
+    }
+}
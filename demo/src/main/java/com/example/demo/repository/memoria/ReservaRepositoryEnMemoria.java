@@ -0,0 +1,151 @@
+package com.example.demo.repository.memoria;
+
+import com.example.demo.entity.Reserva;
+import com.example.demo.repository.ReservaRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+@Repository
+@Profile("memoria")
+public class ReservaRepositoryEnMemoria extends RepositorioEnMemoria<Reserva> implements ReservaRepository {
+
+    private final IndiceSecundario<Reserva> porUsuarioProducto = indice("usuario_producto",
+            reserva -> List.of(clave(reserva.getUsuarioId(), reserva.getProductoId())), true);
+    private final IndiceSecundario<Reserva> porUsuario = indice("usuarioId", Reserva::getUsuarioId);
+    private final IndiceSecundario<Reserva> porProducto = indice("productoId", Reserva::getProductoId);
+
+    // Equivalente al índice {expiraEn: 1}: el barrido recorre sólo las vencidas
+    private final ConcurrentSkipListSet<Vencimiento> vencimientos = new ConcurrentSkipListSet<>(
+            Comparator.comparing(Vencimiento::expiraEn).thenComparing(Vencimiento::id));
+
+    private record Vencimiento(Instant expiraEn, String id) {
+    }
+
+    private static String clave(String usuarioId, String productoId) {
+        return usuarioId + "|" + productoId;
+    }
+
+    @Override
+    protected String obtenerId(Reserva reserva) {
+        return reserva.getId();
+    }
+
+    @Override
+    protected void asignarId(Reserva reserva, String id) {
+        reserva.setId(id);
+    }
+
+    @Override
+    protected Reserva copiar(Reserva reserva) {
+        Reserva copia = new Reserva(reserva.getUsuarioId(), reserva.getProductoId(), reserva.getCantidad(),
+                reserva.getExpiraEn());
+        copia.setId(reserva.getId());
+        return copia;
+    }
+
+    @Override
+    protected void guardar(Reserva reserva) {
+        Reserva anterior = datos.get(reserva.getId());
+        super.guardar(reserva);
+        if (anterior != null) {
+            vencimientos.remove(new Vencimiento(anterior.getExpiraEn(), anterior.getId()));
+        }
+        vencimientos.add(new Vencimiento(reserva.getExpiraEn(), reserva.getId()));
+    }
+
+    @Override
+    protected boolean quitar(String id) {
+        Reserva anterior = id == null ? null : datos.get(id);
+        if (!super.quitar(id)) {
+            return false;
+        }
+        vencimientos.remove(new Vencimiento(anterior.getExpiraEn(), anterior.getId()));
+        return true;
+    }
+
+    @Override
+    public void deleteAll() {
+        escritura.lock();
+        try {
+            super.deleteAll();
+            vencimientos.clear();
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Reserva> findByUsuarioIdAndProductoId(String usuarioId, String productoId) {
+        return buscar(porUsuarioProducto.buscar(clave(usuarioId, productoId)),
+                reserva -> usuarioId.equals(reserva.getUsuarioId()) && productoId.equals(reserva.getProductoId()))
+                .stream().findFirst();
+    }
+
+    @Override
+    public List<Reserva> findByUsuarioId(String usuarioId) {
+        return buscar(porUsuario.buscar(usuarioId), reserva -> usuarioId.equals(reserva.getUsuarioId()));
+    }
+
+    @Override
+    public void deleteByProductoId(String productoId) {
+        escritura.lock();
+        try {
+            List.copyOf(porProducto.buscar(productoId)).forEach(this::quitar);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @Override
+    public List<Reserva> findByExpiraEnLessThanEqualOrderByExpiraEnAsc(Instant ahora, Limit limit) {
+        int maximo = limit.isLimited() ? limit.max() : Integer.MAX_VALUE;
+        List<String> ids = vencimientos.stream()
+                .takeWhile(vencimiento -> !vencimiento.expiraEn().isAfter(ahora))
+                .limit(maximo)
+                .map(Vencimiento::id)
+                .toList();
+        return buscar(ids, reserva -> !reserva.getExpiraEn().isAfter(ahora));
+    }
+
+    @Override
+    public boolean actualizarCantidad(String id, int cantidadEsperada, int cantidad, Instant expiraEn) {
+        return modificar(id, reserva -> {
+            if (reserva.getCantidad() != cantidadEsperada) {
+                return null;
+            }
+            reserva.setCantidad(cantidad);
+            reserva.setExpiraEn(expiraEn);
+            return reserva;
+        }) != null;
+    }
+
+    @Override
+    public Reserva quitar(String usuarioId, String productoId) {
+        escritura.lock();
+        try {
+            Optional<Reserva> reserva = findByUsuarioIdAndProductoId(usuarioId, productoId);
+            reserva.ifPresent(encontrada -> quitar(encontrada.getId()));
+            return reserva.orElse(null);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @Override
+    public boolean quitarSiVencida(String id, Instant ahora) {
+        escritura.lock();
+        try {
+            Reserva reserva = datos.get(id);
+            return reserva != null && !reserva.getExpiraEn().isAfter(ahora) && quitar(id);
+        } finally {
+            escritura.unlock();
+        }
+    }
+}
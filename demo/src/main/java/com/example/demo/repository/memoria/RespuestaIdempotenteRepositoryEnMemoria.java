@@ -0,0 +1,71 @@
+package com.example.demo.repository.memoria;
+
+import com.example.demo.entity.RespuestaIdempotente;
+import com.example.demo.repository.RespuestaIdempotenteRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+@Profile("memoria")
+public class RespuestaIdempotenteRepositoryEnMemoria extends RepositorioEnMemoria<RespuestaIdempotente>
+        implements RespuestaIdempotenteRepository {
+
+    @Override
+    protected String obtenerId(RespuestaIdempotente respuesta) {
+        return respuesta.getId();
+    }
+
+    @Override
+    protected void asignarId(RespuestaIdempotente respuesta, String id) {
+        respuesta.setId(id);
+    }
+
+    @Override
+    protected RespuestaIdempotente copiar(RespuestaIdempotente respuesta) {
+        RespuestaIdempotente copia = new RespuestaIdempotente(respuesta.getId(), respuesta.getEstado(),
+                respuesta.getExpiraEn());
+        copia.setHuella(respuesta.getHuella());
+        copia.setStatus(respuesta.getStatus());
+        copia.setCuerpo(respuesta.getCuerpo());
+        return copia;
+    }
+
+    @Override
+    public long deleteByIdAndExpiraEnBefore(String id, Instant ahora) {
+        escritura.lock();
+        try {
+            RespuestaIdempotente respuesta = datos.get(id);
+            return respuesta != null && respuesta.getExpiraEn().isBefore(ahora) && quitar(id) ? 1 : 0;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @Override
+    public boolean renovarEnCurso(String id, Instant expiraEn) {
+        return modificar(id, respuesta -> {
+            if (!RespuestaIdempotente.EN_CURSO.equals(respuesta.getEstado())) {
+                return null;
+            }
+            respuesta.setExpiraEn(expiraEn);
+            return respuesta;
+        }) != null;
+    }
+
+    /**
+     * Equivalente al índice TTL de MongoDB: elimina los registros vencidos cada minuto
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void eliminarVencidas() {
+        Instant ahora = Instant.now();
+        List<String> vencidas = datos.values().stream()
+                .filter(respuesta -> respuesta.getExpiraEn().isBefore(ahora))
+                .map(RespuestaIdempotente::getId)
+                .toList();
+        vencidas.forEach(id -> deleteByIdAndExpiraEnBefore(id, ahora));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.repository.memoria;
+
+import com.example.demo.entity.ResumenVentas;
+import com.example.demo.repository.ResumenVentasRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+@Repository
+@Profile("memoria")
+public class ResumenVentasRepositoryEnMemoria extends RepositorioEnMemoria<ResumenVentas>
+        implements ResumenVentasRepository {
+
+    @Override
+    protected String obtenerId(ResumenVentas resumen) {
+        return resumen.getId();
+    }
+
+    @Override
+    protected void asignarId(ResumenVentas resumen, String id) {
+        resumen.setId(id);
+    }
+
+    @Override
+    protected ResumenVentas copiar(ResumenVentas resumen) {
+        ResumenVentas copia = new ResumenVentas(resumen.getDia(), resumen.getDimension(), resumen.getClave());
+        copia.setId(resumen.getId());
+        copia.setNombre(resumen.getNombre());
+        copia.sumar(resumen.getPedidos(), resumen.getUnidades(), resumen.getIngresos());
+        copia.setActualizadoEn(resumen.getActualizadoEn());
+        return copia;
+    }
+
+    @Override
+    public void incrementar(Collection<ResumenVentas> aportes) {
+        Instant ahora = Instant.now();
+        escritura.lock();
+        try {
+            for (ResumenVentas aporte : aportes) {
+                ResumenVentas resumen = datos.get(aporte.getId());
+                if (resumen == null) {
+                    resumen = copiar(aporte);
+                } else {
+                    resumen = copiar(resumen);
+                    resumen.sumar(aporte.getPedidos(), aporte.getUnidades(), aporte.getIngresos());
+                    if (aporte.getNombre() != null) {
+                        resumen.setNombre(aporte.getNombre());
+                    }
+                }
+                resumen.setActualizadoEn(ahora);
+                guardar(resumen);
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @Override
+    public void reemplazar(Collection<ResumenVentas> resumenes, Instant inicio) {
+        escritura.lock();
+        try {
+            for (ResumenVentas resumen : resumenes) {
+                ResumenVentas copia = copiar(resumen);
+                copia.setActualizadoEn(inicio);
+                guardar(copia);
+            }
+            List<String> obsoletos = datos.values().stream()
+                    .filter(resumen -> resumen.getActualizadoEn() == null || resumen.getActualizadoEn().isBefore(inicio))
+                    .map(ResumenVentas::getId)
+                    .toList();
+            obsoletos.forEach(this::quitar);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @Override
+    public List<ResumenVentas> buscarEntre(String desde, String hasta) {
+        return datos.values().stream()
+                .filter(resumen -> resumen.getDia().compareTo(desde) >= 0 && resumen.getDia().compareTo(hasta) <= 0)
+                .sorted(Comparator.comparing(ResumenVentas::getDia))
+                .map(this::copiar)
+                .toList();
+    }
+}
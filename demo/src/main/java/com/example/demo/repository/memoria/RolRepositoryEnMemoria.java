@@ -0,0 +1,39 @@
+package com.example.demo.repository.memoria;
+
+import com.example.demo.entity.Rol;
+import com.example.demo.repository.RolRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@Profile("memoria")
+public class RolRepositoryEnMemoria extends RepositorioEnMemoria<Rol> implements RolRepository {
+
+    private final IndiceSecundario<Rol> porNombre = indice("nombre",
+            rol -> rol.getNombre() == null ? List.of() : List.of(rol.getNombre()), true);
+
+    @Override
+    protected String obtenerId(Rol rol) {
+        return rol.getId();
+    }
+
+    @Override
+    protected void asignarId(Rol rol, String id) {
+        rol.setId(id);
+    }
+
+    @Override
+    protected Rol copiar(Rol rol) {
+        Rol copia = new Rol(rol.getNombre());
+        copia.setId(rol.getId());
+        return copia;
+    }
+
+    @Override
+    public Optional<Rol> findByNombre(String nombre) {
+        return buscar(porNombre.buscar(nombre), rol -> nombre.equals(rol.getNombre())).stream().findFirst();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.repository.memoria;
+
+import com.example.demo.entity.Usuario;
+import com.example.demo.repository.UsuarioRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@Profile("memoria")
+public class UsuarioRepositoryEnMemoria extends RepositorioEnMemoria<Usuario> implements UsuarioRepository {
+
+    // Equivale al índice único de MongoDB sobre email
+    private final IndiceSecundario<Usuario> porEmail = indice("email",
+            usuario -> usuario.getEmail() == null ? List.of() : List.of(usuario.getEmail()), true);
+
+    @Override
+    protected String obtenerId(Usuario usuario) {
+        return usuario.getId();
+    }
+
+    @Override
+    protected void asignarId(Usuario usuario, String id) {
+        usuario.setId(id);
+    }
+
+    @Override
+    protected Usuario copiar(Usuario usuario) {
+        return new Usuario(usuario);
+    }
+
+    @Override
+    public Optional<Usuario> findByEmail(String email) {
+        return buscar(porEmail.buscar(email), usuario -> email.equals(usuario.getEmail())).stream().findFirst();
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return !porEmail.buscar(email).isEmpty();
+    }
+
+    @Override
+    public Optional<Usuario> findTokenVersionById(String id) {
+        return findById(id);
+    }
+
+    @Override
+    public List<Usuario> findAllByOrderByIdAsc(Limit limit) {
+        return buscarPorRangoDeId(null, true, limit);
+    }
+
+    @Override
+    public List<Usuario> findByIdGreaterThanOrderByIdAsc(String id, Limit limit) {
+        return buscarPorRangoDeId(id, true, limit);
+    }
+}
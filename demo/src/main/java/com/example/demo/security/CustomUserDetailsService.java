@@ -18,15 +18,34 @@ import java.util.stream.Collectors;
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
+    @Autowired
+    private UsuarioCache usuarioCache;
+
     @Autowired
     private UsuarioRepository usuarioRepository;
 
     /**
-     * Carga un usuario por email y devuelve UserDetails con sus roles
+     * Carga un usuario por email (a través de la caché de usuarios) y devuelve UserDetails con sus roles
      */
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        Usuario usuario = usuarioCache.buscarPorEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado con email: " + email));
+
+        return new User(
+                usuario.getEmail(),
+                usuario.getPassword(),
+                mapRolesToGrantedAuthorities(usuario)
+        );
+    }
+
+    /**
+     * Carga un usuario por email directamente de la base de datos. Lo usa el login para que la
+     * contraseña se compruebe siempre contra la vigente y no contra una copia en caché.
+     */
+    @Transactional
+    public UserDetails cargarParaAutenticar(String email) throws UsernameNotFoundException {
         Usuario usuario = usuarioRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado con email: " + email));
 
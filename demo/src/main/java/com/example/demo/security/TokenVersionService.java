@@ -0,0 +1,62 @@
+package com.example.demo.security;
+
+import com.example.demo.cache.TtlCache;
+import com.example.demo.entity.Usuario;
+import com.example.demo.repository.UsuarioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Mantiene la versión de token vigente de cada usuario para revocar los JWT emitidos antes
+ * de un cambio de roles o de contraseña. La versión se lee de la base de datos con una
+ * proyección mínima y se guarda en caché por poco tiempo, de modo que el modo de
+ * autenticación sin estado no consulta la base de datos en cada request.
+ */
+@Service
+public class TokenVersionService {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.jwt.versionCache.maxEntries:10000}")
+    private int cacheMaxEntries;
+
+    @Value("${app.jwt.versionCache.ttlMs:30000}")
+    private long cacheTtlMs;
+
+    private TtlCache<String, Long> versiones;
+
+    @PostConstruct
+    void inicializar() {
+        versiones = new TtlCache<String, Long>(cacheMaxEntries, cacheTtlMs)
+                .registrarMetricas(meterRegistry, "jwt.versiones");
+    }
+
+    /**
+     * Devuelve la versión de token vigente del usuario, o null si el usuario no existe
+     */
+    public Long versionActual(String usuarioId) {
+        return versiones.get(usuarioId, id -> usuarioRepository.findTokenVersionById(id)
+                .map(Usuario::getTokenVersion)
+                .orElse(null));
+    }
+
+    /**
+     * Incrementa la versión de token del usuario (el llamador debe guardar el usuario)
+     * e invalida los tokens emitidos con la versión anterior en esta instancia
+     */
+    public void revocarTokens(Usuario usuario) {
+        usuario.setTokenVersion(usuario.getTokenVersion() + 1);
+        versiones.invalidate(usuario.getId());
+    }
+
+    public void olvidar(String usuarioId) {
+        versiones.invalidate(usuarioId);
+    }
+}
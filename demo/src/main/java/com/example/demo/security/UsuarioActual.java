@@ -0,0 +1,17 @@
+package com.example.demo.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Inyecta en un parámetro de controlador el Usuario autenticado de la request actual.
+ * El parámetro recibe null si no hay usuario autenticado o si ya no existe.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface UsuarioActual {
+}
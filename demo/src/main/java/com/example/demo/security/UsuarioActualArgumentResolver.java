@@ -0,0 +1,54 @@
+package com.example.demo.security;
+
+import com.example.demo.entity.Usuario;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.Optional;
+
+/**
+ * Resuelve los parámetros anotados con @UsuarioActual. El usuario se busca una sola vez
+ * por request (se guarda como atributo de la request) y a través de UsuarioCache.
+ */
+@Component
+public class UsuarioActualArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String ATRIBUTO_USUARIO = UsuarioActualArgumentResolver.class.getName() + ".usuario";
+
+    @Autowired
+    private UsuarioCache usuarioCache;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(UsuarioActual.class)
+                && Usuario.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Object memorizado = webRequest.getAttribute(ATRIBUTO_USUARIO, RequestAttributes.SCOPE_REQUEST);
+        if (memorizado != null) {
+            return ((Optional<Usuario>) memorizado).orElse(null);
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Optional<Usuario> usuario = authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken
+                ? Optional.empty()
+                : usuarioCache.buscarPorEmail(authentication.getName());
+
+        webRequest.setAttribute(ATRIBUTO_USUARIO, usuario, RequestAttributes.SCOPE_REQUEST);
+        return usuario.orElse(null);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.security;
+
+import com.example.demo.cache.TtlCache;
+import com.example.demo.entity.Usuario;
+import com.example.demo.repository.UsuarioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Caché de corta duración de usuarios por email. La usan el filtro JWT (a través de
+ * CustomUserDetailsService) y el resolver de @UsuarioActual, de modo que una request
+ * autenticada no consulta el mismo usuario varias veces. Cada lectura devuelve una copia
+ * para que los cambios de un llamador no afecten a la entrada compartida.
+ */
+@Service
+public class UsuarioCache {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.usuarioCache.maxEntries:5000}")
+    private int cacheMaxEntries;
+
+    @Value("${app.usuarioCache.ttlMs:30000}")
+    private long cacheTtlMs;
+
+    private TtlCache<String, Usuario> usuarios;
+
+    @PostConstruct
+    void inicializar() {
+        usuarios = new TtlCache<String, Usuario>(cacheMaxEntries, cacheTtlMs)
+                .registrarMetricas(meterRegistry, "usuarios");
+    }
+
+    /**
+     * Busca un usuario por email, primero en la caché y si no en la base de datos
+     */
+    public Optional<Usuario> buscarPorEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        Usuario usuario = usuarios.get(email, e -> usuarioRepository.findByEmail(e).orElse(null));
+        return Optional.ofNullable(usuario).map(Usuario::new);
+    }
+
+    public void invalidar(String email) {
+        if (email != null) {
+            usuarios.invalidate(email);
+        }
+    }
+
+    public void invalidarTodo() {
+        usuarios.invalidateAll();
+    }
+}
@@ -1,10 +1,16 @@
 package com.example.demo.security.jwt;
 
+import com.example.demo.security.TokenVersionService;
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -17,6 +23,9 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Component
 public class AuthTokenFilter extends OncePerRequestFilter {
@@ -28,15 +37,26 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    // Si está activo, los roles se toman de los claims del token en lugar de la base de datos
+    @Value("${app.jwt.statelessAuthorities:false}")
+    private boolean statelessAuthorities;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            // Una sola verificación por request (o ninguna si el token ya está en caché)
+            Claims claims = jwt != null ? jwtUtils.verificarToken(jwt) : null;
+            if (claims != null) {
+                UserDetails userDetails = cargarUsuario(claims);
+                if (userDetails == null) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails,
@@ -54,6 +74,32 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Construye el usuario autenticado. En modo sin estado se usa la información de los claims
+     * y sólo se verifica (con caché) que la versión del token siga vigente; devuelve null si el
+     * token fue revocado. Los tokens sin esos claims se resuelven con la base de datos.
+     */
+    private UserDetails cargarUsuario(Claims claims) {
+        String usuarioId = claims.get(JwtUtils.CLAIM_USUARIO_ID, String.class);
+        List<?> roles = claims.get(JwtUtils.CLAIM_ROLES, List.class);
+        Number version = claims.get(JwtUtils.CLAIM_TOKEN_VERSION, Number.class);
+
+        if (!statelessAuthorities || usuarioId == null || roles == null || version == null) {
+            return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+
+        Long versionActual = tokenVersionService.versionActual(usuarioId);
+        if (versionActual == null || versionActual != version.longValue()) {
+            logger.debug("Token revocado para el usuario {}", usuarioId);
+            return null;
+        }
+
+        Collection<GrantedAuthority> authorities = roles.stream()
+                .map(rol -> (GrantedAuthority) new SimpleGrantedAuthority(String.valueOf(rol)))
+                .collect(Collectors.toList());
+        return new User(claims.getSubject(), "", authorities);
+    }
+
     /**
      * Extrae el JWT token del header Authorization: Bearer <token>
      */
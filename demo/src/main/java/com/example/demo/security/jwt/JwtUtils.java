@@ -1,84 +1,137 @@
 package com.example.demo.security.jwt;
 
+import com.example.demo.cache.TtlCache;
+import com.example.demo.entity.Rol;
+import com.example.demo.entity.Usuario;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    public static final String CLAIM_USUARIO_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_TOKEN_VERSION = "tv";
+
     @Value("${app.jwtSecret:mySecretKeyForJwtTokenGenerationWithMinimumLengthOf256BitsForHS256AlgorithmRequired12345678}")
     private String jwtSecret;
 
     @Value("${app.jwtExpirationMs:86400000}")
     private int jwtExpirationMs;
 
+    @Value("${app.jwtCache.maxEntries:10000}")
+    private int jwtCacheMaxEntries;
+
+    @Value("${app.jwtCache.ttlMs:300000}")
+    private long jwtCacheTtlMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // La clave y el parser son inmutables y seguros entre hilos: se construyen una sola vez
+    private SecretKey key;
+    private JwtParser parser;
+
+    // Tokens ya verificados (clave: SHA-256 del token) hasta su expiración
+    private TtlCache<String, Claims> tokensVerificados;
+
+    @PostConstruct
+    void inicializar() {
+        key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parser()
+                .verifyWith(key)
+                .build();
+        tokensVerificados = new TtlCache<String, Claims>(jwtCacheMaxEntries, jwtCacheTtlMs)
+                .registrarMetricas(meterRegistry, "jwt.tokens");
+    }
+
     /**
      * Genera un JWT token a partir de la autenticación
      */
     public String generateJwtToken(Authentication authentication) {
         UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
 
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-
         return Jwts.builder()
                 .subject(userPrincipal.getUsername())
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(key, SignatureAlgorithm.HS256)
+                .signWith(key, Jwts.SIG.HS256)
                 .compact();
     }
 
     /**
-     * Genera un JWT token a partir del email del usuario
+     * Genera un JWT token con el ID, los roles y la versión de token del usuario como claims,
+     * de modo que la autenticación pueda construirse sin consultar la base de datos
      */
-    public String generateJwtTokenFromEmail(String email) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    public String generateJwtToken(Usuario usuario) {
+        List<String> roles = usuario.getRoles().stream()
+                .map(Rol::getNombre)
+                .collect(Collectors.toList());
 
         return Jwts.builder()
-                .subject(email)
+                .subject(usuario.getEmail())
+                .claim(CLAIM_USUARIO_ID, usuario.getId())
+                .claim(CLAIM_ROLES, roles)
+                .claim(CLAIM_TOKEN_VERSION, usuario.getTokenVersion())
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(key, SignatureAlgorithm.HS256)
+                .signWith(key, Jwts.SIG.HS256)
                 .compact();
     }
 
     /**
-     * Obtiene el nombre de usuario (email) del JWT token
+     * Genera un JWT token a partir del email del usuario
      */
-    public String getUserNameFromJwtToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+    public String generateJwtTokenFromEmail(String email) {
+        return Jwts.builder()
+                .subject(email)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
+                .signWith(key, Jwts.SIG.HS256)
+                .compact();
     }
 
     /**
-     * Valida que el JWT token sea válido
+     * Verifica el token una sola vez (firma y expiración) y devuelve sus claims,
+     * o null si no es válido. Los tokens ya verificados se sirven desde caché hasta que expiran.
      */
-    public boolean validateJwtToken(String token) {
-        try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    public Claims verificarToken(String token) {
+        if (token == null || token.isEmpty()) {
+            logger.error("JWT claims string is empty");
+            return null;
+        }
 
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
+        String huella = huella(token);
+        Claims claims = tokensVerificados.get(huella);
+        if (claims != null) {
+            return claims;
+        }
 
-            return true;
+        try {
+            claims = parser.parseSignedClaims(token).getPayload();
+            if (claims.getExpiration() != null) {
+                tokensVerificados.put(huella, claims, claims.getExpiration().getTime());
+            }
+            return claims;
         } catch (SecurityException e) {
             logger.error("JWT invalid signature: {}", e);
         } catch (MalformedJwtException e) {
@@ -91,6 +144,33 @@ public class JwtUtils {
             logger.error("JWT claims string is empty: {}", e);
         }
 
-        return false;
+        return null;
+    }
+
+    /**
+     * Obtiene el nombre de usuario (email) del JWT token
+     */
+    public String getUserNameFromJwtToken(String token) {
+        Claims claims = verificarToken(token);
+        if (claims == null) {
+            throw new JwtException("JWT token inválido");
+        }
+        return claims.getSubject();
+    }
+
+    /**
+     * Valida que el JWT token sea válido
+     */
+    public boolean validateJwtToken(String token) {
+        return verificarToken(token) != null;
+    }
+
+    private static String huella(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
     }
 }
@@ -0,0 +1,165 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.AnaliticaVentas;
+import com.example.demo.entity.Pedido;
+import com.example.demo.entity.ResumenVentas;
+import com.example.demo.metricas.MetricasOperaciones;
+import com.example.demo.repository.PedidoRepository;
+import com.example.demo.repository.ResumenVentasRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analítica de ventas para el panel de administración.
+ *
+ * PedidoService informa cada pedido creado y cada cambio de estado, y aquí se traducen en
+ * incrementos sobre los acumulados diarios (ResumenVentas), así la consulta lee un documento
+ * por día y clave en vez de todos los pedidos. Un job periódico los recalcula desde los
+ * pedidos con un pipeline de agregación para corregir cualquier diferencia (por ejemplo, un
+ * incremento que falló después de guardar el pedido).
+ */
+@Service
+public class AnaliticaService {
+    private static final Logger logger = LoggerFactory.getLogger(AnaliticaService.class);
+
+    @Autowired
+    private ResumenVentasRepository resumenVentasRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private MetricasOperaciones metricas;
+
+    @Value("${app.analitica.diasPorDefecto:30}")
+    private int diasPorDefecto;
+
+    @Value("${app.analitica.maxDias:366}")
+    private int maxDias;
+
+    @Value("${app.analitica.topProductos:10}")
+    private int topProductos;
+
+    /**
+     * Suma un pedido recién creado a los acumulados
+     */
+    public void registrarCreacion(Pedido pedido) {
+        aplicar(ResumenVentas.aportes(pedido, pedido.getEstado(), 1));
+    }
+
+    /**
+     * Mueve un pedido del estado anterior a su estado actual en los acumulados
+     */
+    public void registrarCambioEstado(Pedido pedido, String estadoAnterior) {
+        if (estadoAnterior != null && estadoAnterior.equals(pedido.getEstado())) {
+            return;
+        }
+        List<ResumenVentas> aportes = new ArrayList<>(ResumenVentas.aportes(pedido, estadoAnterior, -1));
+        aportes.addAll(ResumenVentas.aportes(pedido, pedido.getEstado(), 1));
+        aplicar(aportes);
+    }
+
+    /**
+     * Combina los aportes por acumulado y los aplica en un solo bulk. Un error no deshace el
+     * pedido: se registra (y se cuenta en analitica.incrementos.fallidos) y la diferencia se
+     * corrige en la próxima reconstrucción.
+     */
+    private void aplicar(List<ResumenVentas> aportes) {
+        Map<String, ResumenVentas> combinados = new LinkedHashMap<>();
+        for (ResumenVentas aporte : aportes) {
+            ResumenVentas combinado = combinados.putIfAbsent(aporte.getId(), aporte);
+            if (combinado != null) {
+                combinado.sumar(aporte.getPedidos(), aporte.getUnidades(), aporte.getIngresos());
+                if (aporte.getNombre() != null) {
+                    combinado.setNombre(aporte.getNombre());
+                }
+            }
+        }
+        combinados.values().removeIf(ResumenVentas::esVacio);
+        try {
+            resumenVentasRepository.incrementar(combinados.values());
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo actualizar la analítica de ventas: {}", e.getMessage());
+            metricas.contar(MetricasOperaciones.ANALITICA_FALLOS, 1);
+        }
+    }
+
+    /**
+     * Analítica del rango de días (ambos incluidos); sin fechas, los últimos diasPorDefecto días
+     */
+    public AnaliticaVentas obtener(LocalDate desde, LocalDate hasta) {
+        LocalDate fin = hasta != null ? hasta : LocalDate.now();
+        LocalDate inicio = desde != null ? desde : fin.minusDays(diasPorDefecto - 1L);
+        if (inicio.isAfter(fin)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a hasta");
+        }
+        if (ChronoUnit.DAYS.between(inicio, fin) >= maxDias) {
+            throw new IllegalArgumentException("El rango no puede superar " + maxDias + " días");
+        }
+
+        Map<String, Map<String, AnaliticaVentas.Fila>> porDimension = new LinkedHashMap<>();
+        for (ResumenVentas resumen : resumenVentasRepository.buscarEntre(inicio.toString(), fin.toString())) {
+            String clave = ResumenVentas.DIA.equals(resumen.getDimension()) ? resumen.getDia() : resumen.getClave();
+            AnaliticaVentas.Fila fila = porDimension
+                    .computeIfAbsent(resumen.getDimension(), dimension -> new LinkedHashMap<>())
+                    .computeIfAbsent(clave, AnaliticaVentas.Fila::new);
+            fila.sumar(resumen.getPedidos(), resumen.getUnidades(), resumen.getIngresos());
+            if (resumen.getNombre() != null) {
+                fila.setNombre(resumen.getNombre());
+            }
+        }
+
+        AnaliticaVentas analitica = new AnaliticaVentas(inicio, fin);
+        analitica.setPorDia(filas(porDimension, ResumenVentas.DIA, Comparator.comparing(AnaliticaVentas.Fila::getClave)));
+        for (AnaliticaVentas.Fila dia : analitica.getPorDia()) {
+            analitica.setPedidos(analitica.getPedidos() + dia.getPedidos());
+            analitica.setUnidades(analitica.getUnidades() + dia.getUnidades());
+            analitica.setIngresos(analitica.getIngresos().add(dia.getIngresos()));
+        }
+        analitica.setPorEstado(filas(porDimension, ResumenVentas.ESTADO,
+                Comparator.comparingLong(AnaliticaVentas.Fila::getPedidos).reversed()));
+        analitica.setPorCategoria(filas(porDimension, ResumenVentas.CATEGORIA,
+                Comparator.comparing(AnaliticaVentas.Fila::getIngresos).reversed()));
+        List<AnaliticaVentas.Fila> productos = filas(porDimension, ResumenVentas.PRODUCTO,
+                Comparator.comparing(AnaliticaVentas.Fila::getIngresos).reversed());
+        analitica.setProductos(productos.subList(0, Math.min(topProductos, productos.size())));
+        return analitica;
+    }
+
+    private static List<AnaliticaVentas.Fila> filas(Map<String, Map<String, AnaliticaVentas.Fila>> porDimension,
+                                                   String dimension, Comparator<AnaliticaVentas.Fila> orden) {
+        List<AnaliticaVentas.Fila> filas = new ArrayList<>(porDimension.getOrDefault(dimension, Map.of()).values());
+        // Los acumulados que quedaron en cero (por ejemplo, todos sus pedidos cambiaron de estado) no se muestran
+        filas.removeIf(fila -> fila.getPedidos() == 0 && fila.getUnidades() == 0 && fila.getIngresos().signum() == 0);
+        filas.sort(orden);
+        return filas;
+    }
+
+    /**
+     * Recalcula todos los acumulados desde los pedidos con un pipeline de agregación.
+     * Devuelve la cantidad de acumulados escritos.
+     */
+    @Scheduled(cron = "${app.analitica.reconstruccion.cron:0 30 3 * * *}")
+    public int reconstruir() {
+        Instant inicio = Instant.now();
+        List<ResumenVentas> resumenes = pedidoRepository.calcularResumenVentas(ZoneId.systemDefault());
+        resumenVentasRepository.reemplazar(resumenes, inicio);
+        logger.info("Analítica de ventas reconstruida: {} acumulados en {} ms",
+                resumenes.size(), Instant.now().toEpochMilli() - inicio.toEpochMilli());
+        return resumenes.size();
+    }
+}
@@ -0,0 +1,362 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CarritoOperacion;
+import com.example.demo.entity.Carrito;
+import com.example.demo.entity.CarritoItem;
+import com.example.demo.entity.CarritoLinea;
+import com.example.demo.entity.Producto;
+import com.example.demo.entity.ProductoSnapshot;
+import com.example.demo.repository.CarritoItemRepository;
+import com.example.demo.repository.CarritoRepository;
+import com.example.demo.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Operaciones sobre el carrito de un usuario.
+ *
+ * Según app.carrito.modo el carrito se guarda como una línea por documento en carrito_items
+ * ("items", por defecto) o como un único documento por usuario en carritos ("documento").
+ * En modo documento cada cambio es una actualización atómica que devuelve el carrito
+ * resultante, sin una segunda consulta para construir la respuesta.
+ */
+@Service
+public class CarritoService {
+    private static final Logger logger = LoggerFactory.getLogger(CarritoService.class);
+
+    public static final String MODO_ITEMS = "items";
+    public static final String MODO_DOCUMENTO = "documento";
+
+    @Autowired
+    private CarritoItemRepository carritoItemRepository;
+
+    @Autowired
+    private CarritoRepository carritoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Value("${app.carrito.modo:items}")
+    private String modo;
+
+    private boolean modoDocumento() {
+        return MODO_DOCUMENTO.equalsIgnoreCase(modo);
+    }
+
+    /**
+     * Obtiene las líneas del carrito del usuario
+     */
+    public List<CarritoItem> obtenerItems(String usuarioId) {
+        if (modoDocumento()) {
+            return carritoRepository.findById(usuarioId)
+                    .map(Carrito::toCarritoItems)
+                    .orElseGet(List::of);
+        }
+        return carritoItemRepository.findByUsuarioId(usuarioId);
+    }
+
+    /**
+     * Agrega la cantidad indicada del producto (suma si ya estaba en el carrito)
+     * y devuelve el carrito resultante
+     */
+    public List<CarritoItem> agregar(String usuarioId, Producto producto, int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor a 0");
+        }
+        return conReserva(usuarioId, producto.getId(), anterior -> anterior + cantidad, () -> {
+            if (modoDocumento()) {
+                return carritoRepository.agregarProducto(usuarioId, new ProductoSnapshot(producto), cantidad)
+                        .toCarritoItems();
+            }
+
+            var existente = carritoItemRepository.findByUsuarioIdAndProductoId(usuarioId, producto.getId());
+            if (existente.isPresent()) {
+                CarritoItem item = existente.get();
+                item.setCantidad(item.getCantidad() + cantidad);
+                carritoItemRepository.save(item);
+            } else {
+                carritoItemRepository.save(new CarritoItem(usuarioId, producto, cantidad));
+            }
+            return carritoItemRepository.findByUsuarioId(usuarioId);
+        });
+    }
+
+    /**
+     * Fija la cantidad de un producto del carrito (0 lo quita) y devuelve el carrito resultante
+     */
+    public List<CarritoItem> actualizarCantidad(String usuarioId, String productoId, int cantidad) {
+        if (cantidad < 0) {
+            throw new IllegalArgumentException("Cantidad inválida");
+        }
+        if (cantidad == 0) {
+            return eliminar(usuarioId, productoId);
+        }
+        return conReserva(usuarioId, productoId, anterior -> cantidad, () -> {
+            if (modoDocumento()) {
+                Carrito carrito = carritoRepository.establecerCantidad(usuarioId, productoId, cantidad);
+                if (carrito == null) {
+                    throw new IllegalArgumentException("Producto no encontrado en el carrito");
+                }
+                return carrito.toCarritoItems();
+            }
+
+            CarritoItem item = carritoItemRepository.findByUsuarioIdAndProductoId(usuarioId, productoId)
+                    .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado en el carrito"));
+            item.setCantidad(cantidad);
+            carritoItemRepository.save(item);
+            return carritoItemRepository.findByUsuarioId(usuarioId);
+        });
+    }
+
+    /**
+     * Quita un producto del carrito y devuelve el carrito resultante
+     */
+    public List<CarritoItem> eliminar(String usuarioId, String productoId) {
+        return conReserva(usuarioId, productoId, anterior -> 0, () -> {
+            if (modoDocumento()) {
+                Carrito carrito = carritoRepository.quitarProducto(usuarioId, productoId);
+                if (carrito == null) {
+                    throw new IllegalArgumentException("Producto no encontrado en el carrito");
+                }
+                return carrito.toCarritoItems();
+            }
+
+            CarritoItem item = carritoItemRepository.findByUsuarioIdAndProductoId(usuarioId, productoId)
+                    .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado en el carrito"));
+            carritoItemRepository.delete(item);
+            return carritoItemRepository.findByUsuarioId(usuarioId);
+        });
+    }
+
+    /**
+     * Con reservas habilitadas, deja reservada la cantidad final de la línea antes de modificar
+     * el carrito (falla con StockInsuficienteException si no hay disponible); si la modificación
+     * falla, la reserva vuelve a la cantidad anterior
+     */
+    private List<CarritoItem> conReserva(String usuarioId, String productoId, IntUnaryOperator cantidadFinal,
+                                         Supplier<List<CarritoItem>> cambio) {
+        if (!reservaService.habilitadas()) {
+            return cambio.get();
+        }
+        int anterior = cantidadEnCarrito(usuarioId, productoId);
+        reservaService.reservar(usuarioId, productoId, cantidadFinal.applyAsInt(anterior));
+        try {
+            return cambio.get();
+        } catch (RuntimeException e) {
+            restaurarReserva(usuarioId, productoId, anterior);
+            throw e;
+        }
+    }
+
+    private int cantidadEnCarrito(String usuarioId, String productoId) {
+        if (modoDocumento()) {
+            return carritoRepository.findById(usuarioId)
+                    .flatMap(carrito -> carrito.getItems().stream()
+                            .filter(linea -> productoId.equals(linea.getProducto().getId()))
+                            .findFirst())
+                    .map(CarritoLinea::getCantidad)
+                    .orElse(0);
+        }
+        return carritoItemRepository.findByUsuarioIdAndProductoId(usuarioId, productoId)
+                .map(CarritoItem::getCantidad)
+                .orElse(0);
+    }
+
+    private void restaurarReserva(String usuarioId, String productoId, int cantidad) {
+        try {
+            reservaService.reservar(usuarioId, productoId, cantidad);
+        } catch (RuntimeException e) {
+            // La reserva queda con la cantidad nueva hasta vencer o hasta el próximo cambio de la línea
+            logger.warn("No se pudo restaurar la reserva del producto {} para el usuario {}: {}",
+                    productoId, usuarioId, e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica varias operaciones (add/set/remove) sobre el carrito con una lectura del carrito,
+     * una consulta $in de los productos involucrados y una sola escritura. Si alguna operación
+     * no es válida o algún producto no tiene stock suficiente no se aplica ninguna.
+     * Devuelve el carrito resultante.
+     */
+    public List<CarritoItem> aplicarOperaciones(String usuarioId, List<CarritoOperacion> operaciones) {
+        if (operaciones == null || operaciones.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos una operación");
+        }
+        for (CarritoOperacion operacion : operaciones) {
+            validarOperacion(operacion);
+        }
+
+        // Estado actual del carrito: productoId -> línea
+        Map<String, CarritoItem> actuales = new LinkedHashMap<>();
+        for (CarritoItem item : obtenerItems(usuarioId)) {
+            actuales.put(item.getProducto().getId(), item);
+        }
+
+        // Cantidades finales después de aplicar las operaciones en orden
+        Map<String, Integer> cantidades = new LinkedHashMap<>();
+        actuales.forEach((productoId, item) -> cantidades.put(productoId, item.getCantidad()));
+        Set<String> modificados = new HashSet<>();
+        for (CarritoOperacion operacion : operaciones) {
+            String productoId = operacion.getProductId();
+            switch (operacion.getOp()) {
+                case CarritoOperacion.AGREGAR -> cantidades.merge(productoId, operacion.getQuantity(), Integer::sum);
+                case CarritoOperacion.FIJAR -> cantidades.put(productoId, operacion.getQuantity());
+                default -> cantidades.put(productoId, 0);
+            }
+            modificados.add(productoId);
+        }
+
+        // Una sola consulta para todos los productos que quedan en el carrito con cambios
+        Set<String> aValidar = new HashSet<>();
+        for (String productoId : modificados) {
+            if (cantidades.get(productoId) > 0) {
+                aValidar.add(productoId);
+            }
+        }
+        Map<String, Producto> productos = new HashMap<>();
+        productoRepository.findAllById(aValidar).forEach(producto -> productos.put(producto.getId(), producto));
+        // Como al agregar de a uno, sólo cuenta el stock no reservado por otros carritos: lo que
+        // este usuario ya tiene reservado se suma a lo disponible para él
+        Map<String, Integer> reservadoPropio = reservaService.habilitadas()
+                ? reservaService.reservadasPor(usuarioId)
+                : Map.of();
+
+        List<CarritoItem> resultado = new ArrayList<>();
+        List<CarritoItem> cambiados = new ArrayList<>();
+        Set<String> quitados = new HashSet<>();
+        for (Map.Entry<String, Integer> entrada : cantidades.entrySet()) {
+            String productoId = entrada.getKey();
+            int cantidad = entrada.getValue();
+            CarritoItem actual = actuales.get(productoId);
+
+            if (!modificados.contains(productoId)) {
+                resultado.add(actual);
+                continue;
+            }
+            if (cantidad <= 0) {
+                if (actual != null) {
+                    quitados.add(productoId);
+                }
+                continue;
+            }
+
+            Producto producto = productos.get(productoId);
+            if (producto == null) {
+                throw new IllegalArgumentException("Producto no encontrado: " + productoId);
+            }
+            if (producto.getStockDisponible() + reservadoPropio.getOrDefault(productoId, 0) < cantidad) {
+                throw new StockInsuficienteException(productoId, producto.getNombre(), cantidad);
+            }
+            CarritoItem item = new CarritoItem(usuarioId, new ProductoSnapshot(producto), cantidad);
+            resultado.add(item);
+            if (actual == null || !Objects.equals(actual.getCantidad(), cantidad)
+                    || !item.getProducto().equals(actual.getProducto())) {
+                cambiados.add(item);
+            }
+        }
+
+        if (cambiados.isEmpty() && quitados.isEmpty()) {
+            return resultado;
+        }
+
+        // Con reservas habilitadas se reservan las líneas cambiadas antes de escribir; si alguna
+        // no tiene disponible (o la escritura falla) las ya reservadas vuelven a su cantidad anterior
+        List<CarritoItem> reservados = new ArrayList<>();
+        try {
+            if (reservaService.habilitadas()) {
+                for (CarritoItem item : cambiados) {
+                    reservaService.reservar(usuarioId, item.getProducto().getId(), item.getCantidad());
+                    reservados.add(item);
+                }
+            }
+            if (modoDocumento()) {
+                carritoRepository.aplicarCambios(usuarioId, cambiados, quitados);
+            } else {
+                carritoItemRepository.aplicarCambios(usuarioId, cambiados, quitados);
+            }
+        } catch (RuntimeException e) {
+            for (CarritoItem item : reservados) {
+                CarritoItem actual = actuales.get(item.getProducto().getId());
+                restaurarReserva(usuarioId, item.getProducto().getId(), actual == null ? 0 : actual.getCantidad());
+            }
+            throw e;
+        }
+        if (reservaService.habilitadas()) {
+            quitados.forEach(productoId -> reservaService.liberar(usuarioId, productoId));
+        }
+        return resultado;
+    }
+
+    private static void validarOperacion(CarritoOperacion operacion) {
+        if (operacion == null || operacion.getProductId() == null || operacion.getProductId().isBlank()) {
+            throw new IllegalArgumentException("Cada operación debe indicar productId");
+        }
+        String op = operacion.getOp();
+        if (CarritoOperacion.QUITAR.equals(op)) {
+            return;
+        }
+        if (!CarritoOperacion.AGREGAR.equals(op) && !CarritoOperacion.FIJAR.equals(op)) {
+            throw new IllegalArgumentException("Operación inválida: " + op);
+        }
+        Integer cantidad = operacion.getQuantity();
+        if (cantidad == null || cantidad < 0 || (CarritoOperacion.AGREGAR.equals(op) && cantidad == 0)) {
+            throw new IllegalArgumentException("Cantidad inválida para el producto: " + operacion.getProductId());
+        }
+    }
+
+    /**
+     * Vacía el carrito del usuario
+     */
+    public void vaciar(String usuarioId) {
+        if (modoDocumento()) {
+            carritoRepository.deleteById(usuarioId);
+        } else {
+            carritoItemRepository.deleteByUsuarioId(usuarioId);
+        }
+        if (reservaService.habilitadas()) {
+            reservaService.liberarTodas(usuarioId);
+        }
+    }
+
+    /**
+     * Propaga a los carritos el snapshot actualizado de un producto
+     */
+    public void actualizarSnapshotProducto(ProductoSnapshot snapshot) {
+        if (modoDocumento()) {
+            carritoRepository.actualizarSnapshotProducto(snapshot);
+        } else {
+            carritoItemRepository.actualizarSnapshotProducto(snapshot);
+        }
+    }
+
+    /**
+     * Quita un producto eliminado de todos los carritos
+     */
+    public void eliminarProducto(String productoId) {
+        if (modoDocumento()) {
+            carritoRepository.quitarProductoDeTodos(productoId);
+        } else {
+            carritoItemRepository.deleteByProductoId(productoId);
+        }
+        if (reservaService.habilitadas()) {
+            reservaService.olvidarProducto(productoId);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Pedido;
+import com.example.demo.entity.PedidoItem;
+import com.example.demo.repository.PedidoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Exportación masiva de pedidos para finanzas, en NDJSON o CSV (un pedido por línea).
+ *
+ * Los pedidos se leen con un cursor de a app.exportacion.lote documentos y cada uno se escribe
+ * directamente en la salida, que se envía al cliente al completar cada lote: la memoria usada
+ * no depende de cuántos pedidos abarque el rango.
+ */
+@Service
+public class ExportacionPedidosService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportacionPedidosService.class);
+
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+
+    private static final String[] COLUMNAS_CSV = {
+            "id", "fecha", "usuarioId", "estado", "total", "items", "unidades", "productos",
+            "metodoPago", "numeroOrden", "codigoAutorizacion", "fechaPago", "tipoTarjeta", "cuotas"
+    };
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Value("${app.exportacion.lote:500}")
+    private int tamanoLote;
+
+    /**
+     * Filtros validados de una exportación
+     */
+    public record Filtro(String formato, LocalDate desde, LocalDate hasta, String estado) {
+    }
+
+    /**
+     * Valida el formato y los filtros antes de empezar a escribir la respuesta
+     */
+    public Filtro validar(String formato, LocalDate desde, LocalDate hasta, String estado) {
+        String formatoValido = formato == null ? NDJSON : formato.trim().toLowerCase();
+        if (!NDJSON.equals(formatoValido) && !CSV.equals(formatoValido)) {
+            throw new IllegalArgumentException("Formato no soportado: use ndjson o csv");
+        }
+        if (desde != null && hasta != null && desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a hasta");
+        }
+        String estadoValido = estado == null || estado.isBlank() ? null : estado.trim().toUpperCase();
+        return new Filtro(formatoValido, desde, hasta, estadoValido);
+    }
+
+    /**
+     * Escribe los pedidos del filtro en la salida. Devuelve la cantidad de pedidos exportados.
+     */
+    public long exportar(Filtro filtro, OutputStream salida) throws IOException {
+        long inicio = System.currentTimeMillis();
+        LocalDateTime desde = filtro.desde() != null ? filtro.desde().atStartOfDay() : null;
+        LocalDateTime hasta = filtro.hasta() != null ? filtro.hasta().plusDays(1).atStartOfDay() : null;
+        boolean csv = CSV.equals(filtro.formato());
+
+        long filas = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        try (Stream<Pedido> pedidos = pedidoRepository.recorrerParaExportar(desde, hasta, filtro.estado(), tamanoLote)) {
+            if (csv) {
+                writer.write(String.join(",", COLUMNAS_CSV));
+                writer.write("\r\n");
+            }
+            Iterator<Pedido> cursor = pedidos.iterator();
+            while (cursor.hasNext()) {
+                Pedido pedido = cursor.next();
+                if (csv) {
+                    escribirCsv(writer, pedido);
+                } else {
+                    writer.write(jsonMapper.writeValueAsString(fila(pedido)));
+                    writer.write('\n');
+                }
+                // Se envía cada lote apenas se escribe, junto con la lectura del siguiente del cursor
+                if (++filas % tamanoLote == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+
+        logger.info("Exportación de pedidos ({}): {} pedidos en {} ms",
+                filtro.formato(), filas, System.currentTimeMillis() - inicio);
+        return filas;
+    }
+
+    private static Map<String, Object> fila(Pedido pedido) {
+        Map<String, Object> fila = new LinkedHashMap<>();
+        fila.put("id", pedido.getId());
+        fila.put("fecha", pedido.getFecha());
+        fila.put("usuarioId", pedido.getUsuarioId());
+        fila.put("estado", pedido.getEstado());
+        fila.put("total", pedido.getTotal());
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (PedidoItem item : pedido.getItems()) {
+            Map<String, Object> linea = new LinkedHashMap<>();
+            linea.put("productoId", item.getProductoId());
+            linea.put("nombre", item.getNombre());
+            linea.put("categoria", item.getCategoria());
+            linea.put("cantidad", item.getCantidad());
+            linea.put("precioUnitario", item.getPrecioUnitario());
+            items.add(linea);
+        }
+        fila.put("items", items);
+        fila.put("metodoPago", pedido.getMetodoPago());
+        fila.put("numeroOrden", pedido.getNumeroOrden());
+        fila.put("codigoAutorizacion", pedido.getCodigoAutorizacion());
+        fila.put("fechaPago", pedido.getFechaPago());
+        fila.put("tipoTarjeta", pedido.getTipoTarjeta());
+        fila.put("cuotas", pedido.getCuotas());
+        return fila;
+    }
+
+    private static void escribirCsv(Writer writer, Pedido pedido) throws IOException {
+        int unidades = pedido.getItems().stream()
+                .mapToInt(item -> item.getCantidad() != null ? item.getCantidad() : 0)
+                .sum();
+        String productos = pedido.getItems().stream()
+                .map(item -> (item.getNombre() != null ? item.getNombre() : item.getProductoId()) + " x" + item.getCantidad())
+                .collect(Collectors.joining("; "));
+        Object[] valores = {
+                pedido.getId(), pedido.getFecha(), pedido.getUsuarioId(), pedido.getEstado(),
+                pedido.getTotal(), pedido.getItems().size(), unidades, productos,
+                pedido.getMetodoPago(), pedido.getNumeroOrden(), pedido.getCodigoAutorizacion(),
+                pedido.getFechaPago(), pedido.getTipoTarjeta(), pedido.getCuotas()
+        };
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(celdaCsv(valores[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Valor de una celda CSV (RFC 4180). El texto que empieza con =, +, - o @ se antepone con
+     * un apóstrofo para que una planilla no lo interprete como fórmula.
+     */
+    static String celdaCsv(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        String texto = valor.toString();
+        if (!(valor instanceof Number) && !texto.isEmpty() && "=+-@".indexOf(texto.charAt(0)) >= 0) {
+            texto = "'" + texto;
+        }
+        if (texto.contains(",") || texto.contains("\"") || texto.contains("\n") || texto.contains("\r")) {
+            texto = "\"" + texto.replace("\"", "\"\"") + "\"";
+        }
+        return texto;
+    }
+}
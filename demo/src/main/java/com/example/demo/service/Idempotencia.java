@@ -0,0 +1,223 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.RespuestaIdempotente;
+import com.example.demo.repository.RespuestaIdempotenteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Soporte del header Idempotency-Key para endpoints que no se deben ejecutar dos veces
+ * (crear pedido, confirmar pago) cuando el cliente reintenta por un timeout.
+ *
+ * La primera request con una clave la registra EN_CURSO (insert con _id único) y ejecuta la
+ * acción; las duplicadas esperan a que termine y reciben la misma respuesta con el header
+ * Idempotent-Replayed. Sólo se guardan las respuestas 2xx: si la acción falla el registro se
+ * elimina y un reintento vuelve a ejecutarla.
+ *
+ * El registro EN_CURSO vence a los enCursoMs para que una instancia caída no bloquee la clave
+ * para siempre; mientras la acción sigue ejecutándose su vencimiento se renueva cada tercio de
+ * ese plazo, así que un reintento nunca la vuelve a ejecutar en paralelo por más que tarde.
+ *
+ * Junto a la clave se guarda un hash del cuerpo de la request: reutilizar la clave con otro
+ * cuerpo es un error del cliente y se responde 422 en vez de repetir la respuesta anterior.
+ */
+@Component
+public class Idempotencia {
+    private static final Logger logger = LoggerFactory.getLogger(Idempotencia.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int LARGO_MAXIMO = 255;
+    private static final long INTERVALO_CONSULTA_MS = 50;
+
+    @Autowired
+    private RespuestaIdempotenteRepository repository;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    // Tiempo que se conserva la respuesta para los reintentos
+    @Value("${app.idempotencia.ttlMs:86400000}")
+    private long ttlMs;
+
+    // Tiempo que un registro EN_CURSO sobrevive sin renovarse (por ejemplo, si la instancia cae)
+    @Value("${app.idempotencia.enCursoMs:60000}")
+    private long enCursoMs;
+
+    // Tiempo máximo que un duplicado espera a la primera ejecución antes de responder 409
+    @Value("${app.idempotencia.esperaMs:10000}")
+    private long esperaMs;
+
+    // Ejecuciones en curso en esta instancia: los duplicados esperan el aviso en vez de consultar
+    private final Map<String, CompletableFuture<Void>> enCurso = new ConcurrentHashMap<>();
+
+    /**
+     * Ejecuta la acción una sola vez por (operación, usuario, clave); sin clave la ejecuta siempre.
+     * cuerpo es el cuerpo de la request (o null si no tiene) y se compara con el de la primera.
+     */
+    public ResponseEntity<?> ejecutar(String clave, String usuarioId, String operacion, Object cuerpo,
+                                      Supplier<ResponseEntity<?>> accion) {
+        if (clave == null || clave.isBlank()) {
+            return accion.get();
+        }
+        if (clave.length() > LARGO_MAXIMO) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Idempotency-Key demasiado larga"));
+        }
+
+        String id = operacion + ":" + usuarioId + ":" + clave.trim();
+        String huella = huella(cuerpo);
+        long limite = System.currentTimeMillis() + esperaMs;
+        while (true) {
+            if (registrar(id, huella)) {
+                return ejecutarYGuardar(id, huella, accion);
+            }
+
+            Optional<RespuestaIdempotente> existente = repository.findById(id);
+            if (existente.isPresent()) {
+                RespuestaIdempotente respuesta = existente.get();
+                if (respuesta.getExpiraEn().isBefore(Instant.now())) {
+                    // Vencida pero todavía no eliminada: se descarta y se vuelve a registrar
+                    repository.deleteByIdAndExpiraEnBefore(id, Instant.now());
+                    continue;
+                }
+                if (!huella.equals(respuesta.getHuella())) {
+                    return ResponseEntity.status(422).body(Map.of(
+                            "error", "La Idempotency-Key ya se usó con otra solicitud"));
+                }
+                if (RespuestaIdempotente.COMPLETADA.equals(respuesta.getEstado())) {
+                    return repetir(respuesta);
+                }
+            }
+
+            long restante = limite - System.currentTimeMillis();
+            if (restante <= 0) {
+                return ResponseEntity.status(409).body(Map.of(
+                        "error", "Hay una solicitud con la misma Idempotency-Key en curso, intente nuevamente"));
+            }
+            esperar(id, restante);
+        }
+    }
+
+    /**
+     * SHA-256 del cuerpo serializado con las claves de los mapas ordenadas, para que el mismo
+     * cuerpo con los campos en otro orden tenga la misma huella
+     */
+    private String huella(Object cuerpo) {
+        try {
+            byte[] json = jsonMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsBytes(cuerpo);
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean registrar(String id, String huella) {
+        try {
+            RespuestaIdempotente registro = new RespuestaIdempotente(id, RespuestaIdempotente.EN_CURSO,
+                    Instant.now().plusMillis(enCursoMs));
+            registro.setHuella(huella);
+            repository.insert(registro);
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+        enCurso.put(id, new CompletableFuture<>());
+        return true;
+    }
+
+    private ResponseEntity<?> ejecutarYGuardar(String id, String huella, Supplier<ResponseEntity<?>> accion) {
+        ScheduledFuture<?> renovacion = renovarMientrasSeEjecuta(id);
+        boolean guardada = false;
+        try {
+            ResponseEntity<?> respuesta = accion.get();
+            if (respuesta.getStatusCode().is2xxSuccessful()) {
+                RespuestaIdempotente completada = new RespuestaIdempotente(id, RespuestaIdempotente.COMPLETADA,
+                        Instant.now().plusMillis(ttlMs));
+                completada.setHuella(huella);
+                completada.setStatus(respuesta.getStatusCode().value());
+                completada.setCuerpo(respuesta.hasBody() ? jsonMapper.writeValueAsString(respuesta.getBody()) : null);
+                repository.save(completada);
+                guardada = true;
+            }
+            return respuesta;
+        } finally {
+            renovacion.cancel(false);
+            if (!guardada) {
+                repository.deleteById(id);
+            }
+            CompletableFuture<Void> aviso = enCurso.remove(id);
+            if (aviso != null) {
+                aviso.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Extiende el vencimiento del registro EN_CURSO cada tercio de enCursoMs hasta que se cancela
+     */
+    private ScheduledFuture<?> renovarMientrasSeEjecuta(String id) {
+        Duration intervalo = Duration.ofMillis(Math.max(1, enCursoMs / 3));
+        return taskScheduler.scheduleAtFixedRate(() -> {
+            try {
+                repository.renovarEnCurso(id, Instant.now().plusMillis(enCursoMs));
+            } catch (RuntimeException e) {
+                // Se reintenta en el próximo intervalo; el registro todavía tiene enCursoMs de margen
+                logger.warn("No se pudo renovar la ejecución en curso {}: {}", id, e.getMessage());
+            }
+        }, Instant.now().plus(intervalo), intervalo);
+    }
+
+    private static ResponseEntity<?> repetir(RespuestaIdempotente respuesta) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(respuesta.getStatus())
+                .header("Idempotent-Replayed", "true");
+        if (respuesta.getCuerpo() == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(respuesta.getCuerpo());
+    }
+
+    /**
+     * Espera el aviso de la ejecución local o, si la ejecuta otra instancia, un intervalo corto
+     */
+    private void esperar(String id, long restanteMs) {
+        CompletableFuture<Void> aviso = enCurso.get(id);
+        try {
+            if (aviso != null) {
+                aviso.get(restanteMs, TimeUnit.MILLISECONDS);
+            } else {
+                Thread.sleep(Math.min(INTERVALO_CONSULTA_MS, restanteMs));
+            }
+        } catch (TimeoutException | ExecutionException e) {
+            // Se vuelve a consultar el registro
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Espera interrumpida", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.service;
+
+/**
+ * Se lanza cuando un usuario intenta cambiar el estado de un pedido que no es suyo. Extiende
+ * IllegalArgumentException para que los manejadores existentes la sigan tratando como error
+ * de validación.
+ */
+public class PedidoAjenoException extends IllegalArgumentException {
+
+    public PedidoAjenoException(String pedidoId) {
+        super("El pedido " + pedidoId + " no pertenece al usuario");
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.service;
+
+/**
+ * Se lanza cuando el pedido de un cambio de estado no existe. Extiende
+ * IllegalArgumentException para que los manejadores existentes la sigan tratando como error
+ * de validación.
+ */
+public class PedidoNoEncontradoException extends IllegalArgumentException {
+
+    public PedidoNoEncontradoException(String pedidoId) {
+        super("Pedido no encontrado con ID: " + pedidoId);
+    }
+}
@@ -1,13 +1,23 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.PedidoResumen;
 import com.example.demo.entity.*;
 import com.example.demo.repository.*;
+import com.example.demo.metricas.MetricasOperaciones;
+import io.micrometer.core.instrument.Timer;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -17,13 +27,28 @@ public class PedidoService {
     private PedidoRepository pedidoRepository;
 
     @Autowired
-    private CarritoItemRepository carritoItemRepository;
+    private CarritoService carritoService;
 
     @Autowired
-    private ProductoRepository productoRepository;
+    private UsuarioRepository usuarioRepository;
 
     @Autowired
-    private UsuarioRepository usuarioRepository;
+    private ProductoService productoService;
+
+    @Autowired
+    private MetricasOperaciones metricas;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private AnaliticaService analiticaService;
+
+    @Value("${app.pagination.defaultSize:20}")
+    private int tamanoPaginaPorDefecto;
+
+    @Value("${app.pagination.maxSize:100}")
+    private int tamanoPaginaMaximo;
 
     /**
      * Obtiene un pedido por ID
@@ -50,10 +75,7 @@ public class PedidoService {
             throw new IllegalArgumentException("ID de usuario inválido");
         }
 
-        Usuario usuario = usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado con ID: " + usuarioId));
-
-        return pedidoRepository.findByUsuario(usuario);
+        return pedidoRepository.findByUsuarioIdOrderByFechaDesc(usuarioId);
     }
 
     /**
@@ -63,6 +85,36 @@ public class PedidoService {
         return obtenerPedidosUsuario(usuarioId);
     }
 
+    /**
+     * Obtiene una página del historial del usuario (resúmenes sin ítems), del pedido más
+     * reciente al más antiguo. El cursor codifica la fecha y el ID del último resumen.
+     */
+    public CursorPage<PedidoResumen> obtenerResumenesUsuario(String usuarioId, String cursor, Integer size) {
+        if (usuarioId == null || usuarioId.trim().isEmpty()) {
+            throw new IllegalArgumentException("ID de usuario inválido");
+        }
+        int tamano = CursorPage.tamanoPagina(size, tamanoPaginaPorDefecto, tamanoPaginaMaximo);
+
+        LocalDateTime fecha = null;
+        String ultimoId = null;
+        String ultimo = CursorPage.decodificarCursor(cursor);
+        if (ultimo != null) {
+            int separador = ultimo.indexOf('|');
+            try {
+                fecha = LocalDateTime.parse(ultimo.substring(0, Math.max(separador, 0)));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            ultimoId = ultimo.substring(separador + 1);
+            if (!ObjectId.isValid(ultimoId)) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+        }
+
+        List<PedidoResumen> resumenes = pedidoRepository.buscarResumenes(usuarioId, fecha, ultimoId, tamano + 1);
+        return CursorPage.desde(resumenes, tamano, resumen -> resumen.getFecha() + "|" + resumen.getId());
+    }
+
     /**
      * Obtiene pedidos por estado
      */
@@ -84,10 +136,7 @@ public class PedidoService {
             throw new IllegalArgumentException("El estado no puede estar vacío");
         }
 
-        Usuario usuario = usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado con ID: " + usuarioId));
-
-        return pedidoRepository.findByUsuarioAndEstado(usuario, estado.trim());
+        return pedidoRepository.findByUsuarioIdAndEstadoOrderByFechaDesc(usuarioId, estado.trim());
     }
 
     /**
@@ -99,64 +148,105 @@ public class PedidoService {
             throw new IllegalArgumentException("ID de usuario inválido");
         }
 
-        Usuario usuario = usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado con ID: " + usuarioId));
+        // Tiempo total por resultado y tiempo de cada etapa (pedidos.checkout.etapa)
+        Timer.Sample muestra = metricas.iniciar();
+        String resultado = MetricasOperaciones.ERROR;
+        try {
+            // Obtener items del carrito (una sola consulta: cada línea lleva el snapshot del producto)
+            List<CarritoItem> carritoItems = metricas.medirEtapa(MetricasOperaciones.CHECKOUT_ETAPA, "leer_carrito",
+                    () -> carritoService.obtenerItems(usuarioId));
+
+            if (carritoItems.isEmpty()) {
+                resultado = MetricasOperaciones.CARRITO_VACIO;
+                throw new IllegalArgumentException("El carrito está vacío");
+            }
 
-        // Obtener items del carrito
-        List<CarritoItem> carritoItems = carritoItemRepository.findByUsuario(usuario);
+            // Crear pedido
+            Pedido pedido = new Pedido();
+            pedido.setUsuarioId(usuarioId);
+            pedido.setFecha(LocalDateTime.now());
+            pedido.setEstado(EstadoPedido.PENDIENTE.name());
 
-        if (carritoItems.isEmpty()) {
-            throw new IllegalArgumentException("El carrito está vacío");
-        }
+            // Calcular total y crear items del pedido
+            BigDecimal total = BigDecimal.ZERO;
+            int unidades = 0;
 
-        // Validar stock para todos los items
-        for (CarritoItem item : carritoItems) {
-            if (item.getProducto().getStock() < item.getCantidad()) {
-                throw new IllegalArgumentException(
-                        "No hay suficiente stock para el producto: " + item.getProducto().getNombre() +
-                        " (disponible: " + item.getProducto().getStock() +
-                        ", solicitado: " + item.getCantidad() + ")"
-                );
-            }
-        }
+            for (CarritoItem carritoItem : carritoItems) {
+                Producto producto = carritoItem.getProducto().toProducto();
 
-        // Crear pedido
-        Pedido pedido = new Pedido();
-        pedido.setUsuario(usuario);
-        pedido.setFecha(LocalDateTime.now());
-        pedido.setEstado("PENDIENTE");
+                // Crear item del pedido
+                PedidoItem pedidoItem = new PedidoItem(
+                        producto,
+                        carritoItem.getCantidad(),
+                        producto.getPrecio()
+                );
+                pedido.getItems().add(pedidoItem);
 
-        // Calcular total y crear items del pedido
-        BigDecimal total = BigDecimal.ZERO;
+                // Sumar al total
+                total = total.add(pedidoItem.getSubtotal());
+                unidades += carritoItem.getCantidad();
+            }
 
-        for (CarritoItem carritoItem : carritoItems) {
-            Producto producto = carritoItem.getProducto();
+            pedido.setTotal(total);
+
+            // Descontar stock de todas las líneas en un único bulk condicional
+            // (repone lo aplicado si alguna línea no tiene stock). Con reservas habilitadas
+            // se consume lo que el usuario tenía reservado y, si falla, se le devuelven sus reservas
+            Map<String, Integer> reservadas = reservaService.habilitadas()
+                    ? reservaService.tomar(usuarioId, productoIds(pedido.getItems()))
+                    : Map.of();
+            try {
+                metricas.medirEtapa(MetricasOperaciones.CHECKOUT_ETAPA, "descontar_stock",
+                        () -> productoService.descontarStock(pedido.getItems(), reservadas));
+            } catch (RuntimeException e) {
+                reservaService.restaurar(usuarioId, reservadas);
+                throw e;
+            }
 
-            // Crear item del pedido
-            PedidoItem pedidoItem = new PedidoItem(
-                    producto,
-                    carritoItem.getCantidad(),
-                    producto.getPrecio()
-            );
-            pedido.getItems().add(pedidoItem);
+            // Guardar pedido; si falla se repone el stock descontado y las reservas tomadas
+            Pedido pedidoGuardado;
+            try {
+                pedidoGuardado = metricas.medirEtapa(MetricasOperaciones.CHECKOUT_ETAPA, "insertar_pedido",
+                        () -> pedidoRepository.insert(pedido));
+            } catch (RuntimeException e) {
+                revertirDescuento(usuarioId, pedido.getItems(), reservadas);
+                throw e;
+            }
 
-            // Sumar al total
-            total = total.add(pedidoItem.getSubtotal());
+            // Vaciar carrito; si falla se deshace el pedido y se reponen el stock y las reservas
+            try {
+                metricas.medirEtapa(MetricasOperaciones.CHECKOUT_ETAPA, "vaciar_carrito",
+                        () -> carritoService.vaciar(usuarioId));
+            } catch (RuntimeException e) {
+                pedidoRepository.deleteById(pedidoGuardado.getId());
+                revertirDescuento(usuarioId, pedido.getItems(), reservadas);
+                throw e;
+            }
 
-            // Actualizar stock del producto
-            producto.setStock(producto.getStock() - carritoItem.getCantidad());
-            productoRepository.save(producto);
+            analiticaService.registrarCreacion(pedidoGuardado);
+            resultado = MetricasOperaciones.EXITO;
+            metricas.contar(MetricasOperaciones.CHECKOUT_UNIDADES, unidades);
+            return pedidoGuardado;
+        } catch (StockInsuficienteException e) {
+            resultado = MetricasOperaciones.SIN_STOCK;
+            throw e;
+        } finally {
+            metricas.registrar(muestra, MetricasOperaciones.CHECKOUT, resultado);
         }
+    }
 
-        pedido.setTotal(total);
-
-        // Guardar pedido
-        Pedido pedidoGuardado = pedidoRepository.save(pedido);
-
-        // Vaciar carrito
-        carritoItemRepository.deleteByUsuario(usuario);
+    /**
+     * Deshace el descuento de stock de un checkout que no se completó: repone stock y
+     * stockReservado tal como se descontaron y devuelve al comprador las reservas tomadas
+     */
+    private void revertirDescuento(String usuarioId, List<PedidoItem> items, Map<String, Integer> reservadas) {
+        metricas.medirEtapa(MetricasOperaciones.CHECKOUT_ETAPA, "reponer_stock",
+                () -> productoService.reponerStock(items, reservadas));
+        reservaService.restaurar(usuarioId, reservadas);
+    }
 
-        return pedidoGuardado;
+    private static List<String> productoIds(List<PedidoItem> items) {
+        return items.stream().map(item -> item.getProducto().getId()).distinct().toList();
     }
 
     /**
@@ -170,8 +260,9 @@ public class PedidoService {
             throw new IllegalArgumentException("Debe proporcionar al menos un item");
         }
 
-        Usuario usuario = usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado con ID: " + usuarioId));
+        if (!usuarioRepository.existsById(usuarioId)) {
+            throw new IllegalArgumentException("Usuario no encontrado con ID: " + usuarioId);
+        }
 
         // Validar stock
         for (PedidoItem item : items) {
@@ -183,68 +274,125 @@ public class PedidoService {
         }
 
         Pedido pedido = new Pedido();
-        pedido.setUsuario(usuario);
+        pedido.setUsuarioId(usuarioId);
         pedido.setFecha(LocalDateTime.now());
-        pedido.setEstado("PENDIENTE");
+        pedido.setEstado(EstadoPedido.PENDIENTE.name());
         pedido.setItems(items);
 
-        // Calcular total y actualizar stock
+        // Calcular total
         BigDecimal total = BigDecimal.ZERO;
         for (PedidoItem item : items) {
             total = total.add(item.getSubtotal());
-            item.getProducto().setStock(item.getProducto().getStock() - item.getCantidad());
-            productoRepository.save(item.getProducto());
         }
-
         pedido.setTotal(total);
-        return pedidoRepository.save(pedido);
+
+        // Descontar stock de todas las líneas en un único bulk condicional
+        productoService.descontarStock(items);
+
+        Pedido guardado;
+        try {
+            guardado = pedidoRepository.insert(pedido);
+        } catch (RuntimeException e) {
+            productoService.reponerStock(items);
+            throw e;
+        }
+        analiticaService.registrarCreacion(guardado);
+        return guardado;
     }
 
     /**
-     * Actualiza el estado de un pedido
+     * Actualiza el estado de un pedido según las transiciones de EstadoPedido. El cambio se aplica
+     * con un update condicional sobre el estado actual, sin leer el pedido antes: una transición
+     * no permitida, o que otro cambio concurrente dejó obsoleta, lanza TransicionInvalidaException.
      */
     public Pedido actualizarEstado(String pedidoId, String nuevoEstado) {
+        return actualizarEstado(pedidoId, nuevoEstado, null);
+    }
+
+    /**
+     * Igual que actualizarEstado, pero con usuarioId el pedido además debe ser de ese usuario
+     * (la condición va en el mismo update); null para administradores
+     */
+    public Pedido actualizarEstado(String pedidoId, String nuevoEstado, String usuarioId) {
         if (pedidoId == null || pedidoId.trim().isEmpty()) {
             throw new IllegalArgumentException("ID de pedido inválido");
         }
-        if (nuevoEstado == null || nuevoEstado.trim().isEmpty()) {
-            throw new IllegalArgumentException("El estado no puede estar vacío");
-        }
-
-        Pedido pedido = pedidoRepository.findById(pedidoId)
-                .orElseThrow(() -> new IllegalArgumentException("Pedido no encontrado con ID: " + pedidoId));
-
-        String estadoValido = nuevoEstado.trim().toUpperCase();
-        pedido.setEstado(estadoValido);
+        EstadoPedido estado = EstadoPedido.desde(nuevoEstado);
+
+        Timer.Sample muestra = metricas.iniciar();
+        String resultado = MetricasOperaciones.ERROR;
+        try {
+            PedidoRepositoryCustom.CambioEstado cambio = pedidoRepository.cambiarEstado(pedidoId, usuarioId,
+                    estado.origenes(), estado.name(), Map.of());
+            if (cambio == null) {
+                IllegalArgumentException rechazo = rechazo(pedidoId, usuarioId, estado);
+                resultado = MetricasOperaciones.resultado(rechazo);
+                throw rechazo;
+            }
 
-        return pedidoRepository.save(pedido);
+            analiticaService.registrarCambioEstado(cambio.pedido(), cambio.estadoAnterior());
+            resultado = MetricasOperaciones.EXITO;
+            return cambio.pedido();
+        } finally {
+            metricas.registrar(muestra, MetricasOperaciones.ACTUALIZAR_ESTADO, resultado);
+        }
     }
 
     /**
-     * Confirma el pago de un pedido con información de Transbank
+     * Confirma el pago de un pedido del usuario con información de Transbank (sólo desde PENDIENTE)
      */
-    public Pedido confirmarPago(String pedidoId, String numeroOrden, String codigoAutorizacion, 
+    public Pedido confirmarPago(String pedidoId, String usuarioId, String numeroOrden, String codigoAutorizacion, 
                                 String codigoRespuesta, String detallesTarjeta, 
                                 String tipoTarjeta, Integer cuotas) {
         if (pedidoId == null || pedidoId.trim().isEmpty()) {
             throw new IllegalArgumentException("ID de pedido inválido");
         }
 
-        Pedido pedido = pedidoRepository.findById(pedidoId)
-                .orElseThrow(() -> new IllegalArgumentException("Pedido no encontrado con ID: " + pedidoId));
+        Timer.Sample muestra = metricas.iniciar();
+        String resultado = MetricasOperaciones.ERROR;
+        try {
+            // Estado e información de pago en el mismo update condicional
+            LocalDateTime fechaPago = LocalDateTime.now();
+            Map<String, Object> pago = new LinkedHashMap<>();
+            pago.put("metodoPago", "Webpay Plus");
+            pago.put("numeroOrden", numeroOrden);
+            pago.put("codigoAutorizacion", codigoAutorizacion);
+            pago.put("codigoRespuesta", codigoRespuesta);
+            pago.put("fechaPago", fechaPago);
+            pago.put("detallesTarjeta", detallesTarjeta);
+            pago.put("tipoTarjeta", tipoTarjeta);
+            pago.put("cuotas", cuotas);
+
+            EstadoPedido confirmado = EstadoPedido.CONFIRMADO;
+            PedidoRepositoryCustom.CambioEstado cambio = pedidoRepository.cambiarEstado(pedidoId, usuarioId,
+                    confirmado.origenes(), confirmado.name(), pago);
+            if (cambio == null) {
+                IllegalArgumentException rechazo = rechazo(pedidoId, usuarioId, confirmado);
+                resultado = MetricasOperaciones.resultado(rechazo);
+                throw rechazo;
+            }
 
-        // Actualizar información de pago
-        pedido.setEstado("CONFIRMADO");
-        pedido.setMetodoPago("Webpay Plus");
-        pedido.setNumeroOrden(numeroOrden);
-        pedido.setCodigoAutorizacion(codigoAutorizacion);
-        pedido.setCodigoRespuesta(codigoRespuesta);
-        pedido.setFechaPago(LocalDateTime.now());
-        pedido.setDetallesTarjeta(detallesTarjeta);
-        pedido.setTipoTarjeta(tipoTarjeta);
-        pedido.setCuotas(cuotas);
-
-        return pedidoRepository.save(pedido);
+            analiticaService.registrarCambioEstado(cambio.pedido(), cambio.estadoAnterior());
+            resultado = MetricasOperaciones.EXITO;
+            return cambio.pedido();
+        } finally {
+            metricas.registrar(muestra, MetricasOperaciones.CONFIRMAR_PAGO, resultado);
+        }
+    }
+
+    /**
+     * Error de un cambio de estado que no se aplicó. Sólo en este caso se lee el pedido (una vez),
+     * para distinguir si no existe, si es de otro usuario o si su estado no permite la transición.
+     */
+    private IllegalArgumentException rechazo(String pedidoId, String usuarioId, EstadoPedido nuevo) {
+        Pedido actual = pedidoRepository.findById(pedidoId).orElse(null);
+        if (actual == null) {
+            return new PedidoNoEncontradoException(pedidoId);
+        }
+        if (usuarioId != null && !usuarioId.equals(actual.getUsuarioId())) {
+            return new PedidoAjenoException(pedidoId);
+        }
+        return new TransicionInvalidaException(pedidoId, actual.getEstado(), nuevo.name());
     }
 
     /**
@@ -266,6 +414,18 @@ public class PedidoService {
         return total;
     }
 
+    /**
+     * Obtiene una página de pedidos, del más reciente al más antiguo, a partir del cursor indicado
+     */
+    public CursorPage<Pedido> obtenerPagina(String cursor, Integer size) {
+        int tamano = CursorPage.tamanoPagina(size, tamanoPaginaPorDefecto, tamanoPaginaMaximo);
+        String ultimoId = CursorPage.decodificarCursorId(cursor);
+        List<Pedido> pedidos = ultimoId == null
+                ? pedidoRepository.findAllByOrderByIdDesc(Limit.of(tamano + 1))
+                : pedidoRepository.findByIdLessThanOrderByIdDesc(ultimoId, Limit.of(tamano + 1));
+        return CursorPage.desde(pedidos, tamano, Pedido::getId);
+    }
+
     /**
      * Obtiene todos los pedidos
      */
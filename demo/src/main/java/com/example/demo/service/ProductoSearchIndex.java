@@ -0,0 +1,251 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Producto;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria para la búsqueda de productos.
+ *
+ * Cada token de nombre, categoría y descripción se normaliza (minúsculas, sin tildes) y se
+ * indexa como término exacto, como prefijos (búsqueda mientras se escribe) y como trigramas
+ * (coincidencias dentro de la palabra). El costo de una búsqueda depende del número de
+ * productos que coinciden, no del tamaño del catálogo.
+ */
+@Component
+public class ProductoSearchIndex {
+
+    private static final double PESO_NOMBRE = 3.0;
+    private static final double PESO_CATEGORIA = 2.0;
+    private static final double PESO_DESCRIPCION = 1.0;
+
+    private static final double FACTOR_EXACTO = 1.0;
+    private static final double FACTOR_PREFIJO = 0.6;
+    private static final double FACTOR_TRIGRAMA = 0.3;
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    // término -> (productoId -> peso del campo con mayor peso donde aparece)
+    private final Map<String, Map<String, Double>> postings = new HashMap<>();
+    // productoId -> términos indexados (para poder quitar un producto sin recorrer todo el índice)
+    private final Map<String, Set<String>> terminosPorProducto = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile long construidoEn;
+
+    /**
+     * Reemplaza el contenido del índice por los productos indicados
+     */
+    public void reconstruir(Collection<Producto> productos) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            terminosPorProducto.clear();
+            for (Producto producto : productos) {
+                agregar(producto);
+            }
+            construidoEn = System.currentTimeMillis();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexa (o reindexa) un producto
+     */
+    public void indexar(Producto producto) {
+        if (producto == null || producto.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            quitar(producto.getId());
+            agregar(producto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un producto del índice
+     */
+    public void eliminar(String productoId) {
+        lock.writeLock().lock();
+        try {
+            quitar(productoId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Instante (epoch millis) de la última reconstrucción completa; 0 si nunca se construyó
+     */
+    public long getConstruidoEn() {
+        return construidoEn;
+    }
+
+    /**
+     * Busca productos que contengan todos los términos de la consulta y devuelve sus IDs
+     * ordenados por relevancia (nombre pesa más que categoría y ésta más que descripción)
+     */
+    public List<String> buscar(String consulta, int limite) {
+        List<String> tokens = tokenizar(consulta);
+        if (tokens.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        Map<String, Double> puntajes = null;
+        lock.readLock().lock();
+        try {
+            for (String token : tokens) {
+                Map<String, Double> puntajesToken = puntuarToken(token);
+                if (puntajes == null) {
+                    puntajes = puntajesToken;
+                } else {
+                    // Todos los términos deben coincidir: se conserva la intersección
+                    Map<String, Double> acumulado = puntajes;
+                    acumulado.keySet().retainAll(puntajesToken.keySet());
+                    acumulado.replaceAll((id, puntaje) -> puntaje + puntajesToken.get(id));
+                }
+                if (puntajes.isEmpty()) {
+                    return List.of();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return puntajes.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limite)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private Map<String, Double> puntuarToken(String token) {
+        Map<String, Double> puntajes = new HashMap<>();
+        acumularMaximo(puntajes, postings.get(exacto(token)), FACTOR_EXACTO);
+        acumularMaximo(puntajes, postings.get(prefijo(token)), FACTOR_PREFIJO);
+
+        if (token.length() >= 3) {
+            // Coincidencia dentro de la palabra: el producto debe tener todos los trigramas del token
+            Map<String, Double> candidatos = null;
+            for (String trigrama : trigramas(token)) {
+                Map<String, Double> posting = postings.get(trigrama);
+                if (posting == null) {
+                    candidatos = null;
+                    break;
+                }
+                if (candidatos == null) {
+                    candidatos = new HashMap<>(posting);
+                } else {
+                    candidatos.keySet().retainAll(posting.keySet());
+                    candidatos.replaceAll((id, peso) -> Math.min(peso, posting.get(id)));
+                }
+                if (candidatos.isEmpty()) {
+                    break;
+                }
+            }
+            acumularMaximo(puntajes, candidatos, FACTOR_TRIGRAMA);
+        }
+        return puntajes;
+    }
+
+    private static void acumularMaximo(Map<String, Double> puntajes, Map<String, Double> posting, double factor) {
+        if (posting == null) {
+            return;
+        }
+        posting.forEach((id, peso) -> puntajes.merge(id, peso * factor, Math::max));
+    }
+
+    private void agregar(Producto producto) {
+        Map<String, Double> terminos = new HashMap<>();
+        agregarCampo(terminos, producto.getNombre(), PESO_NOMBRE);
+        agregarCampo(terminos, producto.getCategoria(), PESO_CATEGORIA);
+        agregarCampo(terminos, producto.getDescripcion(), PESO_DESCRIPCION);
+
+        String id = producto.getId();
+        terminos.forEach((termino, peso) -> postings.computeIfAbsent(termino, t -> new HashMap<>()).put(id, peso));
+        terminosPorProducto.put(id, new HashSet<>(terminos.keySet()));
+    }
+
+    private static void agregarCampo(Map<String, Double> terminos, String texto, double peso) {
+        for (String token : tokenizar(texto)) {
+            terminos.merge(exacto(token), peso, Math::max);
+            for (int i = 1; i < token.length(); i++) {
+                terminos.merge(prefijo(token.substring(0, i)), peso, Math::max);
+            }
+            for (String trigrama : trigramas(token)) {
+                terminos.merge(trigrama, peso, Math::max);
+            }
+        }
+    }
+
+    private void quitar(String productoId) {
+        Set<String> terminos = terminosPorProducto.remove(productoId);
+        if (terminos == null) {
+            return;
+        }
+        for (String termino : terminos) {
+            Map<String, Double> posting = postings.get(termino);
+            if (posting != null) {
+                posting.remove(productoId);
+                if (posting.isEmpty()) {
+                    postings.remove(termino);
+                }
+            }
+        }
+    }
+
+    /**
+     * Pasa a minúsculas y elimina tildes y diacríticos ("Brócoli" -> "brocoli")
+     */
+    static String normalizar(String texto) {
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return MARCAS_DIACRITICAS.matcher(descompuesto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : SEPARADORES.split(normalizar(texto))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    private static String exacto(String token) {
+        return "=" + token;
+    }
+
+    private static String prefijo(String inicio) {
+        return "^" + inicio;
+    }
+
+    private static Set<String> trigramas(String token) {
+        Set<String> trigramas = new HashSet<>();
+        for (int i = 0; i + 3 <= token.length(); i++) {
+            trigramas.add("#" + token.substring(i, i + 3));
+        }
+        return trigramas;
+    }
+}
@@ -1,20 +1,154 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.TtlCache;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.entity.PedidoItem;
 import com.example.demo.entity.Producto;
+import com.example.demo.entity.ProductoSnapshot;
 import com.example.demo.repository.ProductoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductoService {
 
+    private static final String CLAVE_TODOS = "todos";
+    private static final String PREFIJO_CATEGORIA = "categoria:";
+
     @Autowired
     private ProductoRepository productoRepository;
 
+    @Autowired
+    private CarritoService carritoService;
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ProductoSearchIndex indiceBusqueda;
+
+    @Value("${app.search.defaultLimit:20}")
+    private int limiteBusquedaPorDefecto;
+
+    @Value("${app.search.maxLimit:100}")
+    private int limiteBusquedaMaximo;
+
+    @Value("${app.search.rebuildIntervalMs:600000}")
+    private long intervaloReconstruccionMs;
+
+    // ReentrantLock en lugar de synchronized: la reconstrucción consulta la base de datos
+    // y no debe fijar el hilo portador cuando se ejecuta en un hilo virtual
+    private final ReentrantLock lockReconstruccion = new ReentrantLock();
+
+    @Value("${app.catalogCache.maxEntries:500}")
+    private int cacheMaxEntries;
+
+    @Value("${app.catalogCache.ttlMs:300000}")
+    private long cacheTtlMs;
+
+    @Value("${app.pagination.defaultSize:20}")
+    private int tamanoPaginaPorDefecto;
+
+    @Value("${app.pagination.maxSize:100}")
+    private int tamanoPaginaMaximo;
+
+    // Caché del catálogo: productos por ID y listados (todos / por categoría).
+    // Se guardan y entregan copias para que los llamadores puedan modificar lo que reciben.
+    private TtlCache<String, Producto> cacheProductos;
+    private TtlCache<String, List<Producto>> cacheListados;
+
+    @PostConstruct
+    void inicializarCache() {
+        cacheProductos = new TtlCache<String, Producto>(cacheMaxEntries, cacheTtlMs)
+                .registrarMetricas(meterRegistry, "productos");
+        cacheListados = new TtlCache<String, List<Producto>>(cacheMaxEntries, cacheTtlMs)
+                .registrarMetricas(meterRegistry, "productos.listados");
+    }
+
+    /**
+     * Construye el índice de búsqueda una vez cargados los datos iniciales
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruirIndiceBusqueda() {
+        indiceBusqueda.reconstruir(productoRepository.findAll());
+    }
+
+    /**
+     * Reconstruye el índice periódicamente para recoger cambios hechos fuera de este servicio
+     * (otras instancias, carga de datos). Sólo reconstruye el hilo que obtiene el lock; los demás
+     * no lo esperan y siguen buscando en el índice actual mientras tanto.
+     */
+    private void reconstruirIndiceSiVencido() {
+        if (!indiceVencido() || !lockReconstruccion.tryLock()) {
+            return;
+        }
+        try {
+            // Otro hilo pudo reconstruirlo entre la verificación y el lock
+            if (indiceVencido()) {
+                reconstruirIndiceBusqueda();
+            }
+        } finally {
+            lockReconstruccion.unlock();
+        }
+    }
+
+    private boolean indiceVencido() {
+        return System.currentTimeMillis() - indiceBusqueda.getConstruidoEn() > intervaloReconstruccionMs;
+    }
+
+    /**
+     * Invalida toda la caché del catálogo
+     */
+    public void invalidarCache() {
+        cacheProductos.invalidateAll();
+        cacheListados.invalidateAll();
+    }
+
+    /**
+     * Invalida sólo los productos modificados y los listados que los incluyen: el de todos y el
+     * de cada categoría indicada. Con una categoría desconocida (null) invalida todos los listados.
+     */
+    private void invalidarProductos(Collection<String> ids, Collection<String> categorias) {
+        for (String id : ids) {
+            cacheProductos.invalidate(id);
+        }
+        if (categorias.contains(null)) {
+            cacheListados.invalidateAll();
+            return;
+        }
+        cacheListados.invalidate(CLAVE_TODOS);
+        for (String categoria : categorias) {
+            cacheListados.invalidate(PREFIJO_CATEGORIA + categoria.trim());
+        }
+    }
+
+    private void invalidarProducto(String id, String... categorias) {
+        invalidarProductos(List.of(id), Arrays.asList(categorias));
+    }
+
     /**
      * Obtiene un producto por ID
      */
@@ -22,7 +156,8 @@ public class ProductoService {
         if (id == null || id.trim().isEmpty()) {
             throw new IllegalArgumentException("ID inválido");
         }
-        return productoRepository.findById(id);
+        Producto producto = cacheProductos.get(id, clave -> productoRepository.findById(clave).orElse(null));
+        return Optional.ofNullable(producto).map(Producto::new);
     }
 
     /**
@@ -36,7 +171,7 @@ public class ProductoService {
      * Obtiene todos los productos
      */
     public List<Producto> obtenerTodos() {
-        return productoRepository.findAll();
+        return copiar(cacheListados.get(CLAVE_TODOS, clave -> productoRepository.findAll()));
     }
 
     /**
@@ -46,6 +181,18 @@ public class ProductoService {
         return obtenerTodos();
     }
 
+    /**
+     * Obtiene una página de productos ordenados por ID a partir del cursor indicado
+     */
+    public CursorPage<Producto> listarPagina(String cursor, Integer size) {
+        int tamano = CursorPage.tamanoPagina(size, tamanoPaginaPorDefecto, tamanoPaginaMaximo);
+        String ultimoId = CursorPage.decodificarCursorId(cursor);
+        List<Producto> productos = ultimoId == null
+                ? productoRepository.findAllByOrderByIdAsc(Limit.of(tamano + 1))
+                : productoRepository.findByIdGreaterThanOrderByIdAsc(ultimoId, Limit.of(tamano + 1));
+        return CursorPage.desde(productos, tamano, Producto::getId);
+    }
+
     /**
      * Crea un nuevo producto con validaciones (sobrecargado para recibir Producto)
      */
@@ -69,7 +216,10 @@ public class ProductoService {
         }
         producto.setCategoria(producto.getCategoria().trim());
 
-        return productoRepository.save(producto);
+        Producto guardado = productoRepository.save(producto);
+        invalidarProducto(guardado.getId(), guardado.getCategoria());
+        indiceBusqueda.indexar(guardado);
+        return guardado;
     }
 
     /**
@@ -97,7 +247,10 @@ public class ProductoService {
         producto.setStock(stock);
         producto.setCategoria(categoria.trim());
 
-        return productoRepository.save(producto);
+        Producto guardado = productoRepository.save(producto);
+        invalidarProducto(guardado.getId(), guardado.getCategoria());
+        indiceBusqueda.indexar(guardado);
+        return guardado;
     }
 
     /**
@@ -121,10 +274,17 @@ public class ProductoService {
         }
 
         // Verificar que existe
-        productoRepository.findById(producto.getId())
+        Producto existente = productoRepository.findById(producto.getId())
                 .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado con ID: " + producto.getId()));
+        ProductoSnapshot snapshotAnterior = new ProductoSnapshot(existente);
+        // El contador de reservas lo mantienen las reservas, no el formulario de edición
+        producto.setStockReservado(existente.getStockReservado());
 
-        return productoRepository.save(producto);
+        Producto guardado = productoRepository.save(producto);
+        invalidarProducto(guardado.getId(), snapshotAnterior.getCategoria(), guardado.getCategoria());
+        indiceBusqueda.indexar(guardado);
+        refrescarCarritos(snapshotAnterior, guardado);
+        return guardado;
     }
 
     /**
@@ -137,6 +297,7 @@ public class ProductoService {
 
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado con ID: " + id));
+        ProductoSnapshot snapshotAnterior = new ProductoSnapshot(producto);
 
         if (nombre != null && !nombre.trim().isEmpty()) {
             producto.setNombre(nombre.trim());
@@ -154,17 +315,56 @@ public class ProductoService {
             producto.setCategoria(categoria.trim());
         }
 
-        return productoRepository.save(producto);
+        Producto guardado = productoRepository.save(producto);
+        invalidarProducto(guardado.getId(), snapshotAnterior.getCategoria(), guardado.getCategoria());
+        indiceBusqueda.indexar(guardado);
+        refrescarCarritos(snapshotAnterior, guardado);
+        return guardado;
     }
 
     /**
      * Busca productos por nombre (case-insensitive)
      */
     public List<Producto> buscarPorNombre(String nombre) {
-        if (nombre == null || nombre.trim().isEmpty()) {
+        return buscar(nombre, null);
+    }
+
+    /**
+     * Devuelve los IDs de los productos que coinciden con la consulta, ordenados por relevancia
+     * (sólo consulta el índice en memoria; el llamador decide cómo cargar los productos)
+     */
+    public List<String> buscarIds(String consulta, Integer limite) {
+        if (consulta == null || consulta.trim().isEmpty()) {
             throw new IllegalArgumentException("El nombre no puede estar vacío");
         }
-        return productoRepository.findByNombreContainingIgnoreCase(nombre.trim());
+        if (limite != null && limite <= 0) {
+            throw new IllegalArgumentException("El límite debe ser mayor a 0");
+        }
+        int limiteEfectivo = Math.min(limite != null ? limite : limiteBusquedaPorDefecto, limiteBusquedaMaximo);
+
+        reconstruirIndiceSiVencido();
+
+        return indiceBusqueda.buscar(consulta, limiteEfectivo);
+    }
+
+    /**
+     * Busca productos en nombre, descripción y categoría usando el índice invertido
+     * (sin distinguir mayúsculas ni tildes), ordenados por relevancia
+     */
+    public List<Producto> buscar(String consulta, Integer limite) {
+        List<String> ids = buscarIds(consulta, limite);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Producto> porId = new HashMap<>();
+        for (Producto producto : productoRepository.findAllById(ids)) {
+            porId.put(producto.getId(), producto);
+        }
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     /**
@@ -174,7 +374,9 @@ public class ProductoService {
         if (categoria == null || categoria.trim().isEmpty()) {
             throw new IllegalArgumentException("La categoría no puede estar vacía");
         }
-        return productoRepository.findByCategoria(categoria.trim());
+        String categoriaNormalizada = categoria.trim();
+        return copiar(cacheListados.get(PREFIJO_CATEGORIA + categoriaNormalizada,
+                clave -> productoRepository.findByCategoria(categoriaNormalizada)));
     }
 
     /**
@@ -184,7 +386,21 @@ public class ProductoService {
         if (id == null || id.trim().isEmpty()) {
             throw new IllegalArgumentException("ID inválido");
         }
+        String categoria = productoRepository.findById(id).map(Producto::getCategoria).orElse(null);
         productoRepository.deleteById(id);
+        invalidarProducto(id, categoria);
+        indiceBusqueda.eliminar(id);
+        carritoService.eliminarProducto(id);
+    }
+
+    /**
+     * Propaga a los carritos los cambios de nombre, precio, imagen o categoría de un producto
+     */
+    private void refrescarCarritos(ProductoSnapshot anterior, Producto actualizado) {
+        ProductoSnapshot nuevo = new ProductoSnapshot(actualizado);
+        if (!nuevo.equals(anterior)) {
+            carritoService.actualizarSnapshotProducto(nuevo);
+        }
     }
 
     /**
@@ -198,15 +414,94 @@ public class ProductoService {
             throw new IllegalArgumentException("La cantidad no puede ser nula");
         }
 
-        Producto producto = productoRepository.findById(productoId)
-                .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado con ID: " + productoId));
+        // Update condicional en la base de datos: no hay ventana entre la lectura y la escritura
+        boolean aplicado = cantidad < 0
+                ? productoRepository.descontarStock(productoId, -cantidad)
+                : productoRepository.reponerStock(productoId, cantidad);
 
-        int nuevoStock = producto.getStock() + cantidad;
-        if (nuevoStock < 0) {
+        if (!aplicado) {
+            if (!productoRepository.existsById(productoId)) {
+                throw new IllegalArgumentException("Producto no encontrado con ID: " + productoId);
+            }
             throw new IllegalArgumentException("No hay suficiente stock disponible");
         }
+        // Sin la categoría a mano se invalidan los listados, pero sólo este producto
+        invalidarProducto(productoId, (String) null);
+    }
+
+    /**
+     * Descuenta el stock de todas las líneas en una única operación bulk con descuentos
+     * condicionales. Si alguna línea no tiene stock suficiente, se reponen las ya descontadas
+     * y se lanza StockInsuficienteException indicando el producto que falló.
+     */
+    public void descontarStock(List<PedidoItem> items) {
+        descontarStock(items, Map.of());
+    }
+
+    /**
+     * Igual que descontarStock(items), consumiendo las unidades que el comprador tenía reservadas
+     * (productoId -> cantidad). Con reservas habilitadas sólo se vende el stock no reservado por
+     * otros carritos.
+     */
+    public void descontarStock(List<PedidoItem> items, Map<String, Integer> reservadas) {
+        Map<String, Integer> cantidades = agruparPorProducto(items);
+        try {
+            String fallido = reservaService.habilitadas()
+                    ? productoRepository.descontarStockReservadoEnLote(cantidades, reservadas)
+                    : productoRepository.descontarStockEnLote(cantidades);
+            if (fallido != null) {
+                String nombre = items.stream()
+                        .filter(item -> fallido.equals(item.getProducto().getId()))
+                        .map(item -> item.getProducto().getNombre())
+                        .findFirst()
+                        .orElse(fallido);
+                throw new StockInsuficienteException(fallido, nombre, cantidades.get(fallido));
+            }
+        } finally {
+            invalidarProductos(cantidades.keySet(), categorias(items));
+        }
+    }
+
+    /**
+     * Repone el stock de las líneas indicadas en una única operación bulk (compensación de un descuento)
+     */
+    public void reponerStock(List<PedidoItem> items) {
+        Map<String, Integer> cantidades = agruparPorProducto(items);
+        productoRepository.reponerStockEnLote(cantidades);
+        invalidarProductos(cantidades.keySet(), categorias(items));
+    }
+
+    /**
+     * Revierte descontarStock(items, reservadas): con reservas habilitadas también vuelve a
+     * contar en stockReservado lo que el comprador tenía reservado
+     */
+    public void reponerStock(List<PedidoItem> items, Map<String, Integer> reservadas) {
+        if (!reservaService.habilitadas()) {
+            reponerStock(items);
+            return;
+        }
+        Map<String, Integer> cantidades = agruparPorProducto(items);
+        productoRepository.reponerStockReservadoEnLote(cantidades, reservadas);
+        invalidarProductos(cantidades.keySet(), categorias(items));
+    }
+
+    private static Set<String> categorias(List<PedidoItem> items) {
+        Set<String> categorias = new HashSet<>();
+        for (PedidoItem item : items) {
+            categorias.add(item.getCategoria() != null ? item.getCategoria() : item.getProducto().getCategoria());
+        }
+        return categorias;
+    }
+
+    private static Map<String, Integer> agruparPorProducto(List<PedidoItem> items) {
+        Map<String, Integer> cantidades = new LinkedHashMap<>();
+        for (PedidoItem item : items) {
+            cantidades.merge(item.getProducto().getId(), item.getCantidad(), Integer::sum);
+        }
+        return cantidades;
+    }
 
-        producto.setStock(nuevoStock);
-        productoRepository.save(producto);
+    private static List<Producto> copiar(List<Producto> productos) {
+        return productos.stream().map(Producto::new).collect(Collectors.toList());
     }
 }
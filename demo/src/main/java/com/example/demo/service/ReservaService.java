@@ -0,0 +1,217 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Producto;
+import com.example.demo.entity.Reserva;
+import com.example.demo.repository.ProductoRepository;
+import com.example.demo.repository.ReservaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reservas de stock por línea de carrito (app.reservas.habilitadas=true).
+ *
+ * Al agregar o cambiar una línea se retiene la cantidad en Producto.stockReservado durante
+ * app.reservas.ttlMs; el checkout consume lo reservado y las reservas vencidas se liberan en
+ * lotes con un barrido periódico sobre el índice por expiraEn (no se revisa carrito por carrito).
+ * No se usa un índice TTL de MongoDB porque su borrado no descontaría stockReservado.
+ */
+@Service
+public class ReservaService {
+    private static final Logger logger = LoggerFactory.getLogger(ReservaService.class);
+
+    private static final int MAX_INTENTOS = 5;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.reservas.habilitadas:false}")
+    private boolean habilitadas;
+
+    @Value("${app.reservas.ttlMs:900000}")
+    private long ttlMs;
+
+    @Value("${app.reservas.barrido.lote:500}")
+    private int tamanoLote;
+
+    public boolean habilitadas() {
+        return habilitadas;
+    }
+
+    /**
+     * Deja reservadas exactamente `cantidad` unidades del producto para el usuario (0 libera la
+     * reserva) y renueva su vencimiento. Lanza StockInsuficienteException si no hay stock
+     * disponible para la diferencia.
+     */
+    public void reservar(String usuarioId, String productoId, int cantidad) {
+        if (cantidad < 0) {
+            throw new IllegalArgumentException("Cantidad inválida");
+        }
+        if (cantidad == 0) {
+            liberar(usuarioId, productoId);
+            return;
+        }
+
+        // Cada paso es condicional sobre lo leído; si otra operación (o el barrido) cambió la
+        // reserva entre medio, se deshace lo aplicado y se vuelve a intentar
+        for (int intento = 0; intento < MAX_INTENTOS; intento++) {
+            Optional<Reserva> actual = reservaRepository.findByUsuarioIdAndProductoId(usuarioId, productoId);
+            int anterior = actual.map(Reserva::getCantidad).orElse(0);
+            int diferencia = cantidad - anterior;
+            Instant expiraEn = Instant.now().plusMillis(ttlMs);
+
+            // Primero se retiene el stock adicional, para que lo reservado nunca supere lo retenido
+            if (diferencia > 0 && !productoRepository.reservarStock(productoId, diferencia)) {
+                String nombre = productoRepository.findById(productoId).map(Producto::getNombre).orElse(productoId);
+                throw new StockInsuficienteException(productoId, nombre, cantidad);
+            }
+
+            boolean aplicado;
+            if (actual.isPresent()) {
+                aplicado = reservaRepository.actualizarCantidad(actual.get().getId(), anterior, cantidad, expiraEn);
+            } else {
+                try {
+                    reservaRepository.insert(new Reserva(usuarioId, productoId, cantidad, expiraEn));
+                    aplicado = true;
+                } catch (DuplicateKeyException e) {
+                    aplicado = false;
+                }
+            }
+
+            if (aplicado) {
+                // Al reducir, lo sobrante se devuelve recién después de actualizar la reserva
+                if (diferencia < 0) {
+                    productoRepository.liberarStockReservado(Map.of(productoId, -diferencia));
+                }
+                return;
+            }
+            if (diferencia > 0) {
+                productoRepository.liberarStockReservado(Map.of(productoId, diferencia));
+            }
+        }
+        throw new IllegalArgumentException("No se pudo reservar el producto, intente nuevamente");
+    }
+
+    /**
+     * Elimina la reserva del producto para el usuario y devuelve sus unidades al stock disponible
+     */
+    public void liberar(String usuarioId, String productoId) {
+        Reserva reserva = reservaRepository.quitar(usuarioId, productoId);
+        if (reserva != null) {
+            productoRepository.liberarStockReservado(Map.of(productoId, reserva.getCantidad()));
+        }
+    }
+
+    /**
+     * Libera todas las reservas del usuario (carrito vaciado)
+     */
+    public void liberarTodas(String usuarioId) {
+        Map<String, Integer> liberadas = new LinkedHashMap<>();
+        for (Reserva reserva : reservaRepository.findByUsuarioId(usuarioId)) {
+            Reserva quitada = reservaRepository.quitar(usuarioId, reserva.getProductoId());
+            if (quitada != null) {
+                liberadas.merge(quitada.getProductoId(), quitada.getCantidad(), Integer::sum);
+            }
+        }
+        productoRepository.liberarStockReservado(liberadas);
+    }
+
+    /**
+     * Unidades reservadas por el usuario (productoId -> cantidad)
+     */
+    public Map<String, Integer> reservadasPor(String usuarioId) {
+        Map<String, Integer> reservadas = new LinkedHashMap<>();
+        for (Reserva reserva : reservaRepository.findByUsuarioId(usuarioId)) {
+            reservadas.merge(reserva.getProductoId(), reserva.getCantidad(), Integer::sum);
+        }
+        return reservadas;
+    }
+
+    /**
+     * Quita las reservas de los productos indicados y devuelve lo reservado (productoId -> cantidad)
+     * para que el checkout lo consuma. Las unidades siguen contadas en stockReservado hasta que
+     * el checkout las descuenta o se devuelven con restaurar().
+     */
+    public Map<String, Integer> tomar(String usuarioId, Collection<String> productoIds) {
+        Map<String, Integer> reservadas = new LinkedHashMap<>();
+        for (String productoId : productoIds) {
+            Reserva reserva = reservaRepository.quitar(usuarioId, productoId);
+            if (reserva != null) {
+                reservadas.put(productoId, reserva.getCantidad());
+            }
+        }
+        return reservadas;
+    }
+
+    /**
+     * Vuelve a crear las reservas tomadas por un checkout que no se completó
+     */
+    public void restaurar(String usuarioId, Map<String, Integer> reservadas) {
+        Instant expiraEn = Instant.now().plusMillis(ttlMs);
+        reservadas.forEach((productoId, cantidad) -> {
+            try {
+                reservaRepository.insert(new Reserva(usuarioId, productoId, cantidad, expiraEn));
+            } catch (DuplicateKeyException e) {
+                // El usuario ya volvió a reservar el producto: se devuelven las unidades tomadas
+                productoRepository.liberarStockReservado(Map.of(productoId, cantidad));
+            }
+        });
+    }
+
+    /**
+     * Elimina las reservas de un producto borrado del catálogo
+     */
+    public void olvidarProducto(String productoId) {
+        reservaRepository.deleteByProductoId(productoId);
+    }
+
+    /**
+     * Libera las reservas vencidas en lotes: cada reserva se elimina sólo si sigue vencida
+     * (una renovación o un checkout concurrente la conserva) y las unidades liberadas de cada
+     * lote se devuelven a los productos en una sola operación bulk
+     */
+    @Scheduled(fixedDelayString = "${app.reservas.barrido.intervaloMs:30000}")
+    public void liberarVencidas() {
+        if (!habilitadas) {
+            return;
+        }
+        Instant ahora = Instant.now();
+        int total = 0;
+        List<Reserva> lote;
+        do {
+            lote = reservaRepository.findByExpiraEnLessThanEqualOrderByExpiraEnAsc(ahora, Limit.of(tamanoLote));
+            Map<String, Integer> liberadas = new LinkedHashMap<>();
+            for (Reserva reserva : lote) {
+                if (reservaRepository.quitarSiVencida(reserva.getId(), ahora)) {
+                    liberadas.merge(reserva.getProductoId(), reserva.getCantidad(), Integer::sum);
+                    total++;
+                }
+            }
+            productoRepository.liberarStockReservado(liberadas);
+        } while (lote.size() == tamanoLote);
+
+        if (total > 0) {
+            meterRegistry.counter("reservas.vencidas").increment(total);
+            logger.info("Reservas vencidas liberadas: {}", total);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.service;
+
+/**
+ * Se lanza cuando el descuento condicional de stock no se aplica a una línea del pedido.
+ * Extiende IllegalArgumentException para que los manejadores existentes la sigan tratando
+ * como error de validación.
+ */
+public class StockInsuficienteException extends IllegalArgumentException {
+
+    private final String productoId;
+    private final Integer solicitado;
+
+    public StockInsuficienteException(String productoId, String nombreProducto, Integer solicitado) {
+        super("No hay suficiente stock para el producto: " + nombreProducto + " (solicitado: " + solicitado + ")");
+        this.productoId = productoId;
+        this.solicitado = solicitado;
+    }
+
+    public String getProductoId() {
+        return productoId;
+    }
+
+    public Integer getSolicitado() {
+        return solicitado;
+    }
+}
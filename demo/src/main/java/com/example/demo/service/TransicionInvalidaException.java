@@ -0,0 +1,27 @@
+package com.example.demo.service;
+
+/**
+ * Se lanza cuando el cambio de estado condicional no se aplica: la transición no está permitida
+ * desde el estado actual del pedido (o éste cambió mientras tanto). Extiende
+ * IllegalArgumentException para que los manejadores existentes la sigan tratando como error
+ * de validación.
+ */
+public class TransicionInvalidaException extends IllegalArgumentException {
+
+    private final String estadoActual;
+    private final String estadoSolicitado;
+
+    public TransicionInvalidaException(String pedidoId, String estadoActual, String estadoSolicitado) {
+        super("El pedido " + pedidoId + " está " + estadoActual + " y no puede pasar a " + estadoSolicitado);
+        this.estadoActual = estadoActual;
+        this.estadoSolicitado = estadoSolicitado;
+    }
+
+    public String getEstadoActual() {
+        return estadoActual;
+    }
+
+    public String getEstadoSolicitado() {
+        return estadoSolicitado;
+    }
+}
@@ -1,13 +1,19 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.CursorPage;
 import com.example.demo.entity.Usuario;
 import com.example.demo.entity.Rol;
 import com.example.demo.repository.UsuarioRepository;
 import com.example.demo.repository.RolRepository;
+import com.example.demo.security.TokenVersionService;
+import com.example.demo.security.UsuarioCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -22,6 +28,18 @@ public class UsuarioService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private UsuarioCache usuarioCache;
+
+    @Value("${app.pagination.defaultSize:20}")
+    private int tamanoPaginaPorDefecto;
+
+    @Value("${app.pagination.maxSize:100}")
+    private int tamanoPaginaMaximo;
+
     /**
      * Registra un nuevo usuario con validación de email único
      */
@@ -94,7 +112,11 @@ public class UsuarioService {
                 .orElseThrow(() -> new IllegalArgumentException("Rol no encontrado: " + nombreRol));
 
         usuario.getRoles().add(rol);
-        return usuarioRepository.save(usuario);
+        // Los tokens emitidos con los roles anteriores dejan de ser válidos
+        tokenVersionService.revocarTokens(usuario);
+        Usuario guardado = usuarioRepository.save(usuario);
+        usuarioCache.invalidar(guardado.getEmail());
+        return guardado;
     }
 
     /**
@@ -104,6 +126,18 @@ public class UsuarioService {
         return usuarioRepository.findAll();
     }
 
+    /**
+     * Obtiene una página de usuarios ordenados por ID a partir del cursor indicado
+     */
+    public CursorPage<Usuario> obtenerPagina(String cursor, Integer size) {
+        int tamano = CursorPage.tamanoPagina(size, tamanoPaginaPorDefecto, tamanoPaginaMaximo);
+        String ultimoId = CursorPage.decodificarCursorId(cursor);
+        List<Usuario> usuarios = ultimoId == null
+                ? usuarioRepository.findAllByOrderByIdAsc(Limit.of(tamano + 1))
+                : usuarioRepository.findByIdGreaterThanOrderByIdAsc(ultimoId, Limit.of(tamano + 1));
+        return CursorPage.desde(usuarios, tamano, Usuario::getId);
+    }
+
     /**
      * Elimina un usuario por ID
      */
@@ -112,26 +146,39 @@ public class UsuarioService {
             throw new IllegalArgumentException("ID inválido");
         }
         usuarioRepository.deleteById(id);
+        tokenVersionService.olvidar(id);
+        // La caché está indexada por email: se descarta completa (operación poco frecuente)
+        usuarioCache.invalidarTodo();
     }
 
     /**
-     * Verifica si la contraseña actual es correcta
+     * Verifica si la contraseña actual es correcta. Compara contra el usuario guardado en la base
+     * de datos, no contra la copia de la caché, que puede tener la contraseña anterior.
      */
     public boolean verificarPassword(Usuario usuario, String passwordIngresada) {
         if (usuario == null || passwordIngresada == null) {
             return false;
         }
-        return passwordEncoder.matches(passwordIngresada, usuario.getPassword());
+        return usuarioRepository.findById(usuario.getId())
+                .map(guardado -> passwordEncoder.matches(passwordIngresada, guardado.getPassword()))
+                .orElse(false);
     }
 
     /**
-     * Cambia la contraseña de un usuario
+     * Cambia la contraseña de un usuario. Se relee el usuario antes de modificarlo para no
+     * guardar roles o una versión de token desactualizados de la caché.
      */
-    public Usuario cambiarPassword(Usuario usuario, String nuevaPassword) {
-        if (usuario == null || nuevaPassword == null || nuevaPassword.trim().isEmpty()) {
+    public Usuario cambiarPassword(Usuario actual, String nuevaPassword) {
+        if (actual == null || nuevaPassword == null || nuevaPassword.trim().isEmpty()) {
             throw new IllegalArgumentException("Datos inválidos para cambiar contraseña");
         }
+        Usuario usuario = usuarioRepository.findById(actual.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado con ID: " + actual.getId()));
         usuario.setPassword(passwordEncoder.encode(nuevaPassword));
-        return usuarioRepository.save(usuario);
+        // Los tokens emitidos con la contraseña anterior dejan de ser válidos
+        tokenVersionService.revocarTokens(usuario);
+        Usuario guardado = usuarioRepository.save(usuario);
+        usuarioCache.invalidar(guardado.getEmail());
+        return guardado;
     }
 }
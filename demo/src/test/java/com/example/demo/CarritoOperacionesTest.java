@@ -0,0 +1,78 @@
+package com.example.demo;
+
+import com.example.demo.dto.CarritoOperacion;
+import com.example.demo.entity.Producto;
+import com.example.demo.repository.ProductoRepository;
+import com.example.demo.service.CarritoService;
+import com.example.demo.service.StockInsuficienteException;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CarritoService.aplicarOperaciones valida contra el stock disponible (sin lo reservado por
+ * otros carritos), igual que agregar un producto de a uno
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("memoria")
+class CarritoOperacionesTest {
+
+    @Autowired
+    private CarritoService carritoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Test
+    void noSuperaElStockReservadoPorOtros() {
+        // 3 de las 5 unidades quedaron retenidas por otros carritos
+        Producto producto = new Producto("Paltas", "Malla 1 kg", new BigDecimal("3990"), 5, "Frutas");
+        producto.setStockReservado(3);
+        producto = productoRepository.save(producto);
+        String usuarioId = new ObjectId().toHexString();
+
+        String productoId = producto.getId();
+        assertThrows(StockInsuficienteException.class, () -> carritoService.aplicarOperaciones(usuarioId,
+                List.of(new CarritoOperacion(CarritoOperacion.FIJAR, productoId, 3))));
+        assertTrue(carritoService.obtenerItems(usuarioId).isEmpty(), "El lote rechazado no debe aplicarse");
+
+        carritoService.aplicarOperaciones(usuarioId, List.of(new CarritoOperacion(CarritoOperacion.FIJAR, productoId, 2)));
+        assertEquals(2, carritoService.obtenerItems(usuarioId).get(0).getCantidad());
+    }
+
+    @Nested
+    @TestPropertySource(properties = "app.reservas.habilitadas=true")
+    class ConReservas {
+
+        @Test
+        void loReservadoPorElMismoUsuarioCuentaComoDisponible() {
+            Producto producto = productoRepository.save(
+                    new Producto("Limones", "Malla 1 kg", new BigDecimal("1990"), 5, "Frutas"));
+            String comprador = new ObjectId().toHexString();
+            String otro = new ObjectId().toHexString();
+            carritoService.agregar(comprador, producto, 1);
+            carritoService.agregar(otro, producto, 3);
+
+            // Disponible para el comprador: 5 - 4 reservadas + 1 propia = 2
+            String productoId = producto.getId();
+            assertThrows(StockInsuficienteException.class, () -> carritoService.aplicarOperaciones(comprador,
+                    List.of(new CarritoOperacion(CarritoOperacion.FIJAR, productoId, 3))));
+            assertEquals(1, carritoService.obtenerItems(comprador).get(0).getCantidad());
+
+            carritoService.aplicarOperaciones(comprador, List.of(new CarritoOperacion(CarritoOperacion.FIJAR, productoId, 2)));
+            assertEquals(2, carritoService.obtenerItems(comprador).get(0).getCantidad());
+            assertEquals(5, productoRepository.findById(productoId).orElseThrow().getStockReservado());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo;
+
+import com.example.demo.entity.CarritoItem;
+import com.example.demo.entity.Pedido;
+import com.example.demo.entity.Producto;
+import com.example.demo.entity.Reserva;
+import com.example.demo.repository.PedidoRepository;
+import com.example.demo.repository.ProductoRepository;
+import com.example.demo.repository.ReservaRepository;
+import com.example.demo.service.CarritoService;
+import com.example.demo.service.PedidoService;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Con reservas habilitadas, un checkout que falla después de descontar el stock (al guardar el
+ * pedido o al vaciar el carrito) deja stock, stockReservado y las reservas del comprador como
+ * estaban antes del checkout
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "app.reservas.habilitadas=true")
+@ActiveProfiles("memoria")
+class CheckoutCompensacionTest {
+
+    private static final int STOCK = 5;
+    private static final int EN_CARRITO = 2;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @MockitoSpyBean
+    private CarritoService carritoService;
+
+    @MockitoSpyBean
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    private Producto producto;
+    private String usuarioId;
+
+    @BeforeEach
+    void setUp() {
+        producto = productoRepository.save(new Producto("Frutillas", "Bandeja 500 g", new BigDecimal("2490"), STOCK, "Frutas"));
+        usuarioId = new ObjectId().toHexString();
+        carritoService.agregar(usuarioId, producto, EN_CARRITO);
+        assertEquals(EN_CARRITO, stockReservado());
+    }
+
+    @Test
+    void siFallaGuardarElPedidoSeReponenStockYReservas() {
+        doThrow(new IllegalStateException("Fallo al guardar")).when(pedidoRepository).insert(any(Pedido.class));
+
+        assertThrows(IllegalStateException.class, () -> pedidoService.crearPedidoDesdeCarrito(usuarioId));
+
+        verificarEstadoPrevio();
+    }
+
+    @Test
+    void siFallaVaciarElCarritoSeDeshaceElPedidoYSeReponenStockYReservas() {
+        doThrow(new IllegalStateException("Fallo al vaciar")).when(carritoService).vaciar(usuarioId);
+
+        assertThrows(IllegalStateException.class, () -> pedidoService.crearPedidoDesdeCarrito(usuarioId));
+
+        assertTrue(pedidoRepository.findByUsuarioIdOrderByFechaDesc(usuarioId).isEmpty(),
+                "El pedido debe eliminarse");
+        verificarEstadoPrevio();
+    }
+
+    private void verificarEstadoPrevio() {
+        Producto actual = productoRepository.findById(producto.getId()).orElseThrow();
+        assertEquals(STOCK, actual.getStock(), "El stock descontado debe reponerse");
+        assertEquals(EN_CARRITO, stockReservado(), "stockReservado debe volver a contar la reserva del comprador");
+
+        Reserva reserva = reservaRepository.findByUsuarioIdAndProductoId(usuarioId, producto.getId()).orElseThrow();
+        assertEquals(EN_CARRITO, reserva.getCantidad(), "La reserva del comprador debe restaurarse");
+
+        List<CarritoItem> carrito = carritoService.obtenerItems(usuarioId);
+        assertEquals(1, carrito.size());
+        assertEquals(EN_CARRITO, carrito.get(0).getCantidad());
+    }
+
+    private int stockReservado() {
+        Integer reservado = productoRepository.findById(producto.getId()).orElseThrow().getStockReservado();
+        return reservado == null ? 0 : reservado;
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.demo;
+
+import com.example.demo.entity.CarritoItem;
+import com.example.demo.entity.Pedido;
+import com.example.demo.entity.PedidoItem;
+import com.example.demo.entity.Producto;
+import com.example.demo.repository.PedidoRepository;
+import com.example.demo.repository.ProductoRepository;
+import com.example.demo.service.CarritoService;
+import com.example.demo.service.PedidoService;
+import com.example.demo.service.StockInsuficienteException;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de carga de PedidoService.crearPedidoDesdeCarrito con muchos compradores a la vez
+ * sobre productos con poco stock, como en el inicio de una oferta relámpago.
+ *
+ * Usa el perfil "memoria" como almacén local (no requiere MongoDB). Su descuento en lote
+ * aplica cada línea como un update condicional independiente y repone las ya aplicadas si una
+ * falla, igual que el bulk de MongoDB, así que los checkouts se intercalan entre líneas y la
+ * compensación queda ejercitada. Para cada nivel de concurrencia verifica que no se vende de
+ * más: el stock nunca queda negativo, lo pedido suma exactamente lo descontado y cada carrito
+ * se compra completo o se rechaza sin efectos.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("memoria")
+class CheckoutConcurrenteStressTest {
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutConcurrenteStressTest.class);
+
+    private static final int[] COMPRADORES = {1, 8, 64, 256};
+    private static final BigDecimal PRECIO = new BigDecimal("1990");
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private CarritoService carritoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Test
+    void checkoutConcurrenteNoVendeDeMas() throws Exception {
+        List<Resultado> resultados = new ArrayList<>();
+        for (int compradores : COMPRADORES) {
+            resultados.add(ejecutar(compradores));
+        }
+
+        StringBuilder reporte = new StringBuilder(String.format("%12s %10s %10s %12s %10s %10s",
+                "compradores", "pedidos", "rechazos", "checkout/s", "p50 ms", "p99 ms"));
+        for (Resultado resultado : resultados) {
+            reporte.append(String.format("%n%12d %10d %10d %12.0f %10.2f %10.2f",
+                    resultado.compradores, resultado.pedidos, resultado.rechazos,
+                    resultado.throughput, resultado.p50Ms, resultado.p99Ms));
+        }
+        logger.info("Checkout concurrente:\n{}", reporte);
+    }
+
+    private Resultado ejecutar(int compradores) throws Exception {
+        // Un producto muy disputado y otro que sólo algunos llevan: con poco stock en ambos
+        // hay carritos que fallan en la segunda línea después de pasar la primera
+        Producto disputado = crearProducto("Oferta " + compradores, Math.max(1, compradores));
+        Producto secundario = crearProducto("Complemento " + compradores, compradores / 4 + 1);
+
+        Random random = new Random(compradores);
+        Map<String, Map<String, Integer>> carritos = new HashMap<>();
+        List<String> usuarios = new ArrayList<>();
+        for (int i = 0; i < compradores; i++) {
+            String usuarioId = new ObjectId().toHexString();
+            Map<String, Integer> lineas = new HashMap<>();
+            lineas.put(disputado.getId(), 1 + random.nextInt(3));
+            carritoService.agregar(usuarioId, disputado, lineas.get(disputado.getId()));
+            if (random.nextBoolean()) {
+                lineas.put(secundario.getId(), 1 + random.nextInt(2));
+                carritoService.agregar(usuarioId, secundario, lineas.get(secundario.getId()));
+            }
+            carritos.put(usuarioId, lineas);
+            usuarios.add(usuarioId);
+        }
+
+        long[] latencias = new long[compradores];
+        Pedido[] pedidos = new Pedido[compradores];
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tareas = new ArrayList<>(compradores);
+
+        long inicio;
+        long duracion;
+        try (ExecutorService executor = Executors.newFixedThreadPool(compradores)) {
+            for (int i = 0; i < compradores; i++) {
+                int indice = i;
+                tareas.add(executor.submit(() -> {
+                    largada.await();
+                    long llegada = System.nanoTime();
+                    try {
+                        pedidos[indice] = pedidoService.crearPedidoDesdeCarrito(usuarios.get(indice));
+                    } catch (StockInsuficienteException e) {
+                        // Rechazo esperado: el carrito no debe haber cambiado
+                    } finally {
+                        latencias[indice] = System.nanoTime() - llegada;
+                    }
+                    return null;
+                }));
+            }
+            inicio = System.nanoTime();
+            largada.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get(2, TimeUnit.MINUTES);
+            }
+            duracion = System.nanoTime() - inicio;
+        }
+
+        // Cada carrito se compró completo (pedido = carrito, carrito vacío) o se rechazó sin efectos
+        Map<String, Integer> pedido = new HashMap<>();
+        int aceptados = 0;
+        for (int i = 0; i < compradores; i++) {
+            String usuarioId = usuarios.get(i);
+            Map<String, Integer> esperado = carritos.get(usuarioId);
+            List<Pedido> guardados = pedidoRepository.findByUsuarioIdOrderByFechaDesc(usuarioId);
+            if (pedidos[i] != null) {
+                aceptados++;
+                assertEquals(1, guardados.size(), "Debe existir exactamente un pedido del comprador");
+                assertEquals(esperado, cantidades(guardados.get(0).getItems()), "El pedido debe incluir el carrito completo");
+                assertTrue(carritoService.obtenerItems(usuarioId).isEmpty(), "El carrito comprado debe quedar vacío");
+                esperado.forEach((productoId, cantidad) -> pedido.merge(productoId, cantidad, Integer::sum));
+            } else {
+                assertTrue(guardados.isEmpty(), "Un carrito rechazado no debe generar pedido");
+                assertEquals(esperado, cantidadesCarrito(carritoService.obtenerItems(usuarioId)),
+                        "Un carrito rechazado debe quedar intacto");
+            }
+        }
+
+        // El stock nunca queda negativo y lo descontado es exactamente lo pedido
+        for (Producto producto : List.of(disputado, secundario)) {
+            int stockFinal = productoRepository.findById(producto.getId()).orElseThrow().getStock();
+            assertTrue(stockFinal >= 0, "Stock negativo en " + producto.getNombre() + ": " + stockFinal);
+            assertEquals(producto.getStock() - stockFinal, (int) pedido.getOrDefault(producto.getId(), 0),
+                    "El stock consumido de " + producto.getNombre() + " debe ser igual a lo pedido");
+        }
+        assertTrue(aceptados > 0, "Al menos un comprador debe completar su pedido");
+
+        Arrays.sort(latencias);
+        return new Resultado(compradores, aceptados, compradores - aceptados,
+                compradores / (duracion / 1_000_000_000.0),
+                latencias[compradores / 2] / 1_000_000.0,
+                latencias[(int) Math.ceil(compradores * 0.99) - 1] / 1_000_000.0);
+    }
+
+    private Producto crearProducto(String nombre, int stock) {
+        return productoRepository.save(new Producto(nombre, "Producto de la prueba de carga", PRECIO, stock, "Ofertas"));
+    }
+
+    private static Map<String, Integer> cantidades(List<PedidoItem> items) {
+        Map<String, Integer> cantidades = new HashMap<>();
+        for (PedidoItem item : items) {
+            cantidades.merge(item.getProducto().getId(), item.getCantidad(), Integer::sum);
+        }
+        return cantidades;
+    }
+
+    private static Map<String, Integer> cantidadesCarrito(List<CarritoItem> items) {
+        Map<String, Integer> cantidades = new HashMap<>();
+        for (CarritoItem item : items) {
+            cantidades.merge(item.getProducto().getId(), item.getCantidad(), Integer::sum);
+        }
+        return cantidades;
+    }
+
+    private record Resultado(int compradores, int pedidos, int rechazos, double throughput, double p50Ms, double p99Ms) {
+    }
+}
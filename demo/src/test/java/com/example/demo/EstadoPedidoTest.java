@@ -0,0 +1,71 @@
+package com.example.demo;
+
+import com.example.demo.entity.EstadoPedido;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.example.demo.entity.EstadoPedido.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * EstadoPedido: tabla de transiciones, orígenes usados en la condición del update y
+ * conversión desde el nombre recibido en la request
+ */
+class EstadoPedidoTest {
+
+    private static final Map<EstadoPedido, Set<EstadoPedido>> PERMITIDAS = Map.of(
+            PENDIENTE, EnumSet.of(CONFIRMADO, CANCELADO),
+            CONFIRMADO, EnumSet.of(EN_PROCESO, ENVIADO, CANCELADO),
+            EN_PROCESO, EnumSet.of(ENVIADO, CANCELADO),
+            ENVIADO, EnumSet.of(ENTREGADO),
+            ENTREGADO, EnumSet.noneOf(EstadoPedido.class),
+            CANCELADO, EnumSet.noneOf(EstadoPedido.class));
+
+    @Test
+    void soloPermiteLasTransicionesDeLaTabla() {
+        for (EstadoPedido actual : EstadoPedido.values()) {
+            for (EstadoPedido nuevo : EstadoPedido.values()) {
+                assertEquals(PERMITIDAS.get(actual).contains(nuevo), actual.puedePasarA(nuevo),
+                        actual + " -> " + nuevo);
+            }
+        }
+    }
+
+    @Test
+    void ningunEstadoPuedePasarASiMismo() {
+        for (EstadoPedido estado : EstadoPedido.values()) {
+            assertFalse(estado.puedePasarA(estado), estado.name());
+        }
+    }
+
+    @Test
+    void origenesDevuelveLosEstadosQuePuedenPasarAlIndicado() {
+        assertEquals(List.of(), PENDIENTE.origenes());
+        assertEquals(List.of("PENDIENTE"), CONFIRMADO.origenes());
+        assertEquals(List.of("CONFIRMADO"), EN_PROCESO.origenes());
+        assertEquals(List.of("CONFIRMADO", "EN_PROCESO"), ENVIADO.origenes());
+        assertEquals(List.of("ENVIADO"), ENTREGADO.origenes());
+        assertEquals(List.of("PENDIENTE", "CONFIRMADO", "EN_PROCESO"), CANCELADO.origenes());
+    }
+
+    @Test
+    void desdeAceptaElNombreSinDistinguirMayusculas() {
+        assertEquals(EN_PROCESO, EstadoPedido.desde("en_proceso"));
+        assertEquals(CANCELADO, EstadoPedido.desde("  Cancelado "));
+    }
+
+    @Test
+    void desdeRechazaNombresVaciosODesconocidos() {
+        assertThrows(IllegalArgumentException.class, () -> EstadoPedido.desde(null));
+        assertThrows(IllegalArgumentException.class, () -> EstadoPedido.desde(" "));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> EstadoPedido.desde(" PAGADO "));
+        assertEquals("Estado de pedido no válido: PAGADO", e.getMessage());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo;
+
+import com.example.demo.service.Idempotencia;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Una ejecución con Idempotency-Key que tarda más que enCursoMs no se repite: su registro
+ * EN_CURSO se renueva mientras corre y el reintento espera la respuesta original
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "app.idempotencia.enCursoMs=300")
+@ActiveProfiles("memoria")
+class IdempotenciaTest {
+
+    @Autowired
+    private Idempotencia idempotencia;
+
+    @Test
+    void unReintentoNoRepiteUnaEjecucionLentaQueSuperaEnCursoMs() throws Exception {
+        AtomicInteger ejecuciones = new AtomicInteger();
+        String usuarioId = new ObjectId().toHexString();
+
+        CompletableFuture<ResponseEntity<?>> primera = CompletableFuture.supplyAsync(() ->
+                idempotencia.ejecutar("clave-lenta", usuarioId, "prueba", null, () -> {
+                    ejecuciones.incrementAndGet();
+                    esperarMs(1200);
+                    return ResponseEntity.ok(Map.of("pedido", "1"));
+                }));
+
+        // El reintento llega cuando el registro ya habría vencido sin renovación
+        esperarMs(700);
+        ResponseEntity<?> reintento = idempotencia.ejecutar("clave-lenta", usuarioId, "prueba", null, () -> {
+            ejecuciones.incrementAndGet();
+            return ResponseEntity.ok(Map.of("pedido", "2"));
+        });
+
+        assertEquals(200, primera.get(10, TimeUnit.SECONDS).getStatusCode().value());
+        assertEquals(1, ejecuciones.get(), "La acción debe ejecutarse una sola vez");
+        assertEquals("true", reintento.getHeaders().getFirst("Idempotent-Replayed"));
+        assertEquals("{\"pedido\":\"1\"}", reintento.getBody());
+    }
+
+    private static void esperarMs(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo;
+
+import com.example.demo.entity.Producto;
+import com.example.demo.service.ProductoSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ProductoSearchIndex: normalización de la consulta (mayúsculas, tildes, separadores),
+ * coincidencias exactas, por prefijo y dentro de la palabra, y orden por relevancia
+ */
+class ProductoSearchIndexTest {
+
+    private ProductoSearchIndex indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new ProductoSearchIndex();
+        indice.reconstruir(List.of(
+                producto("p1", "Brócoli orgánico", "Verduras", "Fresco del huerto"),
+                producto("p2", "Manzana roja", "Frutas", "Ideal con brócoli"),
+                producto("p3", "Tomate", "Verduras", null),
+                producto("p4", "Verduras mixtas", "Otros", "Bolsa surtida"),
+                producto("p5", "Uvas rojas", "Frutas", null)));
+    }
+
+    @Test
+    void ignoraMayusculasYTildes() {
+        assertEquals(List.of("p1", "p2"), indice.buscar("BROCOLI", 10));
+        assertEquals(List.of("p1", "p2"), indice.buscar("brócoli", 10));
+    }
+
+    @Test
+    void separaLaConsultaPorSignosYEspacios() {
+        assertEquals(List.of("p1"), indice.buscar("brócoli,orgánico", 10));
+        assertEquals(List.of("p1"), indice.buscar("  brocoli   organico ", 10));
+    }
+
+    @Test
+    void todosLosTerminosDebenCoincidir() {
+        assertEquals(List.of("p1"), indice.buscar("brocoli fresco", 10));
+        assertEquals(List.of(), indice.buscar("brocoli tomate", 10));
+    }
+
+    @Test
+    void encuentraPorPrefijoYDentroDeLaPalabra() {
+        assertEquals(List.of("p2"), indice.buscar("manz", 10));
+        assertEquals(List.of("p2"), indice.buscar("zana", 10));
+        assertEquals(List.of(), indice.buscar("zanx", 10));
+    }
+
+    @Test
+    void elNombrePesaMasQueLaCategoriaYEstaMasQueLaDescripcion() {
+        // p4 lo tiene en el nombre; p1 y p3 en la categoría (empate: se ordenan por ID)
+        assertEquals(List.of("p4", "p1", "p3"), indice.buscar("verduras", 10));
+        // p1 en el nombre, p2 sólo en la descripción
+        assertEquals(List.of("p1", "p2"), indice.buscar("brocoli", 10));
+    }
+
+    @Test
+    void laCoincidenciaExactaPesaMasQueElPrefijo() {
+        // "roja" es exacta en p2 y prefijo de "rojas" en p5
+        assertEquals(List.of("p2", "p5"), indice.buscar("roja", 10));
+    }
+
+    @Test
+    void respetaElLimite() {
+        assertEquals(List.of("p4"), indice.buscar("verduras", 1));
+        assertTrue(indice.buscar("verduras", 0).isEmpty());
+    }
+
+    @Test
+    void unaConsultaVaciaNoDevuelveResultados() {
+        assertTrue(indice.buscar(null, 10).isEmpty());
+        assertTrue(indice.buscar("   ", 10).isEmpty());
+        assertTrue(indice.buscar("-,.", 10).isEmpty());
+    }
+
+    @Test
+    void reindexarReemplazaLosTerminosAnteriores() {
+        indice.indexar(producto("p3", "Pimentón", "Verduras", null));
+
+        assertEquals(List.of(), indice.buscar("tomate", 10));
+        assertEquals(List.of("p3"), indice.buscar("pimenton", 10));
+    }
+
+    @Test
+    void unProductoEliminadoNoAparece() {
+        indice.eliminar("p2");
+
+        assertEquals(List.of("p1"), indice.buscar("brocoli", 10));
+        assertEquals(List.of(), indice.buscar("manzana", 10));
+    }
+
+    private static Producto producto(String id, String nombre, String categoria, String descripcion) {
+        Producto producto = new Producto(nombre, descripcion, BigDecimal.ONE, 10, categoria);
+        producto.setId(id);
+        return producto;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.demo;
+
+import com.example.demo.cache.TtlCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * TtlCache: expulsión LRU, expiración por entrada y descarte de las cargas que se cruzan con
+ * una invalidación (sólo las de la clave invalidada, o todas tras invalidateAll)
+ */
+class TtlCacheTest {
+
+    private static final long TTL_MS = 60_000;
+
+    @Test
+    void guardaElValorCargadoYLoDevuelveSinVolverACargar() {
+        TtlCache<String, String> cache = new TtlCache<>(10, TTL_MS);
+        AtomicInteger cargas = new AtomicInteger();
+
+        assertEquals("A", cache.get("a", clave -> cargar(cargas, "A")));
+        assertEquals("A", cache.get("a", clave -> cargar(cargas, "otro")));
+
+        assertEquals(1, cargas.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void noGuardaValoresNull() {
+        TtlCache<String, String> cache = new TtlCache<>(10, TTL_MS);
+
+        assertNull(cache.get("a", clave -> null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void expulsaLaEntradaMenosUsadaAlSuperarElMaximo() {
+        TtlCache<String, String> cache = new TtlCache<>(2, TTL_MS);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        // Leer "a" la vuelve la más reciente: la expulsada es "b"
+        cache.get("a");
+        cache.put("c", "C");
+
+        assertEquals(2, cache.size());
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void unaEntradaExpiradaNoSeDevuelveYSeVuelveACargar() {
+        TtlCache<String, String> cache = new TtlCache<>(10, TTL_MS);
+        cache.put("a", "viejo", System.currentTimeMillis() - 1);
+
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals("nuevo", cache.get("a", clave -> "nuevo"));
+        assertEquals("nuevo", cache.get("a"));
+    }
+
+    @Test
+    void laExpiracionExplicitaNoSuperaElTtl() {
+        TtlCache<String, String> cache = new TtlCache<>(10, 1);
+        cache.put("a", "A", Long.MAX_VALUE);
+
+        esperarMs(5);
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void purgarExpiradasEliminaSoloLasVencidas() {
+        TtlCache<String, String> cache = new TtlCache<>(10, TTL_MS);
+        cache.put("vencida", "V", System.currentTimeMillis() - 1);
+        cache.put("vigente", "A");
+
+        cache.purgarExpiradas();
+
+        assertEquals(1, cache.size());
+        assertEquals("A", cache.get("vigente"));
+    }
+
+    @Test
+    void noGuardaUnaCargaDeLaClaveInvalidadaMientrasSeConsultaba() {
+        TtlCache<String, String> cache = new TtlCache<>(10, TTL_MS);
+
+        String valor = cache.get("a", clave -> {
+            cache.invalidate("a");
+            return "anterior a la escritura";
+        });
+
+        // Se devuelve al llamador pero no queda en caché
+        assertEquals("anterior a la escritura", valor);
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void invalidarOtraClaveNoDescartaLaCarga() {
+        TtlCache<String, String> cache = new TtlCache<>(10, TTL_MS);
+
+        cache.get("a", clave -> {
+            cache.invalidate("b");
+            return "A";
+        });
+
+        assertEquals("A", cache.get("a"));
+    }
+
+    @Test
+    void invalidateAllDescartaLasCargasEnCurso() {
+        TtlCache<String, String> cache = new TtlCache<>(10, TTL_MS);
+        cache.put("b", "B");
+
+        cache.get("a", clave -> {
+            cache.invalidateAll();
+            return "A";
+        });
+
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void unaCargaPosteriorALaInvalidacionSeGuarda() {
+        TtlCache<String, String> cache = new TtlCache<>(10, TTL_MS);
+        cache.put("a", "viejo");
+        cache.invalidate("a");
+
+        assertEquals("nuevo", cache.get("a", clave -> "nuevo"));
+        assertEquals("nuevo", cache.get("a"));
+    }
+
+    @Test
+    void conElRegistroDeInvalidacionesLlenoDescartaTodasLasCargasEnCurso() {
+        TtlCache<String, String> cache = new TtlCache<>(2, TTL_MS);
+
+        // Con el registro acotado a maxEntries, la invalidación que lo desborda actúa como total
+        cache.get("a", clave -> {
+            cache.invalidate("b");
+            cache.invalidate("c");
+            cache.invalidate("d");
+            return "A";
+        });
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void rechazaTamanoOTtlNoPositivos() {
+        assertThrows(IllegalArgumentException.class, () -> new TtlCache<String, String>(0, TTL_MS));
+        assertThrows(IllegalArgumentException.class, () -> new TtlCache<String, String>(10, 0));
+    }
+
+    private static String cargar(AtomicInteger cargas, String valor) {
+        cargas.incrementAndGet();
+        return valor;
+    }
+
+    private static void esperarMs(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Celdas del CSV de exportación: comillas según RFC 4180 y neutralización de texto que una
+ * planilla interpretaría como fórmula. Está en el paquete del servicio porque celdaCsv es
+ * package-private.
+ */
+class ExportacionPedidosServiceTest {
+
+    @Test
+    void nullEsUnaCeldaVacia() {
+        assertEquals("", ExportacionPedidosService.celdaCsv(null));
+    }
+
+    @Test
+    void textoSimpleSinComillas() {
+        assertEquals("ENTREGADO", ExportacionPedidosService.celdaCsv("ENTREGADO"));
+        assertEquals("", ExportacionPedidosService.celdaCsv(""));
+    }
+
+    @Test
+    void entrecomillaSeparadoresYSaltosDeLinea() {
+        assertEquals("\"Av. Siempre Viva 742, Santiago\"",
+                ExportacionPedidosService.celdaCsv("Av. Siempre Viva 742, Santiago"));
+        assertEquals("\"línea 1\nlínea 2\"", ExportacionPedidosService.celdaCsv("línea 1\nlínea 2"));
+        assertEquals("\"a\r\nb\"", ExportacionPedidosService.celdaCsv("a\r\nb"));
+    }
+
+    @Test
+    void duplicaLasComillasInternas() {
+        assertEquals("\"Tomate \"\"cherry\"\"\"", ExportacionPedidosService.celdaCsv("Tomate \"cherry\""));
+    }
+
+    @Test
+    void anteponeApostrofoAlTextoQueEmpiezaComoFormula() {
+        assertEquals("'=SUMA(A1:A9)", ExportacionPedidosService.celdaCsv("=SUMA(A1:A9)"));
+        assertEquals("'+56912345678", ExportacionPedidosService.celdaCsv("+56912345678"));
+        assertEquals("'-2+3", ExportacionPedidosService.celdaCsv("-2+3"));
+        assertEquals("'@SUM(A1)", ExportacionPedidosService.celdaCsv("@SUM(A1)"));
+    }
+
+    @Test
+    void elApostrofoQuedaDentroDeLasComillas() {
+        assertEquals("\"'=1+1,2\"", ExportacionPedidosService.celdaCsv("=1+1,2"));
+        assertEquals("\"'=HIPERVINCULO(\"\"http://x\"\")\"",
+                ExportacionPedidosService.celdaCsv("=HIPERVINCULO(\"http://x\")"));
+    }
+
+    @Test
+    void losNumerosNoSeNeutralizan() {
+        assertEquals("-5", ExportacionPedidosService.celdaCsv(-5));
+        assertEquals("-1500.50", ExportacionPedidosService.celdaCsv(new BigDecimal("-1500.50")));
+        assertEquals("1000000", ExportacionPedidosService.celdaCsv(new BigDecimal("1E+6")));
+    }
+}